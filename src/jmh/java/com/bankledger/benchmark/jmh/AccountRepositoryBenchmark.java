@@ -0,0 +1,40 @@
+package com.bankledger.benchmark.jmh;
+
+import com.bankledger.model.Account;
+import com.bankledger.model.PostingStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw account store operations, without validation or journaling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccountRepositoryBenchmark {
+
+    private static final String UNKNOWN_ACCOUNT = "999999999";
+
+    @Benchmark
+    public Account findExisting(LedgerState ledger, Cursor cursor) {
+        return ledger.accountRepository.findByAccountNumber(ledger.accountNumbers[cursor.next(ledger.accounts)]);
+    }
+
+    @Benchmark
+    public Account findMissing(LedgerState ledger) {
+        return ledger.accountRepository.findByAccountNumber(UNKNOWN_ACCOUNT);
+    }
+
+    @Benchmark
+    public PostingStatus deposit(LedgerState ledger, Cursor cursor) {
+        return ledger.accountRepository.deposit(ledger.accountNumbers[cursor.next(ledger.accounts)], 100);
+    }
+
+    @Benchmark
+    public PostingStatus withdraw(LedgerState ledger, Cursor cursor) {
+        return ledger.accountRepository.withdraw(ledger.accountNumbers[cursor.next(ledger.accounts)], 100);
+    }
+}
@@ -0,0 +1,29 @@
+package com.bankledger.benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+
+/**
+ * Per-thread pseudo-random walk over the account indexes. A plain xorshift keeps the choice itself out of the
+ * measurement; each thread starts from its own seed.
+ */
+@State(Scope.Thread)
+public class Cursor {
+
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        seed = new SplittableRandom().nextLong() | 1;
+    }
+
+    int next(int bound) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) ((seed >>> 1) % bound);
+    }
+}
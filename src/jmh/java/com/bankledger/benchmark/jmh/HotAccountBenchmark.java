@@ -0,0 +1,52 @@
+package com.bankledger.benchmark.jmh;
+
+import com.bankledger.model.Account;
+import com.bankledger.model.PostingStatus;
+import com.bankledger.repository.AccountRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposits to and reads of a single account, with and without its deposit cells. Run with several threads
+ * ({@code -Pjmh.threads=8}) to see the stripe lock contention that hot accounts avoid.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class HotAccountBenchmark {
+
+    private static final String ACCOUNT_NUMBER = "000000001";
+
+    @Param({"false", "true"})
+    public boolean hot;
+
+    private AccountRepository accountRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountRepository = new AccountRepository();
+        accountRepository.create(new Account(ACCOUNT_NUMBER));
+        if (hot) {
+            accountRepository.promote(ACCOUNT_NUMBER);
+        }
+    }
+
+    @Benchmark
+    public PostingStatus deposit() {
+        return accountRepository.deposit(ACCOUNT_NUMBER, 100);
+    }
+
+    @Benchmark
+    public Account read() {
+        return accountRepository.findByAccountNumber(ACCOUNT_NUMBER);
+    }
+}
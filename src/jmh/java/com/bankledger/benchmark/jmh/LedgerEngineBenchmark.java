@@ -0,0 +1,80 @@
+package com.bankledger.benchmark.jmh;
+
+import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.TransferRequest;
+import com.bankledger.dto.WithdrawRequest;
+import com.bankledger.engine.LedgerEngine;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.service.LedgerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of a mix of deposits, withdrawals and transfers in each {@link LedgerEngine.Mode}. Compare
+ * the {@code p0.99} and {@code p0.999} lines with {@code -Pjmh.threads} above 1: in {@code SHARDED} mode the
+ * threads hand their postings to the shards instead of contending for the stripe locks.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class LedgerEngineBenchmark {
+
+    private static final int ACCOUNTS = 4096;
+
+    @Param({"LOCKING", "SHARDED"})
+    public LedgerEngine.Mode mode;
+
+    private LedgerEngine ledgerEngine;
+    private DepositRequest[] depositRequests;
+    private WithdrawRequest[] withdrawRequests;
+    private TransferRequest[] transferRequests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccountRepository accountRepository = new AccountRepository(WriteAheadLog.disabled(), SnapshotStore.disabled());
+        LedgerService ledgerService = new LedgerService(accountRepository, new TransactionRepository(1 << 20));
+        depositRequests = new DepositRequest[ACCOUNTS];
+        withdrawRequests = new WithdrawRequest[ACCOUNTS];
+        transferRequests = new TransferRequest[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String accountNumber = AccountNumbers.format(i);
+            ledgerService.createAccount(new CreateAccountRequest(accountNumber));
+            accountRepository.deposit(accountNumber, LedgerState.INITIAL_BALANCE);
+            depositRequests[i] = new DepositRequest(accountNumber, "1.00");
+            withdrawRequests[i] = new WithdrawRequest(accountNumber, "1.00");
+            transferRequests[i] = new TransferRequest(accountNumber, AccountNumbers.format((i * 31 + 7) % ACCOUNTS), "1.00");
+        }
+        ledgerEngine = new LedgerEngine(ledgerService, WriteAheadLog.disabled(), mode, 0, 4096);
+        ledgerEngine.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        ledgerEngine.stop();
+    }
+
+    @Benchmark
+    public void mixed(Cursor cursor) {
+        int account = cursor.next(ACCOUNTS);
+        switch (account % 3) {
+            case 0 -> ledgerEngine.deposit(depositRequests[account]).await();
+            case 1 -> ledgerEngine.withdraw(withdrawRequests[account]).await();
+            default -> ledgerEngine.transfer(transferRequests[account]).await();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bankledger.benchmark.jmh;
+
+import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.WithdrawRequest;
+import com.bankledger.metrics.LedgerMetrics;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.HeapBalanceStore;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.service.LedgerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link LedgerMetrics} on the deposit and withdrawal paths. Compare the throughput and
+ * {@code gc.alloc.rate.norm} of {@code metrics=false} and {@code metrics=true}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class LedgerMetricsBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private LedgerService ledgerService;
+    private DepositRequest[] depositRequests;
+    private WithdrawRequest[] withdrawRequests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LedgerMetrics ledgerMetrics = new LedgerMetrics(new SimpleMeterRegistry(), metrics);
+        AccountRepository accountRepository = new AccountRepository(WriteAheadLog.disabled(), SnapshotStore.disabled(),
+                new HeapBalanceStore(), ledgerMetrics);
+        ledgerService = new LedgerService(accountRepository, new TransactionRepository(1 << 20, ledgerMetrics), ledgerMetrics);
+        depositRequests = new DepositRequest[ACCOUNTS];
+        withdrawRequests = new WithdrawRequest[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String accountNumber = AccountNumbers.format(i);
+            ledgerService.createAccount(new CreateAccountRequest(accountNumber));
+            accountRepository.deposit(accountNumber, LedgerState.INITIAL_BALANCE);
+            depositRequests[i] = new DepositRequest(accountNumber, "1.00");
+            withdrawRequests[i] = new WithdrawRequest(accountNumber, "1.00");
+        }
+    }
+
+    @Benchmark
+    public void deposit(Cursor cursor) {
+        ledgerService.deposit(depositRequests[cursor.next(ACCOUNTS)]);
+    }
+
+    @Benchmark
+    public void withdraw(Cursor cursor) {
+        ledgerService.withdraw(withdrawRequests[cursor.next(ACCOUNTS)]);
+    }
+}
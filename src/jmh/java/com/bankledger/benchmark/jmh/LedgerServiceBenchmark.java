@@ -0,0 +1,80 @@
+package com.bankledger.benchmark.jmh;
+
+import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.model.Account;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.service.LedgerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end cost of each {@link LedgerService} operation, from request record to updated balance and journal entry.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LedgerServiceBenchmark {
+
+    /** Beyond every {@link LedgerState#accounts} setting. */
+    private static final String UNKNOWN_ACCOUNT = "999999999";
+
+    /**
+     * An empty ledger for account creation, replaced every iteration so the store does not grow without bound.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyLedger {
+
+        LedgerService ledgerService;
+        final AtomicInteger nextAccount = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            ledgerService = new LedgerService(new AccountRepository(), new TransactionRepository(1 << 20));
+            nextAccount.set(0);
+        }
+    }
+
+    @Benchmark
+    public void createAccount(EmptyLedger ledger) {
+        ledger.ledgerService.createAccount(new CreateAccountRequest(AccountNumbers.format(ledger.nextAccount.getAndIncrement())));
+    }
+
+    @Benchmark
+    public Account getAccount(LedgerState ledger, Cursor cursor) {
+        return ledger.ledgerService.getAccount(ledger.accountNumbers[cursor.next(ledger.accounts)]);
+    }
+
+    /**
+     * A lookup of an account that does not exist, as sent by clients probing for accounts; compare with
+     * {@link #getAccount}.
+     */
+    @Benchmark
+    public Object getUnknownAccount(LedgerState ledger) {
+        try {
+            return ledger.ledgerService.getAccount(UNKNOWN_ACCOUNT);
+        } catch (ExceptionList e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public void deposit(LedgerState ledger, Cursor cursor) {
+        ledger.ledgerService.deposit(ledger.depositRequests[cursor.next(ledger.accounts)]);
+    }
+
+    @Benchmark
+    public void withdraw(LedgerState ledger, Cursor cursor) {
+        ledger.ledgerService.withdraw(ledger.withdrawRequests[cursor.next(ledger.accounts)]);
+    }
+}
@@ -0,0 +1,56 @@
+package com.bankledger.benchmark.jmh;
+
+import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.WithdrawRequest;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.service.LedgerService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * An in-memory ledger shared by every benchmark thread, without the write-ahead log, so the benchmarks measure the
+ * request path itself.
+ * <p>
+ * {@code accounts} sets the contention: with one account every thread updates the same balance, with a million the
+ * updates are spread uniformly and mostly miss the CPU caches.
+ */
+@State(Scope.Benchmark)
+public class LedgerState {
+
+    /** Large enough that withdrawals never drain an account during a run. */
+    static final long INITIAL_BALANCE = 1_000_000_000_000L;
+
+    @Param({"1", "1000", "1000000"})
+    public int accounts;
+
+    AccountRepository accountRepository;
+    TransactionRepository transactionRepository;
+    LedgerService ledgerService;
+    String[] accountNumbers;
+    DepositRequest[] depositRequests;
+    WithdrawRequest[] withdrawRequests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountRepository = new AccountRepository();
+        transactionRepository = new TransactionRepository(1 << 20);
+        ledgerService = new LedgerService(accountRepository, transactionRepository);
+        accountNumbers = new String[accounts];
+        depositRequests = new DepositRequest[accounts];
+        withdrawRequests = new WithdrawRequest[accounts];
+        for (int i = 0; i < accounts; i++) {
+            String accountNumber = AccountNumbers.format(i);
+            ledgerService.createAccount(new CreateAccountRequest(accountNumber));
+            accountRepository.deposit(accountNumber, INITIAL_BALANCE);
+            accountNumbers[i] = accountNumber;
+            depositRequests[i] = new DepositRequest(accountNumber, "1.00");
+            withdrawRequests[i] = new WithdrawRequest(accountNumber, "1.00");
+        }
+    }
+}
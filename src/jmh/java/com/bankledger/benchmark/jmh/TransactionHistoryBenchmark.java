@@ -0,0 +1,62 @@
+package com.bankledger.benchmark.jmh;
+
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.model.Transaction;
+import com.bankledger.model.TransactionType;
+import com.bankledger.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of one account's history out of journals of different sizes, spread over 100 accounts. The cost should
+ * follow the page size alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TransactionHistoryBenchmark {
+
+    private static final int ACCOUNTS = 100;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10000", "1000000"})
+    public int journalSize;
+
+    private TransactionRepository transactionRepository;
+    private String accountNumber;
+    private long middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactionRepository = new TransactionRepository(journalSize);
+        String[] accountNumbers = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers[i] = AccountNumbers.format(i);
+        }
+        for (int i = 0; i < journalSize; i++) {
+            transactionRepository.append(accountNumbers[i % ACCOUNTS], TransactionType.DEPOSIT, 100);
+        }
+        accountNumber = accountNumbers[ACCOUNTS / 2];
+        middle = journalSize / 2;
+    }
+
+    @Benchmark
+    public List<Transaction> firstPage() {
+        return transactionRepository.findByAccount(accountNumber, -1, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Transaction> middlePage() {
+        return transactionRepository.findByAccount(accountNumber, middle, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,85 @@
+package com.bankledger.benchmark.jmh;
+
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.validation.AccountValidation;
+import com.bankledger.validation.AmountValidation;
+import com.bankledger.validation.CommonValidation;
+import com.bankledger.validation.InputValidation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The field checks of the {@code validation} package on valid and invalid input. Invalid input measures the cost of
+ * building the error message as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValidationBenchmark {
+
+    @State(Scope.Thread)
+    public static class AccountNumberInput {
+
+        @Param({"123456789", "12345678a"})
+        public String accountNumber;
+    }
+
+    @State(Scope.Thread)
+    public static class AmountInput {
+
+        @Param({"1234.56", "12.345"})
+        public String amount;
+    }
+
+    @Benchmark
+    public String checkAccountNumber(AccountNumberInput input) {
+        return InputValidation.checkAccountNumber(input.accountNumber, "accountNumber");
+    }
+
+    /**
+     * The regex check that {@link #checkAccountNumber} replaced, kept as the baseline it is compared against.
+     */
+    @Benchmark
+    public boolean matchesRegex(AccountNumberInput input) {
+        return input.accountNumber.matches("\\d{9}");
+    }
+
+    @Benchmark
+    public int parseAccountNumber(AccountNumberInput input) {
+        return AccountNumbers.parse(input.accountNumber);
+    }
+
+    /**
+     * The blank check that {@link #checkNotNullAndNotBlank} replaced, kept as the baseline it is compared against.
+     */
+    @Benchmark
+    public boolean trimIsEmpty(AccountNumberInput input) {
+        return input.accountNumber.trim().isEmpty();
+    }
+
+    @Benchmark
+    public String checkNotNullAndNotBlank(AccountNumberInput input) {
+        return CommonValidation.checkNotNullAndNotBlank(input.accountNumber, "accountNumber");
+    }
+
+    @Benchmark
+    public String checkNewAccountNumber(AccountNumberInput input, LedgerState ledger) {
+        return AccountValidation.checkNewAccountNumber(input.accountNumber, ledger.accountRepository, "accountNumber");
+    }
+
+    @Benchmark
+    public long parseAmount(AmountInput input) {
+        return AmountValidation.parseAmount(input.amount);
+    }
+
+    @Benchmark
+    public String checkAmount(AmountInput input) {
+        return AmountValidation.checkAmount(input.amount, AmountValidation.parseAmount(input.amount), "amount");
+    }
+}
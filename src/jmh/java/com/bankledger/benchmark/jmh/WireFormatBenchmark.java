@@ -0,0 +1,75 @@
+package com.bankledger.benchmark.jmh;
+
+import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.model.WireFormat;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.service.LedgerService;
+import com.bankledger.service.WirePostingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A deposit decoded from a JSON body, as {@code POST /deposit} receives it, against the same deposit decoded from a
+ * {@link WireFormat} frame. Both include applying the deposit, so the difference is the cost of the encoding.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class WireFormatBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LedgerService ledgerService;
+    private WirePostingService wirePostingService;
+    private byte[][] jsonBodies;
+    private ByteBuffer[] frames;
+    private final ByteBuffer responses = ByteBuffer.allocate(WireFormat.RESPONSE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ledgerService = new LedgerService(new AccountRepository(), new TransactionRepository(1 << 20));
+        wirePostingService = new WirePostingService(ledgerService, WriteAheadLog.disabled());
+        jsonBodies = new byte[ACCOUNTS][];
+        frames = new ByteBuffer[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String accountNumber = AccountNumbers.format(i);
+            ledgerService.createAccount(new CreateAccountRequest(accountNumber));
+            jsonBodies[i] = ("{\"accountNumber\":\"" + accountNumber + "\",\"amount\":\"1.00\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            frames[i] = ByteBuffer.allocate(WireFormat.COMMAND_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(WireFormat.DEPOSIT).putInt(i).putLong(100).putInt(0).flip();
+        }
+    }
+
+    @Benchmark
+    public void json(Cursor cursor) throws IOException {
+        ledgerService.deposit(objectMapper.readValue(jsonBodies[cursor.next(ACCOUNTS)], DepositRequest.class));
+    }
+
+    @Benchmark
+    public long binary(Cursor cursor) {
+        ByteBuffer frame = frames[cursor.next(ACCOUNTS)];
+        frame.rewind();
+        responses.clear();
+        return wirePostingService.applyDeferred(frame, responses);
+    }
+}
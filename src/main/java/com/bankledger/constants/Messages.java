@@ -1,5 +1,9 @@
 package com.bankledger.constants;
 
+import com.bankledger.model.WireFormat;
+
+import java.util.concurrent.ConcurrentHashMap;
+
 public class Messages {
 
     public static final String PARAMETER_BLANK = " must not be blank.";
@@ -9,4 +13,57 @@ public class Messages {
     public static final String ACCOUNT_NOT_FOUND = " not found.";
     public static final String AMOUNT_INVALID = " must be a number greater than zero.";
     public static final String INSUFFICIENT_BALANCE = "Insufficient balance.";
-}
\ No newline at end of file
+    public static final String BALANCE_LIMIT_EXCEEDED = "Balance limit exceeded.";
+    public static final String SAME_ACCOUNT_TRANSFER = " must differ from the source account.";
+    public static final String BATCH_TOO_LARGE = " must not contain more items than ";
+    public static final String TRANSACTION_CURSOR_INVALID = " must be a transaction sequence number.";
+    public static final String PAGE_LIMIT_INVALID = " must be a number from 1 to ";
+    public static final String EXPORT_FORMAT_INVALID = " must be ndjson or csv.";
+    public static final String IMPORT_FORMAT_INVALID = " must be csv or binary.";
+    public static final String IMPORT_PATH_INVALID = " must name a file in the import directory.";
+    public static final String IDEMPOTENCY_KEY_TOO_LONG = " must not be longer than ";
+    public static final String IDEMPOTENCY_KEY_REUSED = " was already used for a different request.";
+    public static final String IDEMPOTENCY_KEY_IN_PROGRESS = " is still being processed; retry later.";
+    public static final String COMMAND_FRAMES_INVALID = " must be a whole number of " + WireFormat.COMMAND_SIZE + "-byte command frames.";
+
+    /** Field-specific messages already built, by message and then field name. */
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, String>> FIELD_MESSAGES = new ConcurrentHashMap<>();
+    /** Field-specific messages ending in a limit, by message and then field name, with the limit they were built for. */
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, LimitMessage>> LIMIT_MESSAGES = new ConcurrentHashMap<>();
+
+    /**
+     * @return {@code fieldName + message}, built the first time and the same instance afterwards, so rejecting a
+     * field allocates no string. Field names come from code, so there are only ever a few dozen.
+     */
+    public static String forField(String fieldName, String message) {
+        ConcurrentHashMap<String, String> byField = FIELD_MESSAGES.get(message);
+        if (byField == null) {
+            byField = FIELD_MESSAGES.computeIfAbsent(message, ignored -> new ConcurrentHashMap<>());
+        }
+        String fieldMessage = byField.get(fieldName);
+        if (fieldMessage == null) {
+            fieldMessage = byField.computeIfAbsent(fieldName, name -> name + message);
+        }
+        return fieldMessage;
+    }
+
+    /**
+     * @return {@code fieldName + message + limit + "."}, built the first time and the same instance afterwards, like
+     * {@link #forField(String, String)}. Limits come from configuration, so each field only ever sees one.
+     */
+    public static String forField(String fieldName, String message, long limit) {
+        ConcurrentHashMap<String, LimitMessage> byField = LIMIT_MESSAGES.get(message);
+        if (byField == null) {
+            byField = LIMIT_MESSAGES.computeIfAbsent(message, ignored -> new ConcurrentHashMap<>());
+        }
+        LimitMessage fieldMessage = byField.get(fieldName);
+        if (fieldMessage == null || fieldMessage.limit() != limit) {
+            fieldMessage = new LimitMessage(limit, fieldName + message + limit + ".");
+            byField.put(fieldName, fieldMessage);
+        }
+        return fieldMessage.text();
+    }
+
+    private record LimitMessage(long limit, String text) {
+    }
+}
@@ -1,17 +1,35 @@
 package com.bankledger.controller;
 
+import com.bankledger.dto.BatchRequest;
+import com.bankledger.dto.BatchResponse;
 import com.bankledger.dto.CreateAccountRequest;
 import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.ImportResponse;
+import com.bankledger.dto.TransactionPage;
+import com.bankledger.dto.TransferRequest;
 import com.bankledger.dto.WithdrawRequest;
 import com.bankledger.model.Account;
+import com.bankledger.model.ExportFormat;
+import com.bankledger.engine.LedgerEngine;
+import com.bankledger.service.AccountImportService;
+import com.bankledger.service.IdempotencyService;
+import com.bankledger.service.LedgerExportService;
 import com.bankledger.service.LedgerService;
+import com.bankledger.service.WirePostingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/ledger")
 public class LedgerController {
@@ -21,6 +39,21 @@ public class LedgerController {
     @Autowired
     private LedgerService ledgerService;
 
+    @Autowired
+    private LedgerExportService ledgerExportService;
+
+    @Autowired
+    private AccountImportService accountImportService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private WirePostingService wirePostingService;
+
     @PostMapping("/account")
     public ResponseEntity<?> createAccount(@RequestBody CreateAccountRequest request) {
         ledgerService.createAccount(request);
@@ -28,26 +61,173 @@ public class LedgerController {
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    /**
+     * Returns the account with its version as a strong ETag. A client that sends the ETag it already holds in
+     * {@code If-None-Match} gets a bodiless 304 until the account changes.
+     */
     @GetMapping("/account/{accountNumber}")
-    public ResponseEntity<?> getAccount(@PathVariable String accountNumber) {
+    public ResponseEntity<?> getAccount(@PathVariable String accountNumber,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Account account = ledgerService.getAccount(accountNumber);
         if (account == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Account not found.");
         }
-        return ResponseEntity.ok(account);
+        String eTag = "\"" + account.version() + "\"";
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(account);
+    }
+
+    /**
+     * Returns a page of the account's transactions, oldest first. Pass the {@code after} of one page to get the next.
+     */
+    @GetMapping("/account/{accountNumber}/transactions")
+    public ResponseEntity<TransactionPage> getTransactions(@PathVariable String accountNumber,
+                                                           @RequestParam(required = false) String after,
+                                                           @RequestParam(required = false) String limit) {
+        TransactionPage page = ledgerService.getTransactions(accountNumber, after, limit);
+
+        return ResponseEntity.ok(page);
     }
 
+    /**
+     * Postings carrying an {@code Idempotency-Key} are applied once per key; a retry gets the original outcome.
+     */
     @PostMapping("/deposit")
-    public ResponseEntity<?> deposit(@RequestBody DepositRequest request) {
-        ledgerService.deposit(request);
+    public ResponseEntity<?> deposit(@RequestBody DepositRequest request,
+                                     @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        idempotencyService.run(idempotencyKey, request, () -> ledgerEngine.deposit(request).await());
 
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/withdraw")
-    public ResponseEntity<?> withdraw(@RequestBody WithdrawRequest request) {
-        ledgerService.withdraw(request);
+    public ResponseEntity<?> withdraw(@RequestBody WithdrawRequest request,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        idempotencyService.run(idempotencyKey, request, () -> ledgerEngine.withdraw(request).await());
 
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    @PostMapping("/transfer")
+    public ResponseEntity<?> transfer(@RequestBody TransferRequest request,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        idempotencyService.run(idempotencyKey, request, () -> ledgerEngine.transfer(request).await());
+
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Asynchronous variants of the postings above: the servlet thread is released while the posting waits for its
+     * shard or for the write-ahead log, and the response is written once it is durable.
+     */
+    @PostMapping("/async/deposit")
+    public CompletableFuture<ResponseEntity<Void>> depositAsync(@RequestBody DepositRequest request,
+                                                                @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.runAsync(idempotencyKey, request, () -> ledgerEngine.depositAsync(request))
+                .thenApply(ignored -> ResponseEntity.ok().build());
+    }
+
+    @PostMapping("/async/withdraw")
+    public CompletableFuture<ResponseEntity<Void>> withdrawAsync(@RequestBody WithdrawRequest request,
+                                                                 @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.runAsync(idempotencyKey, request, () -> ledgerEngine.withdrawAsync(request))
+                .thenApply(ignored -> ResponseEntity.ok().build());
+    }
+
+    @PostMapping("/async/transfer")
+    public CompletableFuture<ResponseEntity<Void>> transferAsync(@RequestBody TransferRequest request,
+                                                                 @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.runAsync(idempotencyKey, request, () -> ledgerEngine.transferAsync(request))
+                .thenApply(ignored -> ResponseEntity.ok().build());
+    }
+
+    /**
+     * Applies a body of binary command frames, laid out as in {@link com.bankledger.model.WireFormat}, and answers
+     * with one response frame per command once they are durable.
+     */
+    @PostMapping(value = "/binary", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> binary(@RequestBody byte[] body) {
+        byte[] responses = wirePostingService.apply(body);
+
+        return ResponseEntity.ok(responses);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResponse> batch(@RequestBody BatchRequest request) {
+        BatchResponse response = ledgerService.applyBatch(request);
+
+        return ResponseEntity.status(response.committed() ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY).body(response);
+    }
+
+    /**
+     * Creates accounts in bulk from the request body, or from {@code path} in the import directory, as {@code csv}
+     * (the default) or {@code binary} records.
+     */
+    @PostMapping("/import/accounts")
+    public ResponseEntity<ImportResponse> importAccounts(@RequestParam(required = false) String format,
+                                                         @RequestParam(required = false) String path,
+                                                         InputStream body) {
+        ImportResponse response = accountImportService.importAccounts(format, path, body);
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams every account, as of the moment the export starts, as {@code ndjson} (the default) or {@code csv}.
+     */
+    @GetMapping("/export/accounts")
+    public ResponseEntity<StreamingResponseBody> exportAccounts(@RequestParam(required = false) String format) {
+        ExportFormat exportFormat = ledgerExportService.parseFormat(format);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .body(out -> ledgerExportService.exportAccounts(exportFormat, out));
+    }
+
+    /**
+     * Streams every retained journal entry, up to the moment the export starts, as {@code ndjson} or {@code csv}.
+     */
+    @GetMapping("/export/transactions")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestParam(required = false) String format) {
+        ExportFormat exportFormat = ledgerExportService.parseFormat(format);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .body(out -> ledgerExportService.exportTransactions(exportFormat, out));
+    }
+
+    /**
+     * Compares an {@code If-None-Match} list with an ETag the weak way RFC 9110 prescribes for it, ignoring
+     * {@code W/} prefixes, without splitting the header.
+     */
+    private static boolean matchesAny(String ifNoneMatch, String eTag) {
+        int length = ifNoneMatch.length();
+        int start = 0;
+        while (start < length) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int from = start;
+            int to = end;
+            while (from < to && ifNoneMatch.charAt(from) == ' ') {
+                from++;
+            }
+            while (to > from && ifNoneMatch.charAt(to - 1) == ' ') {
+                to--;
+            }
+            if (ifNoneMatch.startsWith("W/", from)) {
+                from += 2;
+            }
+            if ((to - from == 1 && ifNoneMatch.charAt(from) == '*')
+                    || (to - from == eTag.length() && ifNoneMatch.regionMatches(from, eTag, 0, eTag.length()))) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,57 @@
+package com.bankledger.controller;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Lifts {@code spring.mvc.async.request-timeout} for handlers that return a {@link StreamingResponseBody}, such as
+ * the exports: they stream for as long as the ledger takes to write, however large it is. Every other asynchronous
+ * request, such as the {@code /async} postings, keeps the finite timeout.
+ */
+@Configuration
+public class StreamingTimeoutConfig implements WebMvcConfigurer {
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new StreamingTimeoutInterceptor());
+    }
+
+    /**
+     * Clears the timeout of a streaming handler's request just before its asynchronous processing starts.
+     */
+    public static class StreamingTimeoutInterceptor implements CallableProcessingInterceptor {
+
+        /** No timeout, to the servlet container. */
+        private static final long NO_TIMEOUT = -1;
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                    RequestAttributes.SCOPE_REQUEST);
+            if (request instanceof AsyncWebRequest asyncRequest && handler instanceof HandlerMethod handlerMethod
+                    && streams(handlerMethod.getReturnType())) {
+                asyncRequest.setTimeout(NO_TIMEOUT);
+            }
+        }
+
+        private static boolean streams(MethodParameter returnType) {
+            Class<?> bodyType = ResponseEntity.class.isAssignableFrom(returnType.getParameterType())
+                    ? ResolvableType.forMethodParameter(returnType).getGeneric().resolve()
+                    : returnType.getParameterType();
+            return bodyType != null && StreamingResponseBody.class.isAssignableFrom(bodyType);
+        }
+    }
+}
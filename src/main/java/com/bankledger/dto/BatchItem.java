@@ -0,0 +1,6 @@
+package com.bankledger.dto;
+
+/**
+ * @param type {@code DEPOSIT} or {@code WITHDRAWAL}
+ */
+public record BatchItem(String type, String accountNumber, String amount) {}
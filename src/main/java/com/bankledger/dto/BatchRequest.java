@@ -0,0 +1,9 @@
+package com.bankledger.dto;
+
+import java.util.List;
+
+/**
+ * @param atomic {@code true} to apply every item or none, {@code false} (the default) to apply each valid item
+ *               independently
+ */
+public record BatchRequest(Boolean atomic, List<BatchItem> items) {}
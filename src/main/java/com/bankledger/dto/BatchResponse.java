@@ -0,0 +1,8 @@
+package com.bankledger.dto;
+
+/**
+ * @param committed {@code false} if an atomic batch was rejected and nothing was applied
+ * @param applied   the number of items applied
+ * @param status    one {@link com.bankledger.model.PostingStatus} code per item, in request order
+ */
+public record BatchResponse(boolean committed, int applied, int[] status) {}
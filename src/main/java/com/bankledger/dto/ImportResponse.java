@@ -0,0 +1,12 @@
+package com.bankledger.dto;
+
+import java.util.List;
+
+/**
+ * @param imported       the number of accounts created
+ * @param existing       records skipped because the account already existed
+ * @param duplicates     records skipped because an earlier record had the same account number
+ * @param invalid        records skipped because the account number or balance was not valid
+ * @param invalidRecords the line, or binary record, numbers of the first 100 invalid records, counting from 1
+ */
+public record ImportResponse(long imported, long existing, long duplicates, long invalid, List<Long> invalidRecords) {}
@@ -0,0 +1,13 @@
+package com.bankledger.dto;
+
+import com.bankledger.model.Transaction;
+
+import java.util.List;
+
+/**
+ * @param transactions the account's transactions in sequence order
+ * @param after        the cursor of the next page: the sequence number of the last transaction returned, or the
+ *                     requested cursor if none were
+ * @param hasMore      {@code true} if more transactions followed this page when it was read
+ */
+public record TransactionPage(List<Transaction> transactions, long after, boolean hasMore) {}
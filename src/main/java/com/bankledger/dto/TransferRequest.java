@@ -0,0 +1,3 @@
+package com.bankledger.dto;
+
+public record TransferRequest(String fromAccountNumber, String toAccountNumber, String amount) {}
\ No newline at end of file
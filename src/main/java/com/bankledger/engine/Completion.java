@@ -0,0 +1,90 @@
+package com.bankledger.engine;
+
+import com.bankledger.exception.ExceptionList;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Outcome of a command submitted to the {@link LedgerEngine}, completed once by the shard that applied it.
+ * <p>
+ * A single waiter, the thread that submitted the command, parks until the shard completes it; there are no
+ * callbacks, stages or locks, so a completion is one small object per command. Commands submitted through the
+ * asynchronous API instead carry the {@link CompletableFuture} to complete.
+ */
+public final class Completion {
+
+    /** Already completed without failure, for commands applied on the calling thread. */
+    public static final Completion DONE = new Completion(true);
+
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+    /** Written by the shard before {@link #done}, read by the waiter after it. */
+    private RuntimeException failure;
+    private volatile boolean done;
+    private volatile Thread waiter;
+    private final CompletableFuture<Void> future;
+
+    Completion() {
+        this.future = null;
+    }
+
+    Completion(CompletableFuture<Void> future) {
+        this.future = future;
+    }
+
+    private Completion(boolean done) {
+        this.done = done;
+        this.future = null;
+    }
+
+    /**
+     * Waits for the command to be applied, spinning briefly on a multi-core machine before parking.
+     *
+     * @throws ExceptionList    if the command failed validation
+     * @throws RuntimeException the exception the command failed with otherwise
+     */
+    public void await() throws ExceptionList {
+        for (int i = 0; i < SPINS && !done; i++) {
+            Thread.onSpinWait();
+        }
+        if (!done) {
+            waiter = Thread.currentThread();
+            while (!done) {
+                LockSupport.park(this);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Records why the command failed, before {@link #complete()} publishes it.
+     */
+    void fail(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Publishes the outcome. A future is completed on the calling thread, so whatever is chained onto it runs there.
+     */
+    void complete() {
+        if (future != null) {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(null);
+            }
+        }
+        done = true;
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
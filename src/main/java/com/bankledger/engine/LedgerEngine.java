@@ -0,0 +1,200 @@
+package com.bankledger.engine;
+
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.TransferRequest;
+import com.bankledger.dto.WithdrawRequest;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.service.LedgerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Applies the {@link LedgerService} postings (deposits, withdrawals and transfers) in one of two modes:
+ * <ul>
+ *     <li>{@link Mode#LOCKING}: on the calling thread, which takes the account's stripe lock in the repository</li>
+ *     <li>{@link Mode#SHARDED}: on the single thread that owns the account's {@link Shard}, through its ring
+ *     buffer. The caller gets a {@link Completion} to wait on</li>
+ * </ul>
+ * Shards are chosen by the account's lock stripe, so no two shard threads ever take the same stripe in the account
+ * store or the journal, and the locks there are always free: each shard's accounts stay in its own core's caches,
+ * and its commands are applied, logged and journaled in the order they were published. A transfer runs on the
+ * source account's shard; if the destination belongs to another shard, the stripe locks still keep the two from
+ * interfering, at the cost of an occasional wait.
+ * <p>
+ * Commands whose account number cannot be parsed never reach a shard: they are rejected on the calling thread.
+ * Account creation, reads and batches are not postings to a single account and always run on the calling thread.
+ * <p>
+ * The {@code *Async} methods return a {@link CompletableFuture} instead, so the caller can move on while the posting
+ * is pending. They batch like the shards do: in {@link Mode#SHARDED} the future is completed by the shard once its
+ * batch is durable, and in {@link Mode#LOCKING} the posting is applied on the calling thread but its wait for the
+ * write-ahead log is handed to the log's group commit, which completes every future it made durable at once. A
+ * failed posting completes its future exceptionally, with the {@link com.bankledger.exception.ExceptionList} for a
+ * rejection; nothing is thrown.
+ */
+@Component
+public class LedgerEngine {
+
+    /**
+     * How commands are applied.
+     */
+    public enum Mode {
+
+        /** On the calling thread, under the repository's stripe locks. */
+        LOCKING,
+
+        /** On the single thread that owns the account's shard. */
+        SHARDED
+    }
+
+    private static final int DEFAULT_RING_SIZE = 4096;
+
+    private final LedgerService ledgerService;
+    private final WriteAheadLog writeAheadLog;
+    private final Shard[] shards;
+    private final int mask;
+
+    public LedgerEngine(LedgerService ledgerService) {
+        this(ledgerService, WriteAheadLog.disabled(), Mode.LOCKING, 0, DEFAULT_RING_SIZE);
+    }
+
+    /**
+     * @param shardCount the number of shards, rounded down to a power of two and capped at the number of lock
+     *                   stripes; 0 for one per available processor
+     * @param ringSize   the number of commands each shard can hold, rounded up to a power of two
+     */
+    @Autowired
+    public LedgerEngine(LedgerService ledgerService,
+                        WriteAheadLog writeAheadLog,
+                        @Value("${ledger.engine.mode:LOCKING}") Mode mode,
+                        @Value("${ledger.engine.shards:0}") int shardCount,
+                        @Value("${ledger.engine.ring-size:" + DEFAULT_RING_SIZE + "}") int ringSize) {
+        this.ledgerService = ledgerService;
+        this.writeAheadLog = writeAheadLog;
+        if (mode == Mode.LOCKING) {
+            this.shards = new Shard[0];
+            this.mask = 0;
+            return;
+        }
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        count = Math.min(Integer.highestOneBit(count), AccountRepository.stripes());
+        int capacity = Integer.highestOneBit(Math.max(2, ringSize) - 1) << 1;
+        this.shards = new Shard[count];
+        this.mask = count - 1;
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i, capacity, ledgerService, writeAheadLog);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Shard shard : shards) {
+            shard.start();
+        }
+    }
+
+    /**
+     * Applies every command already submitted, then stops the shard threads.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    public Mode mode() {
+        return shards.length == 0 ? Mode.LOCKING : Mode.SHARDED;
+    }
+
+    public Completion deposit(DepositRequest request) {
+        Shard shard = shardOf(request.accountNumber());
+        if (shard == null) {
+            ledgerService.deposit(request);
+            return Completion.DONE;
+        }
+        return shard.submit(Shard.DEPOSIT, request);
+    }
+
+    public Completion withdraw(WithdrawRequest request) {
+        Shard shard = shardOf(request.accountNumber());
+        if (shard == null) {
+            ledgerService.withdraw(request);
+            return Completion.DONE;
+        }
+        return shard.submit(Shard.WITHDRAW, request);
+    }
+
+    public Completion transfer(TransferRequest request) {
+        Shard shard = shardOf(request.fromAccountNumber());
+        if (shard == null) {
+            ledgerService.transfer(request);
+            return Completion.DONE;
+        }
+        return shard.submit(Shard.TRANSFER, request);
+    }
+
+    public CompletableFuture<Void> depositAsync(DepositRequest request) {
+        Shard shard = shardOf(request.accountNumber());
+        if (shard == null) {
+            return applyAsync(() -> ledgerService.deposit(request));
+        }
+        return submitAsync(shard, Shard.DEPOSIT, request);
+    }
+
+    public CompletableFuture<Void> withdrawAsync(WithdrawRequest request) {
+        Shard shard = shardOf(request.accountNumber());
+        if (shard == null) {
+            return applyAsync(() -> ledgerService.withdraw(request));
+        }
+        return submitAsync(shard, Shard.WITHDRAW, request);
+    }
+
+    public CompletableFuture<Void> transferAsync(TransferRequest request) {
+        Shard shard = shardOf(request.fromAccountNumber());
+        if (shard == null) {
+            return applyAsync(() -> ledgerService.transfer(request));
+        }
+        return submitAsync(shard, Shard.TRANSFER, request);
+    }
+
+    private CompletableFuture<Void> applyAsync(Runnable posting) {
+        long position;
+        try {
+            position = writeAheadLog.applyDeferred(posting);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return writeAheadLog.whenDurable(position);
+    }
+
+    private static CompletableFuture<Void> submitAsync(Shard shard, int type, Object request) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            shard.submit(type, request, future);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * @return the shard that owns the account, or {@code null} to apply the command on the calling thread
+     */
+    private Shard shardOf(String accountNumber) {
+        if (shards.length == 0) {
+            return null;
+        }
+        int key = AccountNumbers.parse(accountNumber);
+        if (key == AccountNumbers.INVALID) {
+            return null;
+        }
+        return shards[AccountRepository.stripeIndex(key) & mask];
+    }
+}
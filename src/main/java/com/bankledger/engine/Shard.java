@@ -0,0 +1,214 @@
+package com.bankledger.engine;
+
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.TransferRequest;
+import com.bankledger.dto.WithdrawRequest;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.service.LedgerService;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One shard of the {@link LedgerEngine}: a ring buffer of commands and the only thread that applies them.
+ * <p>
+ * Producers claim a sequence with one atomic increment, wait while the ring is full, fill the slot and publish it
+ * by storing its sequence in the slot's availability entry, in the manner of the LMAX Disruptor. The shard thread
+ * takes every contiguous published slot as one batch and applies its commands in sequence order. Changes to the
+ * write-ahead log are not waited for one by one: the thread waits once for the last position of the batch, then
+ * completes every command in it and frees the slots.
+ * <p>
+ * When there is no work the thread parks, after announcing it so that the next producer wakes it.
+ */
+final class Shard extends Thread implements WriteAheadLog.BatchingThread {
+
+    static final int DEPOSIT = 0;
+    static final int WITHDRAW = 1;
+    static final int TRANSFER = 2;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int MAX_BATCH = 256;
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 256 : 0;
+
+    private final LedgerService ledgerService;
+    private final WriteAheadLog writeAheadLog;
+
+    private final int capacity;
+    private final int mask;
+    private final int[] types;
+    private final Object[] requests;
+    private final Completion[] completions;
+    /** Per slot, the sequence last published into it. */
+    private final long[] available;
+
+    private final AtomicLong nextSequence = new AtomicLong();
+    /** Sequences below this have been applied and completed, and their slots may be reused. */
+    private volatile long consumed;
+    private volatile boolean sleeping;
+    private volatile boolean running = true;
+
+    /** Highest log position the current batch has to wait for, or 0; only touched by the shard thread. */
+    private long deferredPosition;
+    private boolean batching;
+    /** The completions of the batch being completed, once their slots are freed. */
+    private final Completion[] finished = new Completion[MAX_BATCH];
+
+    Shard(int index, int capacity, LedgerService ledgerService, WriteAheadLog writeAheadLog) {
+        super("ledger-shard-" + index);
+        setDaemon(true);
+        this.ledgerService = ledgerService;
+        this.writeAheadLog = writeAheadLog;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.types = new int[capacity];
+        this.requests = new Object[capacity];
+        this.completions = new Completion[capacity];
+        this.available = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            available[i] = -1;
+        }
+    }
+
+    /**
+     * Publishes a command, waiting while the ring is full.
+     *
+     * @throws IllegalStateException if the shard is stopped
+     */
+    Completion submit(int type, Object request) {
+        return submit(type, request, new Completion());
+    }
+
+    /**
+     * Publishes a command whose outcome completes {@code future}, waiting while the ring is full.
+     *
+     * @throws IllegalStateException if the shard is stopped
+     */
+    void submit(int type, Object request, CompletableFuture<Void> future) {
+        submit(type, request, new Completion(future));
+    }
+
+    private Completion submit(int type, Object request, Completion completion) {
+        if (!running) {
+            throw new IllegalStateException("Ledger engine is stopped");
+        }
+        long sequence = nextSequence.getAndIncrement();
+        for (int spins = 0; sequence - consumed >= capacity; spins++) {
+            if (spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        int slot = (int) (sequence & mask);
+        types[slot] = type;
+        requests[slot] = request;
+        completions[slot] = completion;
+        // A volatile store, so it cannot pass the read of the sleeping flag that follows
+        LONGS.setVolatile(available, slot, sequence);
+        if (sleeping) {
+            LockSupport.unpark(this);
+        }
+        return completion;
+    }
+
+    /**
+     * Stops taking commands, applies the ones already published and waits for the thread to end.
+     */
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(this);
+        join();
+    }
+
+    @Override
+    public boolean deferDurable(long position) {
+        if (!batching) {
+            return false;
+        }
+        deferredPosition = Math.max(deferredPosition, position);
+        return true;
+    }
+
+    @Override
+    public void run() {
+        long next = 0;
+        while (true) {
+            long end = next;
+            while (end - next < MAX_BATCH && (long) LONGS.getAcquire(available, (int) (end & mask)) == end) {
+                end++;
+            }
+            if (end == next) {
+                if (!running && nextSequence.get() == next) {
+                    return;
+                }
+                idle(next);
+                continue;
+            }
+            apply(next, end);
+            next = end;
+        }
+    }
+
+    private void apply(long start, long end) {
+        batching = true;
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) (sequence & mask);
+            try {
+                execute(types[slot], requests[slot]);
+            } catch (RuntimeException e) {
+                completions[slot].fail(e);
+            }
+        }
+        batching = false;
+        if (deferredPosition > 0) {
+            try {
+                writeAheadLog.awaitDurable(deferredPosition);
+            } catch (RuntimeException e) {
+                // Nothing in the batch can be acknowledged as durable
+                for (long sequence = start; sequence < end; sequence++) {
+                    completions[(int) (sequence & mask)].fail(e);
+                }
+            }
+            deferredPosition = 0;
+        }
+        int count = (int) (end - start);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((start + i) & mask);
+            finished[i] = completions[slot];
+            requests[slot] = null;
+            completions[slot] = null;
+        }
+        // Free the slots before completing, since a future's callbacks run on this thread and may publish more work
+        consumed = end;
+        for (int i = 0; i < count; i++) {
+            finished[i].complete();
+            finished[i] = null;
+        }
+    }
+
+    private void execute(int type, Object request) {
+        switch (type) {
+            case DEPOSIT -> ledgerService.deposit((DepositRequest) request);
+            case WITHDRAW -> ledgerService.withdraw((WithdrawRequest) request);
+            case TRANSFER -> ledgerService.transfer((TransferRequest) request);
+            default -> throw new IllegalStateException("Unknown command type " + type);
+        }
+    }
+
+    private void idle(long next) {
+        for (int i = 0; i < SPINS; i++) {
+            if ((long) LONGS.getAcquire(available, (int) (next & mask)) == next) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+        sleeping = true;
+        if ((long) LONGS.getVolatile(available, (int) (next & mask)) != next && running) {
+            LockSupport.park(this);
+        }
+        sleeping = false;
+    }
+}
@@ -1,16 +1,107 @@
 package com.bankledger.exception;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Validation errors by field name, thrown to reject a request.
+ * <p>
+ * A rejection is an expected outcome, not a bug, so no stack trace is captured: filling one in would cost more
+ * than the rest of the request. The {@code of} factories also share one immutable instance per distinct set of
+ * errors, of which there are few since messages come from {@link com.bankledger.constants.Messages#forField}; a
+ * repeated rejection then allocates nothing, and handlers can cache what they derive from an instance that
+ * {@link #isShared()}.
+ */
 public class ExceptionList extends RuntimeException {
+
+    /** Distinct sets of errors kept; past this, instances are built per rejection. */
+    private static final int MAX_SHARED = 4096;
+    private static final ConcurrentHashMap<Key, ExceptionList> SHARED = new ConcurrentHashMap<>();
+
     private final Map<String, List<String>> errors;
+    private final boolean shared;
 
     public ExceptionList(Map<String, List<String>> errors) {
+        this(errors, false);
+    }
+
+    private ExceptionList(Map<String, List<String>> errors, boolean shared) {
+        super(null, null, false, false);
         this.errors = errors;
+        this.shared = shared;
+    }
+
+    /**
+     * Builds the error map for a single validated field. A {@code null} error becomes an empty list.
+     */
+    public static ExceptionList of(String fieldName, String error) {
+        return shared(new Key(fieldName, error, null, null, null, null));
+    }
+
+    /**
+     * Builds the error map for two validated fields, keeping both keys so the response shape does not depend on
+     * which field failed. A {@code null} error becomes an empty list.
+     */
+    public static ExceptionList of(String fieldName, String error, String otherFieldName, String otherError) {
+        return shared(new Key(fieldName, error, otherFieldName, otherError, null, null));
+    }
+
+    /**
+     * Builds the error map for three validated fields, keeping every key. A {@code null} error becomes an empty list.
+     */
+    public static ExceptionList of(String firstFieldName, String firstError, String secondFieldName, String secondError,
+                                   String thirdFieldName, String thirdError) {
+        return shared(new Key(firstFieldName, firstError, secondFieldName, secondError, thirdFieldName, thirdError));
     }
 
     public Map<String, List<String>> getErrors() {
         return errors;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return whether this is the one instance the {@code of} factories return for its errors, rather than one
+     * built for a single rejection, so that what is derived from it can be cached by instance
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    private static ExceptionList shared(Key key) {
+        ExceptionList exception = SHARED.get(key);
+        if (exception != null) {
+            return exception;
+        }
+        if (SHARED.size() >= MAX_SHARED) {
+            return new ExceptionList(key.toErrors());
+        }
+        exception = new ExceptionList(key.toErrors(), true);
+        ExceptionList existing = SHARED.putIfAbsent(key, exception);
+        return existing != null ? existing : exception;
+    }
+
+    private static List<String> toList(String error) {
+        return error == null ? List.of() : List.of(error);
+    }
+
+    /**
+     * Up to three field names, each with its error or {@code null}; unused fields have a {@code null} name.
+     */
+    private record Key(String firstFieldName, String firstError, String secondFieldName, String secondError,
+                       String thirdFieldName, String thirdError) {
+
+        Map<String, List<String>> toErrors() {
+            Map<String, List<String>> errors = new LinkedHashMap<>();
+            errors.put(firstFieldName, toList(firstError));
+            if (secondFieldName != null) {
+                errors.put(secondFieldName, toList(secondError));
+            }
+            if (thirdFieldName != null) {
+                errors.put(thirdFieldName, toList(thirdError));
+            }
+            return Collections.unmodifiableMap(errors);
+        }
+    }
+}
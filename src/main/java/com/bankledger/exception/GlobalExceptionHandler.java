@@ -1,6 +1,9 @@
 package com.bankledger.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -9,26 +12,56 @@ import org.springframework.web.context.request.WebRequest;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Turns exceptions into {@code {"status": ..., "errors": {field: [messages]}}} responses: 400 for validation
+ * failures, 409 for a {@link RetryLaterException} and 500 for anything else.
+ * <p>
+ * Validation failures are answered with a body serialized once per shared {@link ExceptionList} instance and
+ * written as bytes afterwards, so a repeated rejection costs no map building and no JSON serialization. Instances
+ * built for a single rejection are serialized per response, so the cache holds no more bodies than there are shared
+ * instances.
+ */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final ObjectMapper objectMapper;
+    /** Keyed by shared instance: {@link ExceptionList} does not override {@code equals}. */
+    private final ConcurrentHashMap<ExceptionList, byte[]> bodies = new ConcurrentHashMap<>();
+
+    public GlobalExceptionHandler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
     @ExceptionHandler(ExceptionList.class)
-    public ResponseEntity<Map<String, Object>> handleExceptionList(ExceptionList ex, WebRequest request) {
-        return buildErrorResponse(ex.getErrors(), HttpStatus.BAD_REQUEST);
+    public ResponseEntity<byte[]> handleExceptionList(ExceptionList ex, WebRequest request) throws JsonProcessingException {
+        byte[] body = ex.isShared() ? bodies.get(ex) : null;
+        if (body == null) {
+            body = objectMapper.writeValueAsBytes(errorDetails(ex.getErrors(), HttpStatus.BAD_REQUEST));
+            if (ex.isShared()) {
+                bodies.putIfAbsent(ex, body);
+            }
+        }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @ExceptionHandler(RetryLaterException.class)
+    public ResponseEntity<Map<String, Object>> handleRetryLater(RetryLaterException ex, WebRequest request) {
+        return new ResponseEntity<>(errorDetails(ex.getErrors(), HttpStatus.CONFLICT), HttpStatus.CONFLICT);
     }
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException ex, WebRequest request) {
         Map<String, List<String>> errors = new LinkedHashMap<>();
         errors.put("error", List.of(ex.getMessage()));
-        return buildErrorResponse(errors, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(errorDetails(errors, HttpStatus.INTERNAL_SERVER_ERROR), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
-    private ResponseEntity<Map<String, Object>> buildErrorResponse(Map<String, List<String>> errors, HttpStatus status) {
+    private static Map<String, Object> errorDetails(Map<String, List<String>> errors, HttpStatus status) {
         Map<String, Object> errorDetails = new LinkedHashMap<>();
         errorDetails.put("status", status.value());
         errorDetails.put("errors", errors);
-        return new ResponseEntity<>(errorDetails, status);
+        return errorDetails;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.bankledger.exception;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thrown when a request cannot be answered yet because another request it depends on is still running. Unlike an
+ * {@link ExceptionList}, the same request may succeed if the client sends it again later.
+ * <p>
+ * Like {@link ExceptionList}, no stack trace is captured.
+ */
+public class RetryLaterException extends RuntimeException {
+
+    private final Map<String, List<String>> errors;
+
+    public RetryLaterException(String fieldName, String error) {
+        super(error, null, false, false);
+        this.errors = Map.of(fieldName, List.of(error));
+    }
+
+    public Map<String, List<String>> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,273 @@
+package com.bankledger.metrics;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.model.PostingStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation of the ledger's hot paths, published through Actuator at {@code /actuator/prometheus}.
+ * <p>
+ * Latencies are recorded into {@link Timer}s created up front and kept in arrays indexed by enum ordinal, so
+ * recording needs no meter lookup and no tag array per call. Each timer publishes a percentile histogram from 1 µs
+ * to 10 s, which Prometheus can aggregate across instances with {@code histogram_quantile}. Tag values are lower case
+ * with hyphens.
+ * <ul>
+ *     <li>{@code ledger.operations}: latency and count of each {@link com.bankledger.service.LedgerService}
+ *     operation, tagged with its {@code operation} and {@code outcome}: {@code success}, {@code rejected} for
+ *     validation failures, or {@code error}</li>
+ *     <li>{@code ledger.validation.failures}: rejected fields by {@code reason}, the name of the {@link Messages}
+ *     constant the error was built from, such as {@code account-not-found}</li>
+ *     <li>{@code ledger.lock.wait}: time spent waiting for a contended stripe lock, by {@code lock}; uncontended
+ *     acquisitions are not timed</li>
+ *     <li>{@code ledger.journal.append}: latency of appending to the transaction journal</li>
+ * </ul>
+ * With {@code ledger.metrics.enabled=false}, or the {@link #disabled()} instance, nothing is registered and every
+ * method returns before reading the clock.
+ *
+ * @see com.bankledger.service.LedgerService
+ */
+@Component
+public class LedgerMetrics {
+
+    private static final Duration MIN_LATENCY = Duration.ofNanos(1_000);
+    private static final Duration MAX_LATENCY = Duration.ofSeconds(10);
+    private static final String OTHER_REASON = "other";
+    private static final int MAX_CACHED_REASONS = 1024;
+
+    public enum Operation {
+        CREATE_ACCOUNT, GET_ACCOUNT, GET_TRANSACTIONS, DEPOSIT, WITHDRAW, TRANSFER, BATCH
+    }
+
+    public enum Lock {
+        ACCOUNT_STRIPE
+    }
+
+    private enum Outcome {
+        SUCCESS, REJECTED, ERROR
+    }
+
+    private static final int OUTCOMES = Outcome.values().length;
+
+    private static final LedgerMetrics DISABLED = new LedgerMetrics(null, false);
+
+    private final boolean enabled;
+    /** Indexed by operation ordinal times the number of outcomes, plus the outcome ordinal. */
+    private final Timer[] operations;
+    private final Timer[] lockWaits;
+    private final Timer journalAppends;
+    /** {@link Messages} values, longest first so a message matches the most specific one. */
+    private final String[] reasonMessages;
+    private final Counter[] reasons;
+    private final Counter otherReason;
+    /** By {@link PostingStatus} ordinal: the reason of the matching {@link Messages} constant, or other. */
+    private final Counter[] statusReasons;
+    /** Reasons already matched, by error message; messages are shared instances, so lookups rarely compare text. */
+    private final ConcurrentHashMap<String, Counter> reasonsByError = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LedgerMetrics(MeterRegistry registry, @Value("${ledger.metrics.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            this.operations = new Timer[0];
+            this.lockWaits = new Timer[0];
+            this.journalAppends = null;
+            this.reasonMessages = new String[0];
+            this.reasons = new Counter[0];
+            this.otherReason = null;
+            this.statusReasons = null;
+            return;
+        }
+
+        this.operations = new Timer[Operation.values().length * OUTCOMES];
+        for (Operation operation : Operation.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                operations[operation.ordinal() * OUTCOMES + outcome.ordinal()] = latency(registry, "ledger.operations",
+                        "Ledger service operations",
+                        Tags.of("operation", tagValue(operation), "outcome", tagValue(outcome)));
+            }
+        }
+        this.lockWaits = new Timer[Lock.values().length];
+        for (Lock lock : Lock.values()) {
+            lockWaits[lock.ordinal()] = latency(registry, "ledger.lock.wait", "Time spent waiting for a contended lock",
+                    Tags.of("lock", tagValue(lock)));
+        }
+        this.journalAppends = latency(registry, "ledger.journal.append", "Transaction journal appends", Tags.empty());
+
+        this.otherReason = reasonCounter(registry, OTHER_REASON);
+        this.statusReasons = new Counter[PostingStatus.values().length];
+        Arrays.fill(statusReasons, otherReason);
+        List<Reason> reasons = new ArrayList<>();
+        reasons.add(reason(registry, "parameter-blank", Messages.PARAMETER_BLANK));
+        reasons.add(reason(registry, "parameter-null", Messages.PARAMETER_NULL));
+        reasons.add(reason(registry, "invalid-account-number", Messages.INVALID_ACCOUNT_NUMBER,
+                PostingStatus.INVALID_ACCOUNT_NUMBER));
+        reasons.add(reason(registry, "account-number-exists", Messages.ACCOUNT_NUMBER_EXISTS,
+                PostingStatus.ACCOUNT_NUMBER_EXISTS));
+        reasons.add(reason(registry, "account-not-found", Messages.ACCOUNT_NOT_FOUND, PostingStatus.ACCOUNT_NOT_FOUND));
+        reasons.add(reason(registry, "amount-invalid", Messages.AMOUNT_INVALID, PostingStatus.INVALID_AMOUNT));
+        reasons.add(reason(registry, "insufficient-balance", Messages.INSUFFICIENT_BALANCE,
+                PostingStatus.INSUFFICIENT_BALANCE));
+        reasons.add(reason(registry, "balance-limit-exceeded", Messages.BALANCE_LIMIT_EXCEEDED,
+                PostingStatus.BALANCE_LIMIT_EXCEEDED));
+        reasons.add(reason(registry, "same-account-transfer", Messages.SAME_ACCOUNT_TRANSFER,
+                PostingStatus.SAME_ACCOUNT_TRANSFER));
+        reasons.add(reason(registry, "batch-too-large", Messages.BATCH_TOO_LARGE));
+        reasons.add(reason(registry, "transaction-cursor-invalid", Messages.TRANSACTION_CURSOR_INVALID));
+        reasons.add(reason(registry, "page-limit-invalid", Messages.PAGE_LIMIT_INVALID));
+        reasons.add(reason(registry, "export-format-invalid", Messages.EXPORT_FORMAT_INVALID));
+        reasons.add(reason(registry, "import-format-invalid", Messages.IMPORT_FORMAT_INVALID));
+        reasons.add(reason(registry, "import-path-invalid", Messages.IMPORT_PATH_INVALID));
+        reasons.add(reason(registry, "idempotency-key-too-long", Messages.IDEMPOTENCY_KEY_TOO_LONG));
+        reasons.add(reason(registry, "idempotency-key-reused", Messages.IDEMPOTENCY_KEY_REUSED));
+        reasons.add(reason(registry, "command-frames-invalid", Messages.COMMAND_FRAMES_INVALID));
+        reasons.sort(Comparator.comparingInt((Reason reason) -> reason.message().length()).reversed());
+        this.reasonMessages = reasons.stream().map(Reason::message).toArray(String[]::new);
+        this.reasons = reasons.stream().map(Reason::counter).toArray(Counter[]::new);
+    }
+
+    /**
+     * @return an instance that records nothing, for a ledger built outside Spring
+     */
+    public static LedgerMetrics disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start time to pass to the other methods, or 0 without reading the clock if disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void succeeded(Operation operation, long start) {
+        if (enabled) {
+            record(operation, Outcome.SUCCESS, start);
+        }
+    }
+
+    /**
+     * Records an operation that failed validation, counting each rejected field by the message it was rejected with.
+     */
+    public void rejected(Operation operation, long start, ExceptionList exception) {
+        if (enabled) {
+            record(operation, Outcome.REJECTED, start);
+            for (List<String> errors : exception.getErrors().values()) {
+                for (String error : errors) {
+                    reasonOf(error).increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Records an operation refused with a {@link PostingStatus} rather than an {@link ExceptionList}.
+     */
+    public void rejected(Operation operation, long start, PostingStatus status) {
+        if (enabled) {
+            record(operation, Outcome.REJECTED, start);
+            statusReasons[status.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Records an operation that failed unexpectedly.
+     */
+    public void failed(Operation operation, long start) {
+        if (enabled) {
+            record(operation, Outcome.ERROR, start);
+        }
+    }
+
+    /**
+     * Records the wait for a lock that was found taken.
+     */
+    public void lockWaited(Lock lock, long start) {
+        if (enabled) {
+            lockWaits[lock.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void journalAppended(long start) {
+        if (enabled) {
+            journalAppends.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void record(Operation operation, Outcome outcome, long start) {
+        operations[operation.ordinal() * OUTCOMES + outcome.ordinal()].record(System.nanoTime() - start,
+                TimeUnit.NANOSECONDS);
+    }
+
+    private Counter reasonOf(String error) {
+        Counter reason = reasonsByError.get(error);
+        if (reason != null) {
+            return reason;
+        }
+        reason = otherReason;
+        for (int i = 0; i < reasonMessages.length; i++) {
+            if (error.contains(reasonMessages[i])) {
+                reason = reasons[i];
+                break;
+            }
+        }
+        if (reasonsByError.size() < MAX_CACHED_REASONS) {
+            reasonsByError.put(error, reason);
+        }
+        return reason;
+    }
+
+    private static Timer latency(MeterRegistry registry, String name, String description, Tags tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_LATENCY)
+                .maximumExpectedValue(MAX_LATENCY)
+                .register(registry);
+    }
+
+    /**
+     * Registers the counter of a validation failure reason, and counts the given statuses under it too.
+     */
+    private Reason reason(MeterRegistry registry, String name, String message, PostingStatus... statuses) {
+        Counter counter = reasonCounter(registry, name);
+        for (PostingStatus status : statuses) {
+            statusReasons[status.ordinal()] = counter;
+        }
+        return new Reason(message, counter);
+    }
+
+    private static Counter reasonCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("ledger.validation.failures")
+                .description("Fields rejected by validation")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private record Reason(String message, Counter counter) {
+    }
+}
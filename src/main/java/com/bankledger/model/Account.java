@@ -1,16 +1,29 @@
 package com.bankledger.model;
 
-public record Account(String accountNumber, double balance) {
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * @param balance the balance in cents
+ * @param version the number of updates applied to the account since it was created
+ */
+public record Account(String accountNumber,
+                      @JsonSerialize(using = MoneySerializer.class) long balance,
+                      @JsonIgnore long version) {
 
     public Account(String accountNumber) {
         this(accountNumber, 0);
     }
 
-    public Account deposit(double amount) {
-        return new Account(this.accountNumber, this.balance + amount);
+    public Account(String accountNumber, long balance) {
+        this(accountNumber, balance, 0);
+    }
+
+    public Account deposit(long amount) {
+        return new Account(this.accountNumber, Math.addExact(this.balance, amount), this.version + 1);
     }
 
-    public Account withdraw(double amount) {
-        return new Account(this.accountNumber, this.balance - amount);
+    public Account withdraw(long amount) {
+        return new Account(this.accountNumber, Math.subtractExact(this.balance, amount), this.version + 1);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.bankledger.model;
+
+/**
+ * Converts 9-digit account numbers to and from the {@code int} key used by the store and in binary records.
+ */
+public final class AccountNumbers {
+
+    /** Returned by {@link #parse} for anything that is not exactly nine ASCII digits. No valid key is negative. */
+    public static final int INVALID = -1;
+
+    private static final int DIGITS = 9;
+    private static final int MAX_KEY = 999_999_999;
+
+    private AccountNumbers() {
+    }
+
+    /**
+     * Validates and packs an account number in one pass over its characters, without allocating.
+     *
+     * @return the account number as an {@code int}, or {@link #INVALID} if it is null or not exactly nine digits
+     */
+    public static int parse(String accountNumber) {
+        return accountNumber == null ? INVALID : parse(accountNumber, 0, accountNumber.length());
+    }
+
+    /**
+     * Parses {@code text[start, end)} like {@link #parse(String)}.
+     */
+    public static int parse(CharSequence text, int start, int end) {
+        if (end - start != DIGITS) {
+            return INVALID;
+        }
+        int key = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            key = key * 10 + digit;
+        }
+        return key;
+    }
+
+    /**
+     * @return whether {@code key} is one that {@link #parse} can return, for keys received already packed
+     */
+    public static boolean isValid(int key) {
+        return key >= 0 && key <= MAX_KEY;
+    }
+
+    /**
+     * Packs an account number that is already known to be valid.
+     */
+    public static int pack(String accountNumber) {
+        return parse(accountNumber);
+    }
+
+    public static String format(int account) {
+        char[] digits = new char[DIGITS];
+        for (int i = DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + account % 10);
+            account /= 10;
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,19 @@
+package com.bankledger.model;
+
+/**
+ * Row format of a ledger export, one account or transaction per line.
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,13 @@
+package com.bankledger.model;
+
+/**
+ * Record format of an account import.
+ */
+public enum ImportFormat {
+
+    /** {@code accountNumber,balance} lines. */
+    CSV,
+
+    /** 12-byte big-endian records of an {@code int} account number and a {@code long} balance in cents. */
+    BINARY
+}
@@ -0,0 +1,121 @@
+package com.bankledger.model;
+
+/**
+ * Fixed-point money arithmetic on {@code long} minor units (cents).
+ * <p>
+ * Amounts are parsed straight from their decimal text into cents without going through {@code double} or
+ * {@code BigDecimal}, so arithmetic is exact and the hot path allocates nothing.
+ */
+public final class Money {
+
+    /** Returned by {@link #parseCents} when the text is not a representable amount. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int FRACTION_DIGITS = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Parses a decimal amount such as {@code "100"}, {@code "100.5"} or {@code "-0.25"} into cents.
+     * <p>
+     * Surrounding whitespace is ignored. Digits beyond the second decimal place must be zeros, since they cannot be
+     * represented exactly.
+     *
+     * @return the amount in cents, or {@link #INVALID} if the text is malformed or out of range
+     */
+    public static long parseCents(String value) {
+        return value == null ? INVALID : parseCents(value, 0, value.length());
+    }
+
+    /**
+     * Parses {@code text[start, end)} like {@link #parseCents(String)}, for callers reading amounts out of a larger
+     * text without cutting each one out first.
+     */
+    public static long parseCents(CharSequence value, int start, int end) {
+        int i = start;
+        while (i < end && value.charAt(i) <= ' ') {
+            i++;
+        }
+        while (end > i && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int digits = 0;
+        for (; i < end && value.charAt(i) != '.'; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || units > (Long.MAX_VALUE - digit) / 10) {
+                return INVALID;
+            }
+            units = units * 10 + digit;
+            digits++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < end) {
+            // skip the decimal point
+            i++;
+            for (; i < end; i++) {
+                int digit = value.charAt(i) - '0';
+                if (digit < 0 || digit > 9 || (fractionDigits >= FRACTION_DIGITS && digit != 0)) {
+                    return INVALID;
+                }
+                if (fractionDigits < FRACTION_DIGITS) {
+                    fraction = fraction * 10 + digit;
+                }
+                fractionDigits++;
+            }
+        }
+        if (digits == 0 && fractionDigits == 0) {
+            return INVALID;
+        }
+        for (int d = Math.min(fractionDigits, FRACTION_DIGITS); d < FRACTION_DIGITS; d++) {
+            fraction *= 10;
+        }
+
+        if (units > (Long.MAX_VALUE - fraction) / 100) {
+            return INVALID;
+        }
+        long cents = units * 100 + fraction;
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * @return {@code true} if adding {@code amount} to {@code balance} would overflow
+     */
+    public static boolean overflows(long balance, long amount) {
+        long sum = balance + amount;
+        return ((balance ^ sum) & (amount ^ sum)) < 0;
+    }
+
+    /**
+     * Formats cents as a plain decimal with two fraction digits, e.g. {@code 12345} as {@code "123.45"}.
+     */
+    public static String format(long cents) {
+        return append(new StringBuilder(24), cents).toString();
+    }
+
+    /**
+     * Appends cents formatted as by {@link #format}, so a caller building a larger text needs no separate string.
+     */
+    public static StringBuilder append(StringBuilder text, long cents) {
+        if (cents < 0) {
+            text.append('-');
+        }
+        // Work on the negative range so Long.MIN_VALUE formats correctly
+        long negated = cents < 0 ? cents : -cents;
+        text.append(-(negated / 100)).append('.');
+        long fraction = -(negated % 100);
+        if (fraction < 10) {
+            text.append('0');
+        }
+        return text.append(fraction);
+    }
+}
@@ -0,0 +1,22 @@
+package com.bankledger.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a cents value as a JSON number with two decimal places, so {@code 10050} is rendered as {@code 100.50}.
+ */
+public class MoneySerializer extends StdSerializer<Long> {
+
+    public MoneySerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long cents, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeNumber(Money.format(cents));
+    }
+}
@@ -0,0 +1,27 @@
+package com.bankledger.model;
+
+/**
+ * Outcome of a single posting in a batch, or of a command in a binary frame, reported to clients as its numeric {@link #code()}.
+ */
+public enum PostingStatus {
+    OK(0),
+    INVALID_TYPE(1),
+    INVALID_ACCOUNT_NUMBER(2),
+    ACCOUNT_NOT_FOUND(3),
+    INVALID_AMOUNT(4),
+    INSUFFICIENT_BALANCE(5),
+    BALANCE_LIMIT_EXCEEDED(6),
+    NOT_APPLIED(7),
+    SAME_ACCOUNT_TRANSFER(8),
+    ACCOUNT_NUMBER_EXISTS(9);
+
+    private final int code;
+
+    PostingStatus(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+}
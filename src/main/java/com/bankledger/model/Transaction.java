@@ -1,17 +1,17 @@
 package com.bankledger.model;
 
-import java.util.Date;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
-public class Transaction {
-    private String accountNumber;
-    private double amount;
-    private String type;
-    private Date date;
-
-    public Transaction(String accountNumber, double amount, String type) {
-        this.accountNumber = accountNumber;
-        this.amount = amount;
-        this.type = type;
-        this.date = new Date();
-    }
-}
\ No newline at end of file
+/**
+ * An immutable journal entry.
+ *
+ * @param sequence  position in the journal, unique and increasing in append order
+ * @param amount    the amount in cents
+ * @param timestamp epoch milliseconds at which the entry was appended
+ */
+public record Transaction(long sequence,
+                          String accountNumber,
+                          TransactionType type,
+                          @JsonSerialize(using = MoneySerializer.class) long amount,
+                          long timestamp) {
+}
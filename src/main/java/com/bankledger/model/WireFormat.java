@@ -0,0 +1,41 @@
+package com.bankledger.model;
+
+/**
+ * Layout of the binary wire protocol, a compact alternative to the JSON endpoints for high-volume clients, spoken
+ * over HTTP by {@code POST /api/ledger/binary} and over plain TCP by {@link com.bankledger.server.WireServer}.
+ * <p>
+ * A request is a sequence of fixed-size little-endian command frames:
+ * <pre>
+ *  0  int   opcode: {@link #DEPOSIT}, {@link #WITHDRAW}, {@link #TRANSFER}, {@link #CREATE} or {@link #BALANCE}
+ *  4  int   account number, packed from its 9 digits as by {@link AccountNumbers#parse}
+ *  8  long  amount in cents for a posting, otherwise ignored
+ * 16  int   destination account number for a transfer, otherwise ignored
+ * </pre>
+ * The reply holds one little-endian response frame per command, in the same order:
+ * <pre>
+ *  0  int   {@link PostingStatus#code()}; an unknown opcode is {@link PostingStatus#INVALID_TYPE}
+ *  4  long  the balance in cents for a successful {@link #BALANCE}, otherwise 0
+ * </pre>
+ */
+public final class WireFormat {
+
+    public static final int DEPOSIT = 1;
+    public static final int WITHDRAW = 2;
+    public static final int TRANSFER = 3;
+    public static final int CREATE = 4;
+    public static final int BALANCE = 5;
+
+    public static final int COMMAND_SIZE = 20;
+    public static final int RESPONSE_SIZE = 12;
+
+    public static final int OPCODE_OFFSET = 0;
+    public static final int ACCOUNT_OFFSET = 4;
+    public static final int AMOUNT_OFFSET = 8;
+    public static final int TO_ACCOUNT_OFFSET = 16;
+
+    public static final int STATUS_OFFSET = 0;
+    public static final int VALUE_OFFSET = 4;
+
+    private WireFormat() {
+    }
+}
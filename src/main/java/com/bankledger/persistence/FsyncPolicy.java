@@ -0,0 +1,16 @@
+package com.bankledger.persistence;
+
+/**
+ * When the write-ahead log forces appended records to disk before acknowledging them.
+ */
+public enum FsyncPolicy {
+
+    /** Every append waits for its own fsync; writers that arrive during a sync share the next one. */
+    PER_OP,
+
+    /** A background flusher syncs every group-commit interval and wakes all writers it made durable. */
+    GROUP,
+
+    /** Appends return as soon as the record is in the page cache; the OS decides when to write it back. */
+    OS
+}
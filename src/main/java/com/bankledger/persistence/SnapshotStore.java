@@ -0,0 +1,256 @@
+package com.bankledger.persistence;
+
+import com.bankledger.model.Account;
+import com.bankledger.model.AccountNumbers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compact binary snapshots of every account, used to skip most of the write-ahead log on startup.
+ * <p>
+ * A snapshot file is a little-endian header ({@code long} magic, {@code long} log position, {@code long} account
+ * count), one 20-byte record per account ({@code int} packed account number, {@code long} balance, {@code long}
+ * version) and a {@code long} checksum. Files are written to a temporary name, synced and atomically renamed to
+ * {@code snapshot-<log position>.bin}, so a crash never leaves a partial snapshot behind under the final name.
+ * <p>
+ * Snapshots are fuzzy: accounts are read while writers keep going, so a snapshot may already contain changes logged
+ * after its position. Replay skips those by comparing account versions.
+ */
+@Component
+public class SnapshotStore {
+
+    public static final int RECORD_SIZE = 20;
+
+    private static final long MAGIC = 0x424C534E41503031L;
+    private static final int HEADER_SIZE = 24;
+    private static final int CHECKSUM_SIZE = 8;
+    private static final int CHUNK_RECORDS = 1 << 20;
+    private static final int RETAINED_SNAPSHOTS = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    /**
+     * Receives the accounts of a snapshot while it is loaded. Called from several threads at once.
+     */
+    @FunctionalInterface
+    public interface AccountHandler {
+        void restore(int account, long balance, long version);
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+
+    public SnapshotStore(@Value("${ledger.snapshot.enabled:false}") boolean enabled,
+                         @Value("${ledger.snapshot.directory:data/snapshots}") Path directory) {
+        this.enabled = enabled;
+        this.directory = directory;
+    }
+
+    /**
+     * @return a store that never loads or writes snapshots
+     */
+    public static SnapshotStore disabled() {
+        return new SnapshotStore(false, null);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Writes a snapshot of {@code accounts} and removes all but the newest snapshots.
+     *
+     * @param logPosition the write-ahead log position every account already reflects
+     * @return the number of accounts written
+     */
+    public long write(long logPosition, Iterable<Account> accounts) {
+        if (!enabled) {
+            return 0;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path temporary = directory.resolve(PREFIX + "tmp");
+            long count = 0;
+            long checksum = 0;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 65536).order(ByteOrder.LITTLE_ENDIAN);
+                channel.position(HEADER_SIZE);
+                for (Account account : accounts) {
+                    if (buffer.remaining() < RECORD_SIZE) {
+                        drain(buffer, channel);
+                    }
+                    int packed = AccountNumbers.pack(account.accountNumber());
+                    buffer.putInt(packed).putLong(account.balance()).putLong(account.version());
+                    checksum += checksum(packed, account.balance(), account.version());
+                    count++;
+                }
+                if (buffer.remaining() < CHECKSUM_SIZE) {
+                    drain(buffer, channel);
+                }
+                buffer.putLong(checksum);
+                drain(buffer, channel);
+
+                buffer.putLong(MAGIC).putLong(logPosition).putLong(count).flip();
+                channel.write(buffer, 0);
+                channel.force(true);
+            }
+            Path target = directory.resolve(String.format("%s%016x%s", PREFIX, logPosition, SUFFIX));
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteOlderThan(RETAINED_SNAPSHOTS);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write snapshot to " + directory, e);
+        }
+    }
+
+    /**
+     * Loads the newest intact snapshot into {@code handler}, falling back to older ones if it is corrupt. Accounts
+     * are delivered from several threads in no particular order.
+     *
+     * @return the write-ahead log position the loaded snapshot covers, or 0 if there is none
+     */
+    public long load(AccountHandler handler) {
+        if (!enabled || !Files.isDirectory(directory)) {
+            return 0;
+        }
+        for (Path snapshot : snapshotsNewestFirst()) {
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                long start = System.nanoTime();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(header, 0);
+                header.flip();
+                if (header.remaining() < HEADER_SIZE || header.getLong() != MAGIC) {
+                    logger.warn("Skipping snapshot {}: bad header", snapshot);
+                    continue;
+                }
+                long logPosition = header.getLong();
+                long count = header.getLong();
+                if (channel.size() != HEADER_SIZE + count * RECORD_SIZE + CHECKSUM_SIZE) {
+                    logger.warn("Skipping snapshot {}: truncated", snapshot);
+                    continue;
+                }
+                // Verify before restoring anything, so a corrupt snapshot leaves the store untouched
+                if (scan(channel, count, null) != readChecksum(channel, count)) {
+                    logger.warn("Skipping snapshot {}: checksum mismatch", snapshot);
+                    continue;
+                }
+                scan(channel, count, handler);
+                logger.info("Loaded {} accounts from snapshot {} in {} ms", count, snapshot, (System.nanoTime() - start) / 1_000_000);
+                return logPosition;
+            } catch (IOException e) {
+                logger.warn("Skipping snapshot {}: {}", snapshot, e.getMessage());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the write-ahead log position covered by the oldest snapshot kept, which every snapshot
+     * {@link #load} could fall back to covers, or 0 if there is none
+     */
+    public long oldestPosition() {
+        if (!enabled || !Files.isDirectory(directory)) {
+            return 0;
+        }
+        List<Path> snapshots = snapshotsNewestFirst();
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        String name = snapshots.get(snapshots.size() - 1).getFileName().toString();
+        return Long.parseUnsignedLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()), 16);
+    }
+
+    /**
+     * Walks the records in parallel chunks, restoring them if a handler is given.
+     *
+     * @return the checksum of all records
+     */
+    private static long scan(FileChannel channel, long count, AccountHandler handler) {
+        AtomicLong checksum = new AtomicLong();
+        int chunks = (int) ((count + CHUNK_RECORDS - 1) / CHUNK_RECORDS);
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            long first = (long) chunk * CHUNK_RECORDS;
+            int records = (int) Math.min(CHUNK_RECORDS, count - first);
+            MappedByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, (long) records * RECORD_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            long partial = 0;
+            for (int i = 0; i < records; i++) {
+                int offset = i * RECORD_SIZE;
+                int packed = buffer.getInt(offset);
+                long balance = buffer.getLong(offset + 4);
+                long version = buffer.getLong(offset + 12);
+                if (handler != null) {
+                    handler.restore(packed, balance, version);
+                } else {
+                    partial += checksum(packed, balance, version);
+                }
+            }
+            checksum.addAndGet(partial);
+        });
+        return checksum.get();
+    }
+
+    private static long readChecksum(FileChannel channel, long count) throws IOException {
+        ByteBuffer trailer = ByteBuffer.allocate(CHECKSUM_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(trailer, HEADER_SIZE + count * RECORD_SIZE);
+        return trailer.flip().getLong();
+    }
+
+    private List<Path> snapshotsNewestFirst() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted((a, b) -> b.getFileName().compareTo(a.getFileName())).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list snapshots in " + directory, e);
+        }
+    }
+
+    private void deleteOlderThan(int retained) throws IOException {
+        List<Path> snapshots = snapshotsNewestFirst();
+        for (int i = retained; i < snapshots.size(); i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long checksum(int account, long balance, long version) {
+        long hash = account * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ balance) * 0xC2B2AE3D27D4EB4FL;
+        hash = (hash ^ version) * 0x165667B19E3779F9L;
+        return hash ^ (hash >>> 29);
+    }
+}
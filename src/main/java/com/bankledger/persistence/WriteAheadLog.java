@@ -0,0 +1,709 @@
+package com.bankledger.persistence;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Durable, memory-mapped write-ahead log of account events.
+ * <p>
+ * Every event is a fixed-size little-endian record:
+ * <pre>
+ *  0  int   type (0 marks the end of the log)
+ *  4  int   account number, packed from its 9 digits by {@link com.bankledger.model.AccountNumbers}
+ *  8  long  amount in cents
+ * 16  long  account version after the event
+ * 24  long  checksum of the fields above
+ * </pre>
+ * Writers claim a slot with one atomic increment and fill it in place in the mapped file, publishing the type
+ * last. Durability is tracked as the longest contiguous prefix of fully written records, so a record is never
+ * acknowledged while an earlier one could still be torn. How that prefix reaches the disk is governed by the
+ * {@link FsyncPolicy}.
+ * <p>
+ * A deposit into a hot account's cell is logged as {@link #CELL_DEPOSIT}, whose version is the account version the
+ * deposit was made against rather than one of its own; the {@link #FOLD} that later moves the cells into the balance
+ * records the version they advanced it to.
+ * <p>
+ * A transfer is logged as a debit record immediately followed by its credit record. Both slots are claimed at once
+ * and the debit is published last, so the pair becomes visible, durable and replayable only as a whole.
+ * <p>
+ * The log is kept in segment files of one mapped region each, named after the log position they start at:
+ * {@code ledger.wal.0000000004000000} holds the records from position {@code 0x4000000} on. Once every retained
+ * snapshot covers a segment, {@link #release} unmaps and deletes it, so the log on disk only spans the records
+ * since the oldest retained snapshot.
+ * <p>
+ * On startup the log is replayed from the position covered by the latest snapshot up to the first missing or
+ * corrupt record, and anything after it is truncated.
+ */
+@Component
+public class WriteAheadLog {
+
+    public static final int RECORD_SIZE = 32;
+
+    public static final int ACCOUNT_CREATED = 1;
+    public static final int DEPOSIT = 2;
+    public static final int WITHDRAWAL = 3;
+    public static final int CELL_DEPOSIT = 6;
+    /** Amount: the number of cell deposits folded. */
+    public static final int FOLD = 7;
+
+    private static final int TRANSFER_DEBIT = 4;
+    private static final int TRANSFER_CREDIT = 5;
+
+    private static final int TYPE_OFFSET = 0;
+    private static final int ACCOUNT_OFFSET = 4;
+    private static final int AMOUNT_OFFSET = 8;
+    private static final int VERSION_OFFSET = 16;
+    private static final int CHECKSUM_OFFSET = 24;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    /**
+     * {@code sun.misc.Unsafe.invokeCleaner}, which unmaps a released segment at once instead of whenever its buffer
+     * is collected; {@code null} where it is not available.
+     */
+    private static final MethodHandle UNMAP = unmapHandle();
+
+    /**
+     * Receives the records of the log in append order during recovery. A transfer arrives as a
+     * {@link #WITHDRAWAL} from the source account followed by a {@link #DEPOSIT} to the destination.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void apply(int type, int account, long amount, long version);
+    }
+
+    /**
+     * A thread that applies changes in batches and waits for the log once per batch rather than once per change.
+     * While it accepts a position, {@link #awaitDurable} hands the position to it instead of blocking.
+     */
+    public interface BatchingThread {
+
+        /**
+         * @return {@code true} if the thread will wait for {@code position} itself before acknowledging the change
+         */
+        boolean deferDurable(long position);
+    }
+
+    private final boolean enabled;
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final long groupCommitIntervalNanos;
+    private final int regionSize;
+
+    private final AtomicLong writePosition = new AtomicLong();
+    private final ReentrantLock mapLock = new ReentrantLock();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition durableAdvanced = commitLock.newCondition();
+    /** Futures from {@link #whenDurable}, released by the flusher; guarded by the commit lock. */
+    private final List<DurableWaiter> durableWaiters = new ArrayList<>();
+    /** Per thread, the highest position its changes deferred while in {@link #applyDeferred}, or -1 outside it. */
+    private final ThreadLocal<long[]> deferredPosition = ThreadLocal.withInitial(() -> new long[]{-1});
+
+    private volatile long durablePosition;
+    /** By segment index; {@code null} for segments not mapped yet or already released. */
+    private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+    /** Segments below this index have been released; guarded by the commit lock. */
+    private long releasedSegments;
+    private volatile boolean open;
+    private Thread flusher;
+
+    public WriteAheadLog(@Value("${ledger.wal.enabled:false}") boolean enabled,
+                         @Value("${ledger.wal.path:data/ledger.wal}") Path path,
+                         @Value("${ledger.wal.fsync:GROUP}") FsyncPolicy fsyncPolicy,
+                         @Value("${ledger.wal.group-commit-interval-ms:2}") long groupCommitIntervalMillis,
+                         @Value("${ledger.wal.region-size:67108864}") int regionSize) {
+        if (regionSize <= 0 || regionSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("ledger.wal.region-size must be a positive multiple of " + RECORD_SIZE);
+        }
+        this.enabled = enabled;
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        this.groupCommitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, groupCommitIntervalMillis));
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * @return a log that accepts and discards every record, for stores that do not need durability
+     */
+    public static WriteAheadLog disabled() {
+        return new WriteAheadLog(false, null, FsyncPolicy.OS, 0, RECORD_SIZE);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replays every intact record from {@code fromPosition} into {@code handler}, truncates anything after the last
+     * one and opens the log for appending. Must be called once before the first {@link #append}.
+     *
+     * @param fromPosition the log position already covered by a snapshot, or 0 to replay the whole log
+     */
+    public void recover(long fromPosition, RecordHandler handler) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            long end;
+            if (logEnd() < fromPosition) {
+                // The snapshot is newer than the log, e.g. the log was removed; continue numbering after it
+                logger.warn("Write-ahead log {} ends before snapshot position {}", path, fromPosition);
+                end = fromPosition;
+            } else {
+                end = replay(fromPosition, handler);
+            }
+            truncate(end);
+            writePosition.set(end);
+            durablePosition = end;
+            open = true;
+            if (fsyncPolicy == FsyncPolicy.GROUP) {
+                flusher = new Thread(this::runFlusher, "ledger-wal-flusher");
+                flusher.setDaemon(true);
+                flusher.start();
+            }
+            logger.info("Recovered {} records from write-ahead log {} (fsync {})", (end - fromPosition) / RECORD_SIZE, path, fsyncPolicy);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open write-ahead log " + path, e);
+        }
+    }
+
+    /**
+     * Writes a record into the log without waiting for it to become durable. Callers append under the account's
+     * lock, so records of one account appear in the order they were applied.
+     *
+     * @return the log position to pass to {@link #awaitDurable}
+     */
+    public long append(int type, int account, long amount, long version) {
+        if (!enabled) {
+            return 0;
+        }
+        if (!open) {
+            throw new IllegalStateException("Write-ahead log " + path + " is not open");
+        }
+        long position = writePosition.getAndAdd(RECORD_SIZE);
+        write(position, type, account, amount, version);
+        return position + RECORD_SIZE;
+    }
+
+    /**
+     * Writes both sides of a transfer into adjacent slots. Callers hold the locks of both accounts.
+     *
+     * @return the log position to pass to {@link #awaitDurable}
+     */
+    public long appendTransfer(int fromAccount, int toAccount, long amount, long fromVersion, long toVersion) {
+        if (!enabled) {
+            return 0;
+        }
+        if (!open) {
+            throw new IllegalStateException("Write-ahead log " + path + " is not open");
+        }
+        long position = writePosition.getAndAdd(2 * RECORD_SIZE);
+        // Publish the credit first: the flusher and replay both stop at the unpublished debit until the pair is whole
+        write(position + RECORD_SIZE, TRANSFER_CREDIT, toAccount, amount, toVersion);
+        write(position, TRANSFER_DEBIT, fromAccount, amount, fromVersion);
+        return position + 2 * RECORD_SIZE;
+    }
+
+    /**
+     * Blocks until every record up to {@code position} is durable under the configured {@link FsyncPolicy}. On a
+     * {@link BatchingThread} that accepts the position, or within {@link #applyDeferred}, returns at once and leaves
+     * the wait to the caller.
+     */
+    public void awaitDurable(long position) {
+        if (!enabled || fsyncPolicy == FsyncPolicy.OS || durablePosition >= position) {
+            return;
+        }
+        if (Thread.currentThread() instanceof BatchingThread thread && thread.deferDurable(position)) {
+            return;
+        }
+        long[] deferred = deferredPosition.get();
+        if (deferred[0] >= 0) {
+            deferred[0] = Math.max(deferred[0], position);
+            return;
+        }
+        commitLock.lock();
+        try {
+            while (durablePosition < position) {
+                if (fsyncPolicy == FsyncPolicy.PER_OP) {
+                    flush(true);
+                    if (durablePosition < position) {
+                        // An earlier record is still being written; it only takes a few stores
+                        Thread.onSpinWait();
+                    }
+                } else {
+                    durableAdvanced.awaitUninterruptibly();
+                }
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a change on the calling thread without waiting for the records it logs to become durable.
+     *
+     * @return the position to pass to {@link #whenDurable} before acknowledging the change, or 0 if there is none
+     */
+    public long applyDeferred(Runnable change) {
+        if (!enabled || fsyncPolicy == FsyncPolicy.OS) {
+            change.run();
+            return 0;
+        }
+        long[] deferred = deferredPosition.get();
+        deferred[0] = 0;
+        try {
+            change.run();
+            return deferred[0];
+        } finally {
+            deferred[0] = -1;
+        }
+    }
+
+    /**
+     * Returns a future that completes once every record up to {@code position} is durable. Under
+     * {@link FsyncPolicy#GROUP} it is completed by the flusher thread right after the group commit that covers it,
+     * together with every other waiter that commit released, so no thread blocks on the disk in the meantime.
+     * Under {@link FsyncPolicy#PER_OP} the records are forced on the calling thread first.
+     */
+    public CompletableFuture<Void> whenDurable(long position) {
+        if (!enabled || fsyncPolicy == FsyncPolicy.OS || durablePosition >= position) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (fsyncPolicy == FsyncPolicy.PER_OP) {
+            awaitDurable(position);
+            return CompletableFuture.completedFuture(null);
+        }
+        commitLock.lock();
+        try {
+            if (!open) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Write-ahead log " + path + " is closed"));
+            }
+            if (durablePosition < position) {
+                CompletableFuture<Void> future = new CompletableFuture<>();
+                durableWaiters.add(new DurableWaiter(position, future));
+                return future;
+            }
+        } finally {
+            commitLock.unlock();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Forces every fully written record to disk, regardless of the fsync policy.
+     *
+     * @return the position up to which the log is durable; every change applied before this call is covered
+     */
+    public long checkpoint() {
+        if (!enabled) {
+            return 0;
+        }
+        commitLock.lock();
+        try {
+            flush(true);
+            return durablePosition;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Unmaps and deletes every segment that lies wholly before {@code position}, which must be covered by every
+     * snapshot recovery could fall back to. Positions past the durable one are clamped to it, so no segment a
+     * writer or the flusher may still touch is released.
+     *
+     * @return the number of segments deleted
+     */
+    public int release(long position) {
+        if (!enabled) {
+            return 0;
+        }
+        List<MappedByteBuffer> unmapped = new ArrayList<>();
+        long first;
+        long end;
+        commitLock.lock();
+        try {
+            if (!open) {
+                return 0;
+            }
+            first = releasedSegments;
+            end = Math.min(position, durablePosition) / regionSize;
+            if (end <= first) {
+                return 0;
+            }
+            releasedSegments = end;
+            mapLock.lock();
+            try {
+                MappedByteBuffer[] updated = regions.clone();
+                for (long index = first; index < Math.min(end, updated.length); index++) {
+                    if (updated[(int) index] != null) {
+                        unmapped.add(updated[(int) index]);
+                        updated[(int) index] = null;
+                    }
+                }
+                regions = updated;
+            } finally {
+                mapLock.unlock();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+        unmapped.forEach(WriteAheadLog::unmap);
+        int deleted = 0;
+        try {
+            for (Path segment : segments()) {
+                if (segmentIndex(segment) < end && Files.deleteIfExists(segment)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete write-ahead log segments of " + path, e);
+        }
+        if (deleted > 0) {
+            logger.info("Released {} write-ahead log segments before position {}", deleted, end * regionSize);
+        }
+        return deleted;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<CompletableFuture<Void>> released = new ArrayList<>();
+        List<CompletableFuture<Void>> abandoned = new ArrayList<>();
+        commitLock.lock();
+        try {
+            flush(fsyncPolicy != FsyncPolicy.OS);
+            releaseDurableWaiters(released);
+            for (DurableWaiter waiter : durableWaiters) {
+                abandoned.add(waiter.future());
+            }
+            durableWaiters.clear();
+        } finally {
+            commitLock.unlock();
+            released.forEach(future -> future.complete(null));
+            // Their records were never fully written, so they can no longer become durable
+            abandoned.forEach(future -> future.completeExceptionally(
+                    new IllegalStateException("Write-ahead log " + path + " closed before the change was durable")));
+        }
+    }
+
+    private long replay(long fromPosition, RecordHandler handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 8192).order(ByteOrder.LITTLE_ENDIAN);
+        long position = fromPosition;
+        while (true) {
+            buffer.clear();
+            read(buffer, position);
+            buffer.flip();
+            if (buffer.remaining() < RECORD_SIZE) {
+                return position;
+            }
+            for (int offset = 0; offset + RECORD_SIZE <= buffer.limit(); offset += RECORD_SIZE) {
+                int type = buffer.getInt(offset + TYPE_OFFSET);
+                int account = buffer.getInt(offset + ACCOUNT_OFFSET);
+                long amount = buffer.getLong(offset + AMOUNT_OFFSET);
+                long version = buffer.getLong(offset + VERSION_OFFSET);
+                if (type == 0 || buffer.getLong(offset + CHECKSUM_OFFSET) != checksum(type, account, amount, version)) {
+                    return position;
+                }
+                if (type != TRANSFER_DEBIT) {
+                    handler.apply(type, account, amount, version);
+                    position += RECORD_SIZE;
+                    continue;
+                }
+                // A debit only counts together with the credit that follows it
+                int credit = offset + RECORD_SIZE;
+                if (credit + RECORD_SIZE > buffer.limit()) {
+                    if (offset == 0) {
+                        return position;
+                    }
+                    break;
+                }
+                int creditType = buffer.getInt(credit + TYPE_OFFSET);
+                int creditAccount = buffer.getInt(credit + ACCOUNT_OFFSET);
+                long creditAmount = buffer.getLong(credit + AMOUNT_OFFSET);
+                long creditVersion = buffer.getLong(credit + VERSION_OFFSET);
+                if (creditType != TRANSFER_CREDIT
+                        || buffer.getLong(credit + CHECKSUM_OFFSET) != checksum(creditType, creditAccount, creditAmount, creditVersion)) {
+                    return position;
+                }
+                handler.apply(WITHDRAWAL, account, amount, version);
+                handler.apply(DEPOSIT, creditAccount, creditAmount, creditVersion);
+                position += 2 * RECORD_SIZE;
+                offset += RECORD_SIZE;
+            }
+        }
+    }
+
+    /**
+     * Fills {@code buffer} with the log from {@code position} on, across segment files, stopping early where the
+     * log ends.
+     */
+    private void read(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            Path segment = segmentPath(position / regionSize);
+            if (!Files.exists(segment)) {
+                return;
+            }
+            int offset = (int) (position % regionSize);
+            int limit = buffer.limit();
+            buffer.limit(buffer.position() + (int) Math.min(buffer.remaining(), regionSize - offset));
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position % regionSize);
+                    if (read <= 0) {
+                        return;
+                    }
+                    position += read;
+                }
+            } finally {
+                buffer.limit(limit);
+            }
+        }
+    }
+
+    /**
+     * @return the position just past the last byte of the last segment file, or 0 if there is none
+     */
+    private long logEnd() throws IOException {
+        long end = 0;
+        for (Path segment : segments()) {
+            end = Math.max(end, segmentIndex(segment) * regionSize + Files.size(segment));
+        }
+        return end;
+    }
+
+    /**
+     * Cuts the log at {@code end}: the segment it falls in is truncated there and every later one is deleted, so
+     * no stale record past a torn one can be replayed after new records fill the gap.
+     */
+    private void truncate(long end) throws IOException {
+        long last = end / regionSize;
+        for (Path segment : segments()) {
+            long index = segmentIndex(segment);
+            if (index > last) {
+                Files.delete(segment);
+            } else if (index == last) {
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    channel.truncate(end % regionSize);
+                }
+            }
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return path.resolveSibling(String.format("%s.%016x", path.getFileName(), index * regionSize));
+    }
+
+    private long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseUnsignedLong(name.substring(name.length() - 16), 16) / regionSize;
+    }
+
+    /**
+     * @return the segment files of this log, in no particular order
+     */
+    private List<Path> segments() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(parent)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.length() == prefix.length() + 16 && name.startsWith(prefix)
+                        && name.chars().skip(prefix.length()).allMatch(c -> Character.digit(c, 16) >= 0);
+            }).toList();
+        }
+    }
+
+    private void runFlusher() {
+        List<CompletableFuture<Void>> released = new ArrayList<>();
+        while (open) {
+            LockSupport.parkNanos(this, groupCommitIntervalNanos);
+            commitLock.lock();
+            try {
+                flush(true);
+                releaseDurableWaiters(released);
+            } finally {
+                commitLock.unlock();
+            }
+            // Outside the lock: completing a future runs whatever the caller chained onto it
+            for (CompletableFuture<Void> future : released) {
+                future.complete(null);
+            }
+            released.clear();
+        }
+    }
+
+    /**
+     * Moves the futures of every waiter whose position is durable into {@code released}. Must hold the commit lock.
+     */
+    private void releaseDurableWaiters(List<CompletableFuture<Void>> released) {
+        if (durableWaiters.isEmpty()) {
+            return;
+        }
+        long durable = durablePosition;
+        durableWaiters.removeIf(waiter -> {
+            if (waiter.position() > durable) {
+                return false;
+            }
+            released.add(waiter.future());
+            return true;
+        });
+    }
+
+    /**
+     * Advances the durable position over the contiguous run of fully written records, forcing them to disk if
+     * requested. Must hold the commit lock.
+     */
+    private void flush(boolean force) {
+        long durable = durablePosition;
+        long written = writePosition.get();
+        long end = durable;
+        while (end < written && (int) INT.getAcquire(region(end / regionSize), (int) (end % regionSize) + TYPE_OFFSET) != 0) {
+            end += RECORD_SIZE;
+        }
+        if (end == durable) {
+            return;
+        }
+        if (force) {
+            for (long from = durable; from < end; ) {
+                long index = from / regionSize;
+                int offset = (int) (from % regionSize);
+                int length = (int) (Math.min(end, (index + 1) * regionSize) - from);
+                region(index).force(offset, length);
+                from += length;
+            }
+        }
+        durablePosition = end;
+        durableAdvanced.signalAll();
+    }
+
+    /**
+     * Fills the record at {@code position}, publishing its type last.
+     */
+    private void write(long position, int type, int account, long amount, long version) {
+        MappedByteBuffer region = region(position / regionSize);
+        int offset = (int) (position % regionSize);
+        INT.set(region, offset + ACCOUNT_OFFSET, account);
+        LONG.set(region, offset + AMOUNT_OFFSET, amount);
+        LONG.set(region, offset + VERSION_OFFSET, version);
+        LONG.set(region, offset + CHECKSUM_OFFSET, checksum(type, account, amount, version));
+        INT.setRelease(region, offset + TYPE_OFFSET, type);
+    }
+
+    private MappedByteBuffer region(long index) {
+        MappedByteBuffer[] current = regions;
+        if (index < current.length && current[(int) index] != null) {
+            return current[(int) index];
+        }
+        mapLock.lock();
+        try {
+            current = regions;
+            if (index < current.length && current[(int) index] != null) {
+                return current[(int) index];
+            }
+            // Copy on write so the new mapping is published by the volatile store
+            MappedByteBuffer[] updated = index < current.length
+                    ? current.clone()
+                    : Arrays.copyOf(current, (int) Math.max(index + 1, current.length * 2L));
+            // The mapping outlives the channel, which only creates and sizes the segment file
+            try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                updated[(int) index] = channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+            }
+            regions = updated;
+            return updated[(int) index];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map write-ahead log " + path, e);
+        } finally {
+            mapLock.unlock();
+        }
+    }
+
+    private static void unmap(MappedByteBuffer region) {
+        if (UNMAP == null) {
+            return;
+        }
+        try {
+            UNMAP.invokeExact((ByteBuffer) region);
+        } catch (Throwable e) {
+            logger.warn("Could not unmap a released write-ahead log segment: {}", e.toString());
+        }
+    }
+
+    private static MethodHandle unmapHandle() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Released segments are then unmapped when their buffers are collected
+            return null;
+        }
+    }
+
+    private static long checksum(int type, int account, long amount, long version) {
+        long hash = mix(((long) type << 32) | (account & 0xFFFFFFFFL));
+        hash = mix(hash ^ amount);
+        return mix(hash ^ version);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private record DurableWaiter(long position, CompletableFuture<Void> future) {
+    }
+}
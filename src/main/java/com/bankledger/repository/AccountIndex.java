@@ -0,0 +1,104 @@
+package com.bankledger.repository;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Open-addressing hash index from a packed account number to its slot in the {@link BalanceStore}.
+ * <p>
+ * Each entry is a single {@code long}: the key plus one in the upper half and the slot in the lower half, so an
+ * empty entry is zero and an entry is published with one release write. Lookups never lock and never allocate.
+ * Insertions must be serialized by the caller. When the table passes three quarters full, a copy twice the size is
+ * built and published, so a lookup still probing the old table sees every entry that existed when it started.
+ */
+public final class AccountIndex {
+
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private volatile long[] entries;
+    private int size;
+
+    public AccountIndex() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize the number of accounts to size the table for up front
+     */
+    public AccountIndex(int expectedSize) {
+        entries = new long[capacityFor(expectedSize)];
+    }
+
+    /**
+     * @return the slot of the account, or -1 if it is not indexed
+     */
+    public int find(int key) {
+        long[] table = entries;
+        int mask = table.length - 1;
+        int tag = key + 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            long entry = (long) ENTRIES.getAcquire(table, i);
+            if (entry == 0) {
+                return -1;
+            }
+            if ((int) (entry >>> 32) == tag) {
+                return (int) entry;
+            }
+        }
+    }
+
+    /**
+     * Indexes an account that is not indexed yet. Calls must not overlap.
+     */
+    public void put(int key, int slot) {
+        long[] table = entries;
+        if ((size + 1) * 4L > table.length * 3L) {
+            table = resize(table);
+            entries = table;
+        }
+        insert(table, key, slot);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static long[] resize(long[] table) {
+        if (table.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Account index cannot hold more than " + (MAX_CAPACITY / 4 * 3) + " accounts");
+        }
+        long[] resized = new long[table.length * 2];
+        for (long entry : table) {
+            if (entry != 0) {
+                insert(resized, (int) (entry >>> 32) - 1, (int) entry);
+            }
+        }
+        return resized;
+    }
+
+    private static void insert(long[] table, int key, int slot) {
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        ENTRIES.setRelease(table, i, ((long) (key + 1) << 32) | (slot & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Spreads sequential account numbers across the table so linear probing does not build long runs.
+     */
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long target = Math.max(MIN_CAPACITY, (long) expectedSize * 4 / 3 + 1);
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(target - 1) << 1);
+    }
+}
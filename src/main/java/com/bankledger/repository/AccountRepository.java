@@ -1,20 +1,1133 @@
 package com.bankledger.repository;
 
+import com.bankledger.metrics.LedgerMetrics;
 import com.bankledger.model.Account;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.model.Money;
+import com.bankledger.model.PostingStatus;
+import com.bankledger.model.TransactionType;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Thread-safe account store.
+ * <p>
+ * Accounts are keyed by their packed 9-digit number: an {@link AccountIndex} maps the key to a slot in a
+ * {@link BalanceStore} of primitive balances and versions, so updates allocate nothing and reads never lock. The
+ * balances live on the heap, in native memory or in a memory-mapped file, as {@code ledger.store.type} selects. Every
+ * read-modify-write runs under one of a fixed set of striped locks chosen by account key, so updates to the same
+ * account are linearizable while updates to different accounts proceed in parallel. Operations that span several
+ * stripes take them in ascending stripe order, so they cannot deadlock with each other.
+ * <p>
+ * An account whose stripe keeps being contended for is promoted to a {@link HotAccount}: its deposits then go to
+ * per-thread cells, in the manner of {@code LongAdder}, and no longer take the stripe. Anything else that changes it
+ * takes the stripe and every cell and folds the cells into the balance first, so withdrawals check the full
+ * balance. Reads add the cells to the stored balance. Accounts stay hot until the application restarts.
+ * <p>
+ * {@link #openExport} reads every account as of one instant without stopping writers: while an export is open,
+ * the first change to an account it has not reached yet saves the account's balance for it first.
+ * <p>
+ * Each change is appended to the {@link WriteAheadLog} while the stripe is held, so the log keeps the order in which
+ * an account's changes were applied. Waiting for the record to become durable happens after the lock is released.
+ * Callers that keep a {@link TransactionRepository} journal pass it to the posting methods, which record each change
+ * in it under the same lock, so an account's history lists its postings in the order they were applied and the
+ * two legs of a transfer are journaled together.
+ * <p>
+ * Only {@code java.util.concurrent} locks are used, never {@code synchronized}, so a virtual thread that waits for a
+ * stripe or for the log parks and frees its carrier thread instead of pinning it.
+ */
 @Repository
 public class AccountRepository {
-    private final Map<String, Account> accounts = new HashMap<>();
 
-    public void save(Account account) {
-        accounts.put(account.accountNumber(), account);
+    private static final int STRIPES = stripeCount(Runtime.getRuntime().availableProcessors());
+    private static final int CELLS = Math.max(2, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+    private static final int DEFAULT_PROMOTION_THRESHOLD = 100;
+    private static final int DEFAULT_MAX_HOT_ACCOUNTS = 1024;
+
+    private final AccountIndex index = new AccountIndex();
+    private final BalanceStore balances;
+    private final ReentrantLock createLock = new ReentrantLock();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    /** Per stripe, the slot most often found contending for it and its net count, guarded by the stripe. */
+    private final int[] contendedSlots = new int[STRIPES];
+    private final int[] contendedCounts = new int[STRIPES];
+    private final WriteAheadLog writeAheadLog;
+    private final SnapshotStore snapshotStore;
+    private final LedgerMetrics metrics;
+
+    /** Open-addressing table of hot accounts by slot, replaced on every promotion under the create lock. */
+    private volatile HotAccount[] hotAccounts = new HotAccount[0];
+    private int hotCount;
+    /** Open exports, replaced whenever one opens or closes, under the create lock. */
+    private volatile AccountExport[] exports = new AccountExport[0];
+    /** During recovery, the number of replayed cell deposits per slot that no fold has covered yet. */
+    private Map<Integer, Long> unfoldedCells;
+
+    /** Net contended acquisitions of a stripe by one account that promote it; 0 turns promotion off. */
+    @Value("${ledger.hot-accounts.promotion-threshold:" + DEFAULT_PROMOTION_THRESHOLD + "}")
+    private int promotionThreshold = DEFAULT_PROMOTION_THRESHOLD;
+
+    @Value("${ledger.hot-accounts.max:" + DEFAULT_MAX_HOT_ACCOUNTS + "}")
+    private int maxHotAccounts = DEFAULT_MAX_HOT_ACCOUNTS;
+
+    public AccountRepository() {
+        this(WriteAheadLog.disabled(), SnapshotStore.disabled());
+    }
+
+    public AccountRepository(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore) {
+        this(writeAheadLog, snapshotStore, new HeapBalanceStore());
+    }
+
+    @Autowired
+    public AccountRepository(WriteAheadLog writeAheadLog,
+                             SnapshotStore snapshotStore,
+                             @Value("${ledger.store.type:HEAP}") BalanceStore.Type storeType,
+                             @Value("${ledger.store.path:data/balances.store}") Path storePath,
+                             LedgerMetrics metrics) {
+        this(writeAheadLog, snapshotStore, BalanceStore.open(storeType, storePath), metrics);
+    }
+
+    public AccountRepository(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore, BalanceStore balances) {
+        this(writeAheadLog, snapshotStore, balances, LedgerMetrics.disabled());
+    }
+
+    public AccountRepository(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore, BalanceStore balances,
+                             LedgerMetrics metrics) {
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = snapshotStore;
+        this.balances = balances;
+        this.metrics = metrics;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Rebuilds the accounts from the latest snapshot and the write-ahead log tail before the store is used. Accounts
+     * a mapped store kept from its last run are indexed first; the snapshot and log then only add what it lacks.
+     */
+    @PostConstruct
+    public void recover() {
+        for (int slot = 0; slot < balances.size(); slot++) {
+            index.put(balances.key(slot), slot);
+        }
+        unfoldedCells = new HashMap<>();
+        long logPosition = snapshotStore.load(this::restore);
+        writeAheadLog.recover(logPosition, this::replay);
+        // Cell deposits whose fold never made it to the log; fold them now so versions keep counting every change
+        for (Map.Entry<Integer, Long> entry : unfoldedCells.entrySet()) {
+            int slot = entry.getKey();
+            long version = balances.version(slot) + entry.getValue();
+            balances.set(slot, balances.balance(slot), version);
+            writeAheadLog.append(WriteAheadLog.FOLD, balances.key(slot), entry.getValue(), version);
+        }
+        unfoldedCells = null;
+    }
+
+    /**
+     * Folds every hot account into the balance store, so a mapped store holds every balance, and closes the store.
+     */
+    @PreDestroy
+    public void close() {
+        for (HotAccount hot : hotAccounts) {
+            if (hot != null) {
+                fold(hot.key, hot.slot);
+            }
+        }
+        balances.close();
+    }
+
+    /**
+     * Stores the account only if no account with the same number exists.
+     *
+     * @return {@code true} if the account was created, {@code false} if the number was already taken
+     * @throws IllegalArgumentException if the account number is not 9 digits
+     */
+    public boolean create(Account account) {
+        int key = AccountNumbers.parse(account.accountNumber());
+        if (key == AccountNumbers.INVALID) {
+            throw new IllegalArgumentException("Not a 9-digit account number: " + account.accountNumber());
+        }
+        long position;
+        ReentrantLock lock = locks[stripeIndex(key)];
+        lock.lock();
+        try {
+            if (!insert(key, account.balance(), account.version())) {
+                return false;
+            }
+            position = writeAheadLog.append(WriteAheadLog.ACCOUNT_CREATED, key, account.balance(), account.version());
+        } finally {
+            lock.unlock();
+        }
+        writeAheadLog.awaitDurable(position);
+        return true;
+    }
+
+    /**
+     * Creates many new accounts at once, as an import does. Accounts are grouped by stripe, and each stripe and the
+     * create lock are taken once per group rather than once per account; the log is awaited once at the end.
+     *
+     * @param keys            packed account numbers
+     * @param openingBalances balances in cents, one per key
+     * @param count           the number of accounts to create from the start of both arrays
+     * @param created         set to {@code true} for each account created; left unchanged where the number was taken
+     * @return the number of accounts created
+     * @throws IllegalArgumentException if a key is {@link AccountNumbers#INVALID}
+     */
+    public int createAll(int[] keys, long[] openingBalances, int count, boolean[] created) {
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (keys[i] == AccountNumbers.INVALID) {
+                throw new IllegalArgumentException("Not a 9-digit account number at item " + i);
+            }
+            order[i] = ((long) stripeIndex(keys[i]) << 32) | i;
+        }
+        Arrays.parallelSort(order);
+
+        int createdCount = 0;
+        long position = 0;
+        for (int start = 0, end; start < count; start = end) {
+            int stripe = stripeOf(order[start]);
+            end = start;
+            while (end < count && stripeOf(order[end]) == stripe) {
+                end++;
+            }
+            acquire(locks[stripe]);
+            createLock.lock();
+            try {
+                for (int i = start; i < end; i++) {
+                    int item = itemOf(order[i]);
+                    int key = keys[item];
+                    if (index.find(key) >= 0) {
+                        continue;
+                    }
+                    index.put(key, balances.allocate(key, openingBalances[item], 0));
+                    position = writeAheadLog.append(WriteAheadLog.ACCOUNT_CREATED, key, openingBalances[item], 0);
+                    created[item] = true;
+                    createdCount++;
+                }
+            } finally {
+                createLock.unlock();
+                locks[stripe].unlock();
+            }
+        }
+        writeAheadLog.awaitDurable(position);
+        return createdCount;
     }
 
+    /**
+     * @return a consistent view of the account, or {@code null} if there is none with this number
+     */
     public Account findByAccountNumber(String accountNumber) {
-        return accounts.get(accountNumber);
+        int slot = slotOf(AccountNumbers.parse(accountNumber));
+        if (slot < 0) {
+            return null;
+        }
+        HotAccount hot = findHot(slot);
+        return hot == null ? balances.read(slot, accountNumber) : hot.read(balances, accountNumber);
+    }
+
+    /**
+     * @return a weakly consistent view of every account, in creation order. Each account is read consistently, but
+     * different accounts are read at different times. Only hot accounts lock, briefly, to fold their cells first, so
+     * the view covers every logged change up to the moment each account is read, as snapshots require.
+     */
+    public Iterable<Account> findAll() {
+        return () -> new Iterator<>() {
+            private final int size = balances.size();
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Account next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                int slot = next++;
+                int key = balances.key(slot);
+                if (findHot(slot) != null) {
+                    fold(key, slot);
+                }
+                return balances.read(slot, AccountNumbers.format(key));
+            }
+        };
+    }
+
+    /**
+     * Atomically credits the account with an amount in cents. Deposits to a hot account go to one of its cells.
+     *
+     * @return {@link PostingStatus#OK}, {@link PostingStatus#ACCOUNT_NOT_FOUND} or
+     * {@link PostingStatus#BALANCE_LIMIT_EXCEEDED}
+     */
+    public PostingStatus deposit(String accountNumber, long amount) {
+        return deposit(AccountNumbers.parse(accountNumber), amount);
+    }
+
+    /**
+     * Like {@link #deposit(String, long)}, for an account number already packed by {@link AccountNumbers#parse}.
+     */
+    public PostingStatus deposit(int key, long amount) {
+        return deposit(key, amount, null);
+    }
+
+    /**
+     * Like {@link #deposit(int, long)}, also recording the deposit in {@code journal} while the account is locked.
+     *
+     * @param journal the journal to record the deposit in, or {@code null} not to record it
+     */
+    public PostingStatus deposit(int key, long amount, TransactionRepository journal) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return PostingStatus.ACCOUNT_NOT_FOUND;
+        }
+        HotAccount hot = findHot(slot);
+        if (hot != null) {
+            long position = -1;
+            int cell = hot.lockCell();
+            try {
+                // An export needs the balance saved before the change, which takes the stripe
+                if (exports.length == 0 && hot.add(cell, amount)) {
+                    // Folds take every cell, so the version cannot move while this one is held
+                    position = writeAheadLog.append(WriteAheadLog.CELL_DEPOSIT, key, amount, balances.version(slot));
+                    journal(journal, key, TransactionType.DEPOSIT, amount);
+                }
+            } finally {
+                hot.unlock(cell);
+            }
+            if (position >= 0) {
+                writeAheadLog.awaitDurable(position);
+                return PostingStatus.OK;
+            }
+            // The cell is close to the balance limit, or an export is open; go through the stripe instead
+        }
+        long position;
+        ReentrantLock lock = lockStripe(key, slot);
+        HotAccount folded = lockHot(slot);
+        try {
+            long balance = balances.balance(slot);
+            if (Money.overflows(balance, amount)) {
+                return PostingStatus.BALANCE_LIMIT_EXCEEDED;
+            }
+            preserve(slot);
+            long version = balances.update(slot, balance + amount);
+            position = writeAheadLog.append(WriteAheadLog.DEPOSIT, key, amount, version);
+            journal(journal, key, TransactionType.DEPOSIT, amount);
+        } finally {
+            unlockHot(folded);
+            lock.unlock();
+        }
+        writeAheadLog.awaitDurable(position);
+        return PostingStatus.OK;
+    }
+
+    /**
+     * Atomically debits the account if its balance covers the amount in cents.
+     *
+     * @return {@link PostingStatus#OK}, {@link PostingStatus#ACCOUNT_NOT_FOUND} or
+     * {@link PostingStatus#INSUFFICIENT_BALANCE}
+     */
+    public PostingStatus withdraw(String accountNumber, long amount) {
+        return withdraw(AccountNumbers.parse(accountNumber), amount);
+    }
+
+    /**
+     * Like {@link #withdraw(String, long)}, for an account number already packed by {@link AccountNumbers#parse}.
+     */
+    public PostingStatus withdraw(int key, long amount) {
+        return withdraw(key, amount, null);
+    }
+
+    /**
+     * Like {@link #withdraw(int, long)}, also recording the withdrawal in {@code journal} while the account is locked.
+     *
+     * @param journal the journal to record the withdrawal in, or {@code null} not to record it
+     */
+    public PostingStatus withdraw(int key, long amount, TransactionRepository journal) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return PostingStatus.ACCOUNT_NOT_FOUND;
+        }
+        long position;
+        ReentrantLock lock = lockStripe(key, slot);
+        HotAccount folded = lockHot(slot);
+        try {
+            long balance = balances.balance(slot);
+            if (balance < amount) {
+                return PostingStatus.INSUFFICIENT_BALANCE;
+            }
+            preserve(slot);
+            long version = balances.update(slot, balance - amount);
+            position = writeAheadLog.append(WriteAheadLog.WITHDRAWAL, key, amount, version);
+            journal(journal, key, TransactionType.WITHDRAWAL, amount);
+        } finally {
+            unlockHot(folded);
+            lock.unlock();
+        }
+        writeAheadLog.awaitDurable(position);
+        return PostingStatus.OK;
+    }
+
+    /**
+     * Atomically moves an amount in cents from one account to another.
+     *
+     * @return {@link PostingStatus#OK}, or why nothing was moved: {@link PostingStatus#ACCOUNT_NOT_FOUND},
+     * {@link PostingStatus#INSUFFICIENT_BALANCE} or {@link PostingStatus#BALANCE_LIMIT_EXCEEDED}
+     * @throws IllegalArgumentException if both account numbers are the same
+     */
+    public PostingStatus transfer(String fromAccountNumber, String toAccountNumber, long amount) {
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new IllegalArgumentException("Cannot transfer from an account to itself: " + fromAccountNumber);
+        }
+        return transfer(AccountNumbers.parse(fromAccountNumber), AccountNumbers.parse(toAccountNumber), amount);
+    }
+
+    /**
+     * Like {@link #transfer(String, String, long)}, for account numbers already packed by {@link AccountNumbers#parse}.
+     *
+     * @throws IllegalArgumentException if both accounts exist and are the same
+     */
+    public PostingStatus transfer(int fromKey, int toKey, long amount) {
+        return transfer(fromKey, toKey, amount, null);
+    }
+
+    /**
+     * Like {@link #transfer(int, int, long)}, also recording both legs in {@code journal} while both accounts are
+     * locked.
+     *
+     * @param journal the journal to record the transfer in, or {@code null} not to record it
+     */
+    public PostingStatus transfer(int fromKey, int toKey, long amount, TransactionRepository journal) {
+        int fromSlot = slotOf(fromKey);
+        int toSlot = slotOf(toKey);
+        if (fromSlot < 0 || toSlot < 0) {
+            return PostingStatus.ACCOUNT_NOT_FOUND;
+        }
+        if (fromKey == toKey) {
+            throw new IllegalArgumentException("Cannot transfer from an account to itself: " + AccountNumbers.format(fromKey));
+        }
+        int fromStripe = stripeIndex(fromKey);
+        int toStripe = stripeIndex(toKey);
+        ReentrantLock first = locks[Math.min(fromStripe, toStripe)];
+        ReentrantLock second = locks[Math.max(fromStripe, toStripe)];
+        long position;
+        lockBoth(first, second);
+        HotAccount fromFolded = lockHot(fromSlot);
+        HotAccount toFolded = lockHot(toSlot);
+        try {
+            long fromBalance = balances.balance(fromSlot);
+            long toBalance = balances.balance(toSlot);
+            if (fromBalance < amount) {
+                return PostingStatus.INSUFFICIENT_BALANCE;
+            }
+            if (Money.overflows(toBalance, amount)) {
+                return PostingStatus.BALANCE_LIMIT_EXCEEDED;
+            }
+            preserve(fromSlot);
+            preserve(toSlot);
+            long fromVersion = balances.update(fromSlot, fromBalance - amount);
+            long toVersion = balances.update(toSlot, toBalance + amount);
+            position = writeAheadLog.appendTransfer(fromKey, toKey, amount, fromVersion, toVersion);
+            journal(journal, fromKey, TransactionType.TRANSFER_OUT, amount);
+            journal(journal, toKey, TransactionType.TRANSFER_IN, amount);
+        } finally {
+            unlockHot(toFolded);
+            unlockHot(fromFolded);
+            if (second != first) {
+                second.unlock();
+            }
+            first.unlock();
+        }
+        writeAheadLog.awaitDurable(position);
+        return PostingStatus.OK;
+    }
+
+    /**
+     * Applies a batch of postings, locking each stripe and looking up each account only once.
+     * <p>
+     * Items are grouped by stripe and applied in request order within each account. Only items whose status is
+     * {@link PostingStatus#OK} on entry are applied; their status is replaced with the outcome. In atomic mode every
+     * involved stripe is held at once, in ascending order, and the batch is applied only if every item succeeds;
+     * otherwise the items that would have succeeded are marked {@link PostingStatus#NOT_APPLIED}.
+     *
+     * @param accounts packed account numbers
+     * @param amounts  signed amounts in cents: positive for deposits, negative for withdrawals
+     * @param statuses per-item status, updated in place
+     * @return the number of items applied
+     */
+    public int applyBatch(int[] accounts, long[] amounts, PostingStatus[] statuses, boolean atomic) {
+        return applyBatch(accounts, amounts, statuses, atomic, null);
+    }
+
+    /**
+     * Like {@link #applyBatch(int[], long[], PostingStatus[], boolean)}, also recording the applied postings in
+     * {@code journal} while their stripes are held.
+     *
+     * @param journal the journal to record the postings in, or {@code null} not to record them
+     */
+    public int applyBatch(int[] accounts, long[] amounts, PostingStatus[] statuses, boolean atomic,
+                          TransactionRepository journal) {
+        // Sort by stripe, then request order, so stripes are locked in a canonical order
+        long[] order = new long[accounts.length];
+        int[] slots = new int[accounts.length];
+        int count = 0;
+        for (int i = 0; i < accounts.length; i++) {
+            if (statuses[i] == PostingStatus.OK) {
+                slots[i] = slotOf(accounts[i]);
+                order[count++] = ((long) stripeIndex(accounts[i]) << 32) | i;
+            }
+        }
+        Arrays.sort(order, 0, count);
+
+        Batch batch = new Batch(accounts, amounts, statuses, slots, journal);
+        int applied = 0;
+        long position = 0;
+        if (atomic) {
+            int locked = 0;
+            List<HotAccount> folded = null;
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (i == 0 || stripeOf(order[i]) != stripeOf(order[i - 1])) {
+                        acquire(locks[stripeOf(order[i])]);
+                        locked = i + 1;
+                    }
+                }
+                folded = lockHot(slots, order, 0, count);
+                boolean failed = false;
+                for (int i = 0; i < count; i++) {
+                    failed |= batch.apply(itemOf(order[i])) != PostingStatus.OK;
+                }
+                if (failed) {
+                    for (int i = 0; i < count; i++) {
+                        int item = itemOf(order[i]);
+                        if (statuses[item] == PostingStatus.OK) {
+                            statuses[item] = PostingStatus.NOT_APPLIED;
+                        }
+                    }
+                } else {
+                    position = batch.commit(order, 0, count);
+                    applied = count;
+                }
+            } finally {
+                unlockHot(folded);
+                for (int i = locked - 1; i >= 0; i--) {
+                    if (i == 0 || stripeOf(order[i]) != stripeOf(order[i - 1])) {
+                        locks[stripeOf(order[i])].unlock();
+                    }
+                }
+            }
+        } else {
+            for (int start = 0, end; start < count; start = end) {
+                int stripe = stripeOf(order[start]);
+                end = start;
+                while (end < count && stripeOf(order[end]) == stripe) {
+                    end++;
+                }
+                acquire(locks[stripe]);
+                List<HotAccount> folded = lockHot(slots, order, start, end);
+                try {
+                    for (int i = start; i < end; i++) {
+                        if (batch.apply(itemOf(order[i])) == PostingStatus.OK) {
+                            applied++;
+                        }
+                    }
+                    position = Math.max(position, batch.commit(order, start, end));
+                } finally {
+                    unlockHot(folded);
+                    locks[stripe].unlock();
+                }
+            }
+        }
+        writeAheadLog.awaitDurable(position);
+        return applied;
+    }
+
+    /**
+     * Working state of one batch. Postings are applied to per-item balances first and reach the store and the log
+     * only when they are committed.
+     */
+    private final class Batch {
+
+        private final int[] accounts;
+        private final long[] amounts;
+        private final PostingStatus[] statuses;
+        private final int[] slots;
+        private final TransactionRepository journal;
+        private final long[] balancesAfter;
+        private final long[] versionsAfter;
+        /**
+         * Open-addressing table of the slots changed since the last commit, -1 where free, with the last item that
+         * changed each one, so looking up an account's uncommitted balance boxes nothing.
+         */
+        private final int[] latestSlots;
+        private final int[] latestItems;
+        private final int mask;
+        /** Positions taken in the table since the last commit, so committing never scans the whole table. */
+        private final int[] changed;
+        private int changedCount;
+
+        Batch(int[] accounts, long[] amounts, PostingStatus[] statuses, int[] slots, TransactionRepository journal) {
+            this.accounts = accounts;
+            this.amounts = amounts;
+            this.statuses = statuses;
+            this.slots = slots;
+            this.journal = journal;
+            this.balancesAfter = new long[accounts.length];
+            this.versionsAfter = new long[accounts.length];
+            // At most half full, even if every item changes a different account
+            int capacity = Integer.highestOneBit(Math.max(1, accounts.length) * 2 - 1) << 1;
+            this.latestSlots = new int[capacity];
+            this.latestItems = new int[capacity];
+            this.mask = capacity - 1;
+            this.changed = new int[accounts.length];
+            Arrays.fill(latestSlots, -1);
+        }
+
+        /**
+         * Applies one posting on top of the account's uncommitted changes. Must hold its stripe.
+         */
+        PostingStatus apply(int item) {
+            int slot = slots[item];
+            long amount = amounts[item];
+            PostingStatus status;
+            if (slot < 0) {
+                status = PostingStatus.ACCOUNT_NOT_FOUND;
+            } else {
+                int position = positionOf(slot);
+                int previous = latestSlots[position] == slot ? latestItems[position] : -1;
+                long balance = previous < 0 ? balances.balance(slot) : balancesAfter[previous];
+                long version = previous < 0 ? balances.version(slot) : versionsAfter[previous];
+                if (amount >= 0 && Money.overflows(balance, amount)) {
+                    status = PostingStatus.BALANCE_LIMIT_EXCEEDED;
+                } else if (amount < 0 && balance < -amount) {
+                    status = PostingStatus.INSUFFICIENT_BALANCE;
+                } else {
+                    balancesAfter[item] = balance + amount;
+                    versionsAfter[item] = version + 1;
+                    if (previous < 0) {
+                        latestSlots[position] = slot;
+                        changed[changedCount++] = position;
+                    }
+                    latestItems[position] = item;
+                    status = PostingStatus.OK;
+                }
+            }
+            statuses[item] = status;
+            return status;
+        }
+
+        /**
+         * Writes the final balances and logs and journals the applied postings among {@code order[start..end)}. Must
+         * hold their stripes.
+         *
+         * @return the log position of the last record
+         */
+        long commit(long[] order, int start, int end) {
+            for (int i = 0; i < changedCount; i++) {
+                int entry = changed[i];
+                int slot = latestSlots[entry];
+                int item = latestItems[entry];
+                preserve(slot);
+                balances.set(slot, balancesAfter[item], versionsAfter[item]);
+                // Every entry is freed, so no probe run is left broken
+                latestSlots[entry] = -1;
+            }
+            changedCount = 0;
+            long position = 0;
+            for (int i = start; i < end; i++) {
+                int item = itemOf(order[i]);
+                if (versionsAfter[item] == 0) {
+                    continue;
+                }
+                long amount = amounts[item];
+                if (amount >= 0) {
+                    position = writeAheadLog.append(WriteAheadLog.DEPOSIT, accounts[item], amount, versionsAfter[item]);
+                    journal(journal, accounts[item], TransactionType.DEPOSIT, amount);
+                } else {
+                    position = writeAheadLog.append(WriteAheadLog.WITHDRAWAL, accounts[item], -amount, versionsAfter[item]);
+                    journal(journal, accounts[item], TransactionType.WITHDRAWAL, -amount);
+                }
+            }
+            return position;
+        }
+
+        /**
+         * @return the table position holding the slot, or the free position where it would go
+         */
+        private int positionOf(int slot) {
+            int position = AccountIndex.hash(slot) & mask;
+            while (latestSlots[position] != -1 && latestSlots[position] != slot) {
+                position = (position + 1) & mask;
+            }
+            return position;
+        }
+    }
+
+    private static void journal(TransactionRepository journal, int key, TransactionType type, long amount) {
+        if (journal != null) {
+            journal.append(key, type, amount);
+        }
+    }
+
+    /**
+     * @return the slot of the account, or -1 if the key is {@link AccountNumbers#INVALID} or unknown
+     */
+    private int slotOf(int key) {
+        return key == AccountNumbers.INVALID ? -1 : index.find(key);
+    }
+
+    /**
+     * Indexes a new account unless its key is taken. Insertions are serialized; lookups are never blocked.
+     */
+    private boolean insert(int key, long balance, long version) {
+        createLock.lock();
+        try {
+            if (index.find(key) >= 0) {
+                return false;
+            }
+            index.put(key, balances.allocate(key, balance, version));
+            return true;
+        } finally {
+            createLock.unlock();
+        }
+    }
+
+    private void restore(int key, long balance, long version) {
+        insert(key, balance, version);
+    }
+
+    /**
+     * Applies a logged change during recovery. Records that do not follow the account's current version were
+     * already applied, for example because the snapshot was taken after they were logged, and are skipped. A cell
+     * deposit applies while the account is still at the version it was made against, and a fold only moves the
+     * version forward.
+     */
+    private void replay(int type, int key, long amount, long version) {
+        if (type == WriteAheadLog.ACCOUNT_CREATED) {
+            insert(key, amount, version);
+            return;
+        }
+        int slot = index.find(key);
+        if (slot < 0) {
+            return;
+        }
+        if (type == WriteAheadLog.CELL_DEPOSIT) {
+            if (version == balances.version(slot)) {
+                balances.set(slot, balances.balance(slot) + amount, version);
+                unfoldedCells.merge(slot, 1L, Long::sum);
+            }
+            return;
+        }
+        if (type == WriteAheadLog.FOLD) {
+            if (version > balances.version(slot)) {
+                balances.set(slot, balances.balance(slot), version);
+                unfoldedCells.remove(slot);
+            }
+            return;
+        }
+        if (version != balances.version(slot) + 1) {
+            return;
+        }
+        long balance = balances.balance(slot);
+        balances.set(slot, type == WriteAheadLog.DEPOSIT ? balance + amount : balance - amount, version);
+    }
+
+    /**
+     * Promotes an account to a {@link HotAccount} up front, for accounts known to take heavy concurrent deposits.
+     *
+     * @return {@code false} if there is no such account or the limit of hot accounts is reached
+     */
+    public boolean promote(String accountNumber) {
+        int key = AccountNumbers.parse(accountNumber);
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return false;
+        }
+        ReentrantLock lock = locks[stripeIndex(key)];
+        lock.lock();
+        try {
+            return promote(key, slot) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the hot account at this slot, or {@code null} if the account is not hot
+     */
+    private HotAccount findHot(int slot) {
+        HotAccount[] table = hotAccounts;
+        int mask = table.length - 1;
+        if (mask < 0) {
+            return null;
+        }
+        for (int i = AccountIndex.hash(slot) & mask; ; i = (i + 1) & mask) {
+            HotAccount hot = table[i];
+            if (hot == null || hot.slot == slot) {
+                return hot;
+            }
+        }
+    }
+
+    /**
+     * Makes an account hot. Must hold its stripe, so no change to it is in progress.
+     *
+     * @return the hot account, or {@code null} if the limit of hot accounts is reached
+     */
+    private HotAccount promote(int key, int slot) {
+        createLock.lock();
+        try {
+            HotAccount hot = findHot(slot);
+            if (hot != null || hotCount >= maxHotAccounts) {
+                return hot;
+            }
+            hot = new HotAccount(key, slot, CELLS, balances.balance(slot));
+            HotAccount[] table = new HotAccount[Integer.highestOneBit(Math.max(2, hotCount + 1) * 4 - 1)];
+            for (HotAccount existing : hotAccounts) {
+                if (existing != null) {
+                    place(table, existing);
+                }
+            }
+            place(table, hot);
+            hotAccounts = table;
+            hotCount++;
+            return hot;
+        } finally {
+            createLock.unlock();
+        }
+    }
+
+    private static void place(HotAccount[] table, HotAccount hot) {
+        int mask = table.length - 1;
+        int i = AccountIndex.hash(hot.slot) & mask;
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i] = hot;
+    }
+
+    /**
+     * Takes the stripe of an account, counting a contended acquisition towards promoting it. Each stripe keeps one
+     * candidate, replaced by majority vote, so the account behind most of its contention is the one promoted.
+     */
+    private ReentrantLock lockStripe(int key, int slot) {
+        int stripe = stripeIndex(key);
+        ReentrantLock lock = locks[stripe];
+        if (lock.tryLock()) {
+            return lock;
+        }
+        long start = metrics.start();
+        lock.lock();
+        metrics.lockWaited(LedgerMetrics.Lock.ACCOUNT_STRIPE, start);
+        if (promotionThreshold > 0) {
+            if (contendedSlots[stripe] == slot) {
+                if (++contendedCounts[stripe] >= promotionThreshold) {
+                    contendedCounts[stripe] = 0;
+                    promote(key, slot);
+                }
+            } else if (contendedCounts[stripe] == 0) {
+                contendedSlots[stripe] = slot;
+                contendedCounts[stripe] = 1;
+            } else {
+                contendedCounts[stripe]--;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * If the account is hot, takes every cell and folds them into its balance. Must hold its stripe.
+     *
+     * @return the hot account to pass to {@link #unlockHot} once the balance is final, or {@code null}
+     */
+    private HotAccount lockHot(int slot) {
+        HotAccount hot = findHot(slot);
+        if (hot == null) {
+            return null;
+        }
+        hot.lockAll();
+        long folded = hot.fold(balances);
+        if (folded > 0) {
+            writeAheadLog.append(WriteAheadLog.FOLD, hot.key, folded, balances.version(slot));
+        }
+        return hot;
+    }
+
+    private void unlockHot(HotAccount hot) {
+        if (hot != null) {
+            hot.rebalance(balances.balance(hot.slot));
+            hot.unlockAll();
+        }
+    }
+
+    /**
+     * {@link #lockHot(int)} for every distinct hot account among the batch items {@code order[start..end)}.
+     *
+     * @return the hot accounts to pass to {@link #unlockHot(List)}, or {@code null} if there are none
+     */
+    private List<HotAccount> lockHot(int[] slots, long[] order, int start, int end) {
+        if (hotAccounts.length == 0) {
+            return null;
+        }
+        List<HotAccount> folded = null;
+        for (int i = start; i < end; i++) {
+            int slot = slots[itemOf(order[i])];
+            HotAccount hot = slot < 0 ? null : findHot(slot);
+            if (hot != null && (folded == null || !folded.contains(hot))) {
+                if (folded == null) {
+                    folded = new ArrayList<>();
+                }
+                folded.add(lockHot(slot));
+            }
+        }
+        return folded;
+    }
+
+    private void unlockHot(List<HotAccount> folded) {
+        if (folded != null) {
+            for (int i = folded.size() - 1; i >= 0; i--) {
+                unlockHot(folded.get(i));
+            }
+        }
+    }
+
+    /**
+     * Opens a view of every existing account as of this instant, which later changes do not affect. The instant is
+     * taken with every stripe held, so no multi-account change is half applied in it, and with every hot account
+     * folded; deposits to hot accounts go through their stripe until the export is closed.
+     * <p>
+     * Writers are only slowed by saving the balance of an account the export has not reached yet, once per
+     * account, so the memory an export holds grows with the number of accounts changed while it runs.
+     *
+     * @return the export, which must be closed
+     */
+    public AccountExport openExport() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        List<HotAccount> folded = new ArrayList<>();
+        try {
+            for (HotAccount hot : hotAccounts) {
+                if (hot != null) {
+                    folded.add(lockHot(hot.slot));
+                }
+            }
+            AccountExport export = new AccountExport(balances.size());
+            createLock.lock();
+            try {
+                AccountExport[] current = exports;
+                AccountExport[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = export;
+                exports = grown;
+            } finally {
+                createLock.unlock();
+            }
+            return export;
+        } finally {
+            unlockHot(folded);
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Accounts as of the moment {@link #openExport} was called, in creation order.
+     */
+    public final class AccountExport implements Iterator<Account>, AutoCloseable {
+
+        private final int size;
+        /** Slots below this one have been read, published under the slot's stripe. */
+        private volatile int exported;
+        /** Saved balances by slot, for accounts changed before the export read them. */
+        private final AccountIndex saved = new AccountIndex();
+        private final ReentrantLock saveLock = new ReentrantLock();
+        private long[] savedBalances = new long[64];
+        private long[] savedVersions = new long[64];
+        private int savedCount;
+
+        private AccountExport(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return exported < size;
+        }
+
+        @Override
+        public Account next() {
+            int slot = exported;
+            if (slot >= size) {
+                throw new NoSuchElementException();
+            }
+            int key = balances.key(slot);
+            long balance;
+            long version;
+            ReentrantLock lock = locks[stripeIndex(key)];
+            lock.lock();
+            try {
+                int index = saved.find(slot);
+                if (index < 0) {
+                    balance = balances.balance(slot);
+                    version = balances.version(slot);
+                } else {
+                    saveLock.lock();
+                    try {
+                        balance = savedBalances[index];
+                        version = savedVersions[index];
+                    } finally {
+                        saveLock.unlock();
+                    }
+                }
+                exported = slot + 1;
+            } finally {
+                lock.unlock();
+            }
+            return new Account(AccountNumbers.format(key), balance, version);
+        }
+
+        /**
+         * Saves the balance of an account about to change, unless the export has read it or saved it already. Must
+         * hold its stripe, with any cells folded.
+         */
+        private void preserve(int slot) {
+            if (slot >= size || slot < exported || saved.find(slot) >= 0) {
+                return;
+            }
+            saveLock.lock();
+            try {
+                if (savedCount == savedBalances.length) {
+                    savedBalances = Arrays.copyOf(savedBalances, savedCount * 2);
+                    savedVersions = Arrays.copyOf(savedVersions, savedCount * 2);
+                }
+                savedBalances[savedCount] = balances.balance(slot);
+                savedVersions[savedCount] = balances.version(slot);
+                saved.put(slot, savedCount++);
+            } finally {
+                saveLock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            createLock.lock();
+            try {
+                AccountExport[] current = exports;
+                AccountExport[] remaining = new AccountExport[current.length];
+                int count = 0;
+                for (AccountExport export : current) {
+                    if (export != this) {
+                        remaining[count++] = export;
+                    }
+                }
+                exports = Arrays.copyOf(remaining, count);
+            } finally {
+                createLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Lets every open export save the account's balance before it changes. Must hold its stripe, with any cells
+     * folded.
+     */
+    private void preserve(int slot) {
+        for (AccountExport export : exports) {
+            export.preserve(slot);
+        }
+    }
+
+    /**
+     * Folds a hot account's cells into its stored balance.
+     */
+    private void fold(int key, int slot) {
+        ReentrantLock lock = locks[stripeIndex(key)];
+        lock.lock();
+        try {
+            unlockHot(lockHot(slot));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes two stripes, {@code first} having the lower index. An uncontended pair is taken with {@code tryLock}
+     * alone, which never parks the thread; if either stripe is busy the held one is released and both are acquired
+     * in stripe order, like every other operation that spans stripes.
+     */
+    private void lockBoth(ReentrantLock first, ReentrantLock second) {
+        if (first.tryLock()) {
+            if (second == first || second.tryLock()) {
+                return;
+            }
+            first.unlock();
+        }
+        long start = metrics.start();
+        first.lock();
+        if (second != first) {
+            second.lock();
+        }
+        metrics.lockWaited(LedgerMetrics.Lock.ACCOUNT_STRIPE, start);
+    }
+
+    /**
+     * Takes a stripe, timing the wait only if it is busy.
+     */
+    private void acquire(ReentrantLock stripe) {
+        if (!stripe.tryLock()) {
+            long start = metrics.start();
+            stripe.lock();
+            metrics.lockWaited(LedgerMetrics.Lock.ACCOUNT_STRIPE, start);
+        }
+    }
+
+    /**
+     * @return the lock stripe of a packed account number, so callers that split accounts between threads by stripe
+     * never contend for a stripe lock
+     */
+    public static int stripeIndex(int key) {
+        return AccountIndex.hash(key) & (STRIPES - 1);
+    }
+
+    /**
+     * @return the number of lock stripes, a power of two
+     */
+    public static int stripes() {
+        return STRIPES;
+    }
+
+    private static int stripeOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int itemOf(long key) {
+        return (int) key;
+    }
+
+    /**
+     * @return the number of lock stripes for this many processors, a power of two
+     */
+    static int stripeCount(int processors) {
+        int target = Math.max(64, processors * 16);
+        return Integer.highestOneBit(target - 1) << 1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.bankledger.repository;
+
+import com.bankledger.model.Account;
+
+import java.nio.file.Path;
+
+/**
+ * Balances and versions of every account, addressed by the slot {@link AccountIndex} maps its number to.
+ * <p>
+ * Slots are allocated densely from zero and never move or disappear. A store may open with slots kept from its
+ * previous run, which {@link #size} and {@link #key} let the repository index again.
+ * <p>
+ * Writers must hold the account's lock. Readers do not lock: the version doubles as a sequence lock, with its top
+ * bit set while the balance is being replaced, and {@link #read} retries until it sees a balance and version that
+ * belong together.
+ */
+public interface BalanceStore extends AutoCloseable {
+
+    /** Set in a version while its balance is being replaced. No real version ever reaches it. */
+    long WRITING = Long.MIN_VALUE;
+
+    /**
+     * Where a store keeps its slots.
+     */
+    enum Type {
+
+        /** Chunks of primitive arrays on the Java heap. */
+        HEAP,
+
+        /** Chunks of native memory outside the heap, which the garbage collector never scans or copies. */
+        OFF_HEAP,
+
+        /**
+         * Chunks of a memory-mapped file. The OS page cache holds the balances, so they survive a restart of the
+         * process and need not fit in memory.
+         */
+        MAPPED
+    }
+
+    /**
+     * @param path the file backing a {@link Type#MAPPED} store; ignored by the others
+     */
+    static BalanceStore open(Type type, Path path) {
+        return switch (type) {
+            case HEAP -> new HeapBalanceStore();
+            case OFF_HEAP -> OffHeapBalanceStore.allocate();
+            case MAPPED -> OffHeapBalanceStore.map(path);
+        };
+    }
+
+    /**
+     * Stores a new account in the next free slot. Calls must not overlap, and the slot must be published through
+     * the index only after this returns.
+     *
+     * @return the slot
+     */
+    int allocate(int key, long balance, long version);
+
+    /**
+     * @return the number of slots in use; slots {@code [0, size)} are all readable
+     */
+    int size();
+
+    int key(int slot);
+
+    /**
+     * @return the current balance. Must hold the account's lock.
+     */
+    long balance(int slot);
+
+    /**
+     * @return the current version. Must hold the account's lock.
+     */
+    long version(int slot);
+
+    /**
+     * Replaces the balance and advances the version by one. Must hold the account's lock.
+     *
+     * @return the new version
+     */
+    long update(int slot, long balance);
+
+    /**
+     * Replaces both the balance and the version, as replay does. Must hold the account's lock.
+     */
+    void set(int slot, long balance, long version);
+
+    /**
+     * Reads a consistent balance and version without locking.
+     */
+    Account read(int slot, String accountNumber);
+
+    /**
+     * Releases the memory or file behind the store. No other call may follow.
+     */
+    @Override
+    default void close() {
+    }
+}
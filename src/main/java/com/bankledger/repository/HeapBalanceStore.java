@@ -0,0 +1,106 @@
+package com.bankledger.repository;
+
+import com.bankledger.model.Account;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * {@link BalanceStore} on the Java heap.
+ * <p>
+ * Slots live in fixed-size chunks of primitive arrays, with an account's balance and version side by side, so an
+ * account costs 20 bytes of heap and a balance update allocates nothing. Chunks never move once allocated, so growing
+ * the store copies only the small chunk directory.
+ */
+public final class HeapBalanceStore implements BalanceStore {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SLOTS - 1;
+
+    /** Per chunk: balance at {@code 2 * offset}, version at {@code 2 * offset + 1}. */
+    private volatile long[][] values = new long[0][];
+    private volatile int[][] keys = new int[0][];
+    private volatile int size;
+
+    @Override
+    public int allocate(int key, long balance, long version) {
+        int slot = size;
+        int chunk = slot >>> CHUNK_SHIFT;
+        if (chunk == values.length) {
+            long[][] grownValues = Arrays.copyOf(values, chunk + 1);
+            int[][] grownKeys = Arrays.copyOf(keys, chunk + 1);
+            grownValues[chunk] = new long[2 * CHUNK_SLOTS];
+            grownKeys[chunk] = new int[CHUNK_SLOTS];
+            keys = grownKeys;
+            values = grownValues;
+        }
+        int offset = slot & CHUNK_MASK;
+        keys[chunk][offset] = key;
+        values[chunk][2 * offset] = balance;
+        values[chunk][2 * offset + 1] = version;
+        size = slot + 1;
+        return slot;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int key(int slot) {
+        return keys[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    @Override
+    public long balance(int slot) {
+        return values[slot >>> CHUNK_SHIFT][2 * (slot & CHUNK_MASK)];
+    }
+
+    @Override
+    public long version(int slot) {
+        return values[slot >>> CHUNK_SHIFT][2 * (slot & CHUNK_MASK) + 1];
+    }
+
+    @Override
+    public long update(int slot, long balance) {
+        long[] chunk = values[slot >>> CHUNK_SHIFT];
+        int index = 2 * (slot & CHUNK_MASK);
+        long version = chunk[index + 1] + 1;
+        write(chunk, index, balance, version);
+        return version;
+    }
+
+    @Override
+    public void set(int slot, long balance, long version) {
+        write(values[slot >>> CHUNK_SHIFT], 2 * (slot & CHUNK_MASK), balance, version);
+    }
+
+    @Override
+    public Account read(int slot, String accountNumber) {
+        long[] chunk = values[slot >>> CHUNK_SHIFT];
+        int index = 2 * (slot & CHUNK_MASK);
+        while (true) {
+            long version = (long) LONGS.getAcquire(chunk, index + 1);
+            if (version >= 0) {
+                long balance = (long) LONGS.getOpaque(chunk, index);
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.getOpaque(chunk, index + 1) == version) {
+                    return new Account(accountNumber, balance, version);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void write(long[] chunk, int index, long balance, long version) {
+        LONGS.setOpaque(chunk, index + 1, chunk[index + 1] | WRITING);
+        VarHandle.storeStoreFence();
+        LONGS.setOpaque(chunk, index, balance);
+        LONGS.setRelease(chunk, index + 1, version);
+    }
+}
@@ -0,0 +1,175 @@
+package com.bankledger.repository;
+
+import com.bankledger.model.Account;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Deposit cells of an account that too many threads update at once, in the manner of
+ * {@link java.util.concurrent.atomic.LongAdder}.
+ * <p>
+ * Each cell holds the sum and count of deposits not yet folded into the account's balance in the
+ * {@link BalanceStore}, on its own cache lines and under its own lock, so concurrent deposits to the account spread
+ * over the cells instead of queueing on its stripe. Everything else that changes the account first takes its stripe
+ * and every cell lock, in cell order, and folds the cells into the stored balance, so withdrawals always see the
+ * full balance.
+ * <p>
+ * Readers do not lock. Each cell is a small sequence lock like the store's slots, with its count marked while its
+ * sum changes, and the fold sequence is odd while a fold is in progress. A read that overlaps a fold retries; one
+ * that overlaps deposits sees each cell at a slightly different moment, as {@code LongAdder.sum()} does.
+ */
+final class HotAccount {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle FOLD_SEQUENCE;
+
+    static {
+        try {
+            FOLD_SEQUENCE = MethodHandles.lookup().findVarHandle(HotAccount.class, "foldSequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Longs per cell: sum, count and padding, so neighbouring cells never share a cache line. */
+    private static final int STRIDE = 16;
+
+    final int key;
+    final int slot;
+    private final ReentrantLock[] locks;
+    private final long[] cells;
+    private final int mask;
+    /** Largest sum any one cell may reach, so the cells together can never overflow the balance. */
+    private long cellLimit;
+    @SuppressWarnings("unused")
+    private volatile long foldSequence;
+
+    HotAccount(int key, int slot, int cellCount, long balance) {
+        this.key = key;
+        this.slot = slot;
+        this.locks = new ReentrantLock[cellCount];
+        this.cells = new long[cellCount * STRIDE];
+        this.mask = cellCount - 1;
+        for (int i = 0; i < cellCount; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.cellLimit = (Long.MAX_VALUE - balance) / cellCount;
+    }
+
+    /**
+     * Takes a cell for the current thread, moving on to the next one whenever a cell is busy.
+     *
+     * @return the cell, which the caller must release with {@link #unlock}
+     */
+    int lockCell() {
+        int start = AccountIndex.hash(System.identityHashCode(Thread.currentThread())) & mask;
+        for (int i = start, tried = 0; tried <= mask; i = (i + 1) & mask, tried++) {
+            if (locks[i].tryLock()) {
+                return i;
+            }
+        }
+        locks[start].lock();
+        return start;
+    }
+
+    void unlock(int cell) {
+        locks[cell].unlock();
+    }
+
+    /**
+     * Adds a deposit to a cell. Must hold the cell.
+     *
+     * @return {@code false} if the cell has no headroom left and the deposit must go through a fold instead
+     */
+    boolean add(int cell, long amount) {
+        int index = cell * STRIDE;
+        long sum = cells[index];
+        if (amount > cellLimit - sum) {
+            return false;
+        }
+        long count = cells[index + 1];
+        LONGS.setOpaque(cells, index + 1, count | BalanceStore.WRITING);
+        VarHandle.storeStoreFence();
+        LONGS.setOpaque(cells, index, sum + amount);
+        LONGS.setRelease(cells, index + 1, count + 1);
+        return true;
+    }
+
+    /**
+     * Takes every cell, in order, and marks a fold in progress. Must hold the account's stripe.
+     */
+    void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        FOLD_SEQUENCE.setOpaque(this, foldSequence + 1);
+        VarHandle.storeStoreFence();
+    }
+
+    void unlockAll() {
+        FOLD_SEQUENCE.setRelease(this, foldSequence + 1);
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    /**
+     * Moves every cell into the stored balance, advancing its version by the number of deposits moved, so the
+     * version an account reports never goes back. Must hold every cell.
+     *
+     * @return the number of deposits moved
+     */
+    long fold(BalanceStore balances) {
+        long sum = 0;
+        long count = 0;
+        for (int index = 0; index < cells.length; index += STRIDE) {
+            sum += cells[index];
+            count += cells[index + 1];
+            cells[index] = 0;
+            cells[index + 1] = 0;
+        }
+        if (count > 0) {
+            balances.set(slot, balances.balance(slot) + sum, balances.version(slot) + count);
+        }
+        return count;
+    }
+
+    /**
+     * Recomputes the cell headroom after the stored balance changed. Must hold every cell.
+     */
+    void rebalance(long balance) {
+        cellLimit = (Long.MAX_VALUE - balance) / locks.length;
+    }
+
+    /**
+     * Reads the stored balance plus every cell without locking.
+     */
+    Account read(BalanceStore balances, String accountNumber) {
+        while (true) {
+            long sequence = (long) FOLD_SEQUENCE.getAcquire(this);
+            if ((sequence & 1) == 0) {
+                Account stored = balances.read(slot, accountNumber);
+                long sum = 0;
+                long count = 0;
+                for (int index = 0; index < cells.length && count >= 0; index += STRIDE) {
+                    long cellCount = (long) LONGS.getAcquire(cells, index + 1);
+                    long cellSum = (long) LONGS.getOpaque(cells, index);
+                    VarHandle.loadLoadFence();
+                    if (cellCount < 0 || (long) LONGS.getOpaque(cells, index + 1) != cellCount) {
+                        count = -1;
+                    } else {
+                        sum += cellSum;
+                        count += cellCount;
+                    }
+                }
+                VarHandle.loadLoadFence();
+                if (count >= 0 && (long) FOLD_SEQUENCE.getOpaque(this) == sequence) {
+                    return new Account(accountNumber, stored.balance() + sum, stored.version() + count);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
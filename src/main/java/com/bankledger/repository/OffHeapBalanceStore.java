@@ -0,0 +1,232 @@
+package com.bankledger.repository;
+
+import com.bankledger.model.Account;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * {@link BalanceStore} in native memory, either anonymous or mapped from a file.
+ * <p>
+ * Every slot is a little-endian 24-byte record:
+ * <pre>
+ *  0  long  balance in cents
+ *  8  long  version, with {@link #WRITING} set while the balance is replaced
+ * 16  int   packed account number
+ * 20  int   unused
+ * </pre>
+ * Slots live in fixed-size chunks, each a separate buffer, so the store grows without copying and an account costs
+ * no heap at all. The collector never scans or moves the balances, whatever their number.
+ * <p>
+ * A mapped store keeps its chunks back to back after a one-page header ({@code long} magic, {@code long} state,
+ * {@code long} slot count). The header is marked open while the store is in use and closed, with the slot count,
+ * only after every chunk has been forced to disk on {@link #close}. A file that was not closed cleanly may hold a
+ * half-written balance, so its slots are discarded on open and the write-ahead log and snapshots rebuild them.
+ */
+public final class OffHeapBalanceStore implements BalanceStore {
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final int SLOT_SIZE = 24;
+    private static final int BALANCE_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int KEY_OFFSET = 16;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SLOTS - 1;
+    private static final int CHUNK_SIZE = CHUNK_SLOTS * SLOT_SIZE;
+
+    private static final long MAGIC = 0x424C42414C303031L;
+    private static final int HEADER_SIZE = 4096;
+    private static final long STATE_OPEN = 1;
+    private static final long STATE_CLOSED = 2;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int STATE_OFFSET = 8;
+    private static final int SIZE_OFFSET = 16;
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapBalanceStore.class);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile int size;
+
+    private OffHeapBalanceStore(Path path, FileChannel channel, MappedByteBuffer header) {
+        this.path = path;
+        this.channel = channel;
+        this.header = header;
+    }
+
+    /**
+     * @return an empty store in anonymous native memory, which is released when the store is garbage collected
+     */
+    public static OffHeapBalanceStore allocate() {
+        return new OffHeapBalanceStore(null, null, null);
+    }
+
+    /**
+     * Opens the store kept in {@code path}, creating the file if needed. The slots of a cleanly closed file are
+     * kept; those of any other file are discarded.
+     */
+    public static OffHeapBalanceStore map(Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean existed = channel.size() > 0;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            OffHeapBalanceStore store = new OffHeapBalanceStore(path, channel, header);
+            long slots = 0;
+            if ((long) LONG.get(header, MAGIC_OFFSET) == MAGIC && (long) LONG.get(header, STATE_OFFSET) == STATE_CLOSED) {
+                slots = (long) LONG.get(header, SIZE_OFFSET);
+            } else if (existed) {
+                logger.warn("Balance store {} was not closed cleanly; discarding its balances", path);
+            }
+            for (long chunk = 0; chunk * CHUNK_SLOTS < slots; chunk++) {
+                store.addChunk();
+            }
+            store.size = (int) slots;
+            LONG.set(header, MAGIC_OFFSET, MAGIC);
+            LONG.set(header, SIZE_OFFSET, 0L);
+            LONG.set(header, STATE_OFFSET, STATE_OPEN);
+            header.force();
+            logger.info("Opened balance store {} with {} accounts", path, slots);
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open balance store " + path, e);
+        }
+    }
+
+    @Override
+    public int allocate(int key, long balance, long version) {
+        int slot = size;
+        int chunk = slot >>> CHUNK_SHIFT;
+        if (chunk == chunks.length) {
+            addChunk();
+        }
+        ByteBuffer buffer = chunks[chunk];
+        int offset = (slot & CHUNK_MASK) * SLOT_SIZE;
+        buffer.putInt(offset + KEY_OFFSET, key);
+        LONG.set(buffer, offset + BALANCE_OFFSET, balance);
+        LONG.set(buffer, offset + VERSION_OFFSET, version);
+        size = slot + 1;
+        return slot;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int key(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT].getInt((slot & CHUNK_MASK) * SLOT_SIZE + KEY_OFFSET);
+    }
+
+    @Override
+    public long balance(int slot) {
+        return (long) LONG.get(chunks[slot >>> CHUNK_SHIFT], (slot & CHUNK_MASK) * SLOT_SIZE + BALANCE_OFFSET);
+    }
+
+    @Override
+    public long version(int slot) {
+        return (long) LONG.get(chunks[slot >>> CHUNK_SHIFT], (slot & CHUNK_MASK) * SLOT_SIZE + VERSION_OFFSET);
+    }
+
+    @Override
+    public long update(int slot, long balance) {
+        ByteBuffer chunk = chunks[slot >>> CHUNK_SHIFT];
+        int offset = (slot & CHUNK_MASK) * SLOT_SIZE;
+        long version = (long) LONG.get(chunk, offset + VERSION_OFFSET) + 1;
+        write(chunk, offset, balance, version);
+        return version;
+    }
+
+    @Override
+    public void set(int slot, long balance, long version) {
+        write(chunks[slot >>> CHUNK_SHIFT], (slot & CHUNK_MASK) * SLOT_SIZE, balance, version);
+    }
+
+    @Override
+    public Account read(int slot, String accountNumber) {
+        ByteBuffer chunk = chunks[slot >>> CHUNK_SHIFT];
+        int offset = (slot & CHUNK_MASK) * SLOT_SIZE;
+        while (true) {
+            long version = (long) LONG.getAcquire(chunk, offset + VERSION_OFFSET);
+            if (version >= 0) {
+                long balance = (long) LONG.getOpaque(chunk, offset + BALANCE_OFFSET);
+                VarHandle.loadLoadFence();
+                if ((long) LONG.getOpaque(chunk, offset + VERSION_OFFSET) == version) {
+                    return new Account(accountNumber, balance, version);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Forces a mapped store to disk and marks it closed, so the next {@link #map} keeps its slots. An anonymous
+     * store only drops its chunks.
+     */
+    @Override
+    public void close() {
+        ByteBuffer[] closed = chunks;
+        chunks = new ByteBuffer[0];
+        if (channel == null) {
+            return;
+        }
+        try {
+            for (ByteBuffer chunk : closed) {
+                ((MappedByteBuffer) chunk).force();
+            }
+            LONG.set(header, SIZE_OFFSET, (long) size);
+            LONG.set(header, STATE_OFFSET, STATE_CLOSED);
+            header.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close balance store " + path, e);
+        }
+    }
+
+    private void addChunk() {
+        ByteBuffer[] current = chunks;
+        ByteBuffer chunk;
+        if (channel == null) {
+            // Atomic access needs 8-byte alignment, which allocateDirect does not promise
+            chunk = ByteBuffer.allocateDirect(CHUNK_SIZE + Long.BYTES).alignedSlice(Long.BYTES);
+        } else {
+            try {
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) current.length * CHUNK_SIZE, CHUNK_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not grow balance store " + path, e);
+            }
+        }
+        ByteBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = chunk.order(ByteOrder.LITTLE_ENDIAN);
+        chunks = grown;
+    }
+
+    private static void write(ByteBuffer chunk, int offset, long balance, long version) {
+        LONG.setOpaque(chunk, offset + VERSION_OFFSET, (long) LONG.get(chunk, offset + VERSION_OFFSET) | WRITING);
+        VarHandle.storeStoreFence();
+        LONG.setOpaque(chunk, offset + BALANCE_OFFSET, balance);
+        LONG.setRelease(chunk, offset + VERSION_OFFSET, version);
+    }
+}
@@ -1,20 +1,368 @@
 package com.bankledger.repository;
 
+import com.bankledger.metrics.LedgerMetrics;
+import com.bankledger.model.AccountNumbers;
 import com.bankledger.model.Transaction;
+import com.bankledger.model.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Append-only, in-memory transaction journal.
+ * <p>
+ * Entries live in fixed-size segments arranged in a ring. Appending claims a sequence number with a single atomic
+ * increment and publishes the entry into its segment slot. Once the ring is full, the oldest segment is recycled,
+ * which keeps memory bounded to the configured retention.
+ * <p>
+ * Every account also has a history: the sorted sequence numbers of its entries, found through an
+ * {@link AccountIndex}. An account's sequence is claimed and added to its history under the history's own lock.
+ * Appends to different accounts never wait for each other, and appends to one account are already serialized by the
+ * account's lock in {@link AccountRepository} when they are made inside it, so the lock is uncontended on the
+ * posting path; a reader copying out a page is the only one who waits or makes others wait. Being a
+ * {@link ReentrantLock}, a virtual thread that waits for it parks rather than spinning on its carrier. A page of
+ * history is found by binary search and read straight from the ring, at a cost that depends on the page size rather than the journal size. Histories drop
+ * sequences that fell out of the ring as they grow.
+ * <p>
+ * Readers iterate the live segments directly. Iteration stops at the first entry that is still being written, so
+ * it always sees a gap-free prefix of the journal.
+ */
 @Repository
 public class TransactionRepository {
-    private final List<Transaction> transactions = new ArrayList<>();
 
-    public void save(Transaction transaction) {
-        transactions.add(transaction);
+    private static final int SEGMENT_SHIFT = 14;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicReferenceArray<Segment> segments;
+    private final int segmentMask;
+    private final LedgerMetrics metrics;
+
+    private final AccountIndex historyIndex = new AccountIndex();
+    private final ReentrantLock createLock = new ReentrantLock();
+    /** Indexed by the slot {@link #historyIndex} maps an account to; replaced when full, under the create lock. */
+    private volatile AccountHistory[] histories = new AccountHistory[1024];
+    private int historyCount;
+
+    public TransactionRepository(int retainedTransactions) {
+        this(retainedTransactions, LedgerMetrics.disabled());
+    }
+
+    @Autowired
+    public TransactionRepository(@Value("${ledger.journal.retained-transactions:1048576}") int retainedTransactions,
+                                 LedgerMetrics metrics) {
+        this.metrics = metrics;
+        int segmentCount = Math.max(2, (retainedTransactions + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        segmentCount = Integer.highestOneBit(segmentCount - 1) << 1;
+        this.segments = new AtomicReferenceArray<>(segmentCount);
+        this.segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * Appends an entry to the journal and to the account's history.
+     *
+     * @return the appended entry with its assigned sequence number
+     */
+    public Transaction append(String accountNumber, TransactionType type, long amount) {
+        return append(AccountNumbers.parse(accountNumber), accountNumber, type, amount);
+    }
+
+    /**
+     * Like {@link #append(String, TransactionType, long)}, for an account number already packed by
+     * {@link AccountNumbers#parse}.
+     */
+    public Transaction append(int key, TransactionType type, long amount) {
+        return append(key, AccountNumbers.format(key), type, amount);
+    }
+
+    private Transaction append(int key, String accountNumber, TransactionType type, long amount) {
+        long start = metrics.start();
+        long sequence;
+        if (key == AccountNumbers.INVALID) {
+            sequence = nextSequence.getAndIncrement();
+        } else {
+            // Claiming the sequence under the history's lock keeps every history sorted
+            AccountHistory history = history(key);
+            history.lock();
+            try {
+                sequence = nextSequence.getAndIncrement();
+                history.add(sequence, oldestRetained(sequence + 1));
+            } finally {
+                history.unlock();
+            }
+        }
+        Transaction transaction = new Transaction(sequence, accountNumber, type, amount, System.currentTimeMillis());
+        Segment segment = segmentForWrite(sequence >>> SEGMENT_SHIFT);
+        if (segment != null) {
+            segment.entries.lazySet((int) (sequence & SEGMENT_MASK), transaction);
+        }
+        metrics.journalAppended(start);
+        return transaction;
     }
 
-    public List<Transaction> findAll() {
-        return transactions;
+    /**
+     * @return the retained entries in sequence order, read in place without copying
+     */
+    public Iterable<Transaction> findAll() {
+        long end = nextSequence.get();
+        long start = oldestRetained(end);
+        return () -> new JournalIterator(start, end, false);
+    }
+
+    /**
+     * Returns every retained entry appended before this call, for a copy of the journal as of now. See
+     * {@link #findAllBefore}.
+     */
+    public Iterator<Transaction> findAllUpToNow() {
+        return findAllBefore(nextSequence.get());
+    }
+
+    /**
+     * Returns every retained entry whose sequence number is below {@code end}, in sequence order. Unlike
+     * {@link #findAll}, iteration waits for entries that are still being written instead of stopping at them, so
+     * the only entries missing from the copy are those evicted before it reached them. Sequence numbers are
+     * contiguous, so a caller finds those as a jump in the sequence numbers it is given, or as fewer than
+     * {@code end} entries in all.
+     *
+     * @param end a sequence number no higher than {@link #nextSequence()}
+     */
+    public Iterator<Transaction> findAllBefore(long end) {
+        return new JournalIterator(oldestRetained(end), end, true);
+    }
+
+    /**
+     * Reads a page of one account's retained entries in sequence order. The page ends early at an entry that is
+     * still being written, like {@link #findAll}.
+     *
+     * @param after the sequence number the page starts after, or -1 to start at the oldest retained entry
+     * @param limit the most entries to return
+     */
+    public List<Transaction> findByAccount(String accountNumber, long after, int limit) {
+        int key = AccountNumbers.parse(accountNumber);
+        int slot = key == AccountNumbers.INVALID ? -1 : historyIndex.find(key);
+        if (slot < 0 || limit <= 0) {
+            return List.of();
+        }
+        long[] sequences;
+        AccountHistory history = histories[slot];
+        history.lock();
+        try {
+            long from = Math.max(after + 1, oldestRetained(nextSequence.get()));
+            sequences = history.page(from, limit);
+        } finally {
+            history.unlock();
+        }
+        List<Transaction> page = new ArrayList<>(sequences.length);
+        for (long sequence : sequences) {
+            long index = sequence >>> SEGMENT_SHIFT;
+            Segment segment = segments.get((int) (index & segmentMask));
+            if (segment == null || segment.index < index) {
+                break;
+            }
+            if (segment.index > index) {
+                // Evicted since the page was found
+                continue;
+            }
+            Transaction transaction = segment.entries.get((int) (sequence & SEGMENT_MASK));
+            if (transaction == null) {
+                break;
+            }
+            page.add(transaction);
+        }
+        return page;
+    }
+
+    /**
+     * @return the sequence number the next appended entry will receive
+     */
+    public long nextSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * @return the most entries the journal retains; older entries are evicted a whole segment at a time
+     */
+    public long retainedCapacity() {
+        return (long) segments.length() << SEGMENT_SHIFT;
+    }
+
+    /**
+     * @return the sequence number of the oldest entry still retained once {@code end} entries have been appended.
+     * The segment being filled shares the ring with the older ones, so that is the start of the oldest whole segment.
+     */
+    private long oldestRetained(long end) {
+        return end == 0 ? 0 : Math.max(0, ((end - 1) >>> SEGMENT_SHIFT) - segmentMask) << SEGMENT_SHIFT;
+    }
+
+    /**
+     * @return the account's history, created on first use
+     */
+    private AccountHistory history(int key) {
+        int slot = historyIndex.find(key);
+        if (slot >= 0) {
+            return histories[slot];
+        }
+        createLock.lock();
+        try {
+            // Another append to the same account may have created it meanwhile
+            slot = historyIndex.find(key);
+            if (slot >= 0) {
+                return histories[slot];
+            }
+            AccountHistory[] current = histories;
+            if (historyCount == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            AccountHistory history = new AccountHistory();
+            current[historyCount] = history;
+            histories = current;
+            historyIndex.put(key, historyCount++);
+            return history;
+        } finally {
+            createLock.unlock();
+        }
+    }
+
+    private Segment segmentForWrite(long index) {
+        int slot = (int) (index & segmentMask);
+        Segment segment = segments.get(slot);
+        while (segment == null || segment.index < index) {
+            Segment fresh = new Segment(index);
+            if (segments.compareAndSet(slot, segment, fresh)) {
+                return fresh;
+            }
+            segment = segments.get(slot);
+        }
+        // A writer that fell a whole ring behind finds its segment already recycled; the entry is dropped
+        return segment.index == index ? segment : null;
+    }
+
+    private static final class Segment {
+        final long index;
+        final AtomicReferenceArray<Transaction> entries = new AtomicReferenceArray<>(SEGMENT_SIZE);
+
+        Segment(long index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * Sorted sequence numbers of one account's entries. Guarded by {@link #lock()}.
+     */
+    private static final class AccountHistory {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] sequences = new long[4];
+        private int size;
+
+        void lock() {
+            lock.lock();
+        }
+
+        void unlock() {
+            lock.unlock();
+        }
+
+        void add(long sequence, long oldestRetained) {
+            if (size == sequences.length) {
+                // Drop what the ring no longer holds before growing
+                int evicted = firstAtLeast(oldestRetained);
+                if (evicted > size / 2) {
+                    System.arraycopy(sequences, evicted, sequences, 0, size - evicted);
+                    size -= evicted;
+                } else {
+                    sequences = Arrays.copyOf(sequences, sequences.length * 2);
+                }
+            }
+            sequences[size++] = sequence;
+        }
+
+        long[] page(long from, int limit) {
+            int start = firstAtLeast(from);
+            return Arrays.copyOfRange(sequences, start, Math.min(size, start + limit));
+        }
+
+        private int firstAtLeast(long sequence) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sequences[middle] < sequence) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final class JournalIterator implements Iterator<Transaction> {
+        private final long end;
+        private final boolean complete;
+        private long cursor;
+        private Transaction next;
+
+        JournalIterator(long start, long end, boolean complete) {
+            this.cursor = start;
+            this.end = end;
+            this.complete = complete;
+            this.next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Transaction next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Transaction current = next;
+            next = advance();
+            return current;
+        }
+
+        private Transaction advance() {
+            while (cursor < end) {
+                long index = cursor >>> SEGMENT_SHIFT;
+                Segment segment = segments.get((int) (index & segmentMask));
+                if (segment == null || segment.index < index) {
+                    // Segment not installed yet: everything from here on is still in flight
+                    if (complete) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    return null;
+                }
+                if (segment.index > index) {
+                    // Segment was recycled while iterating: skip to the oldest entry still retained
+                    cursor = (index + 1) << SEGMENT_SHIFT;
+                    continue;
+                }
+                Transaction transaction = segment.entries.get((int) (cursor & SEGMENT_MASK));
+                if (transaction == null) {
+                    if (complete) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    return null;
+                }
+                cursor++;
+                return transaction;
+            }
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,278 @@
+package com.bankledger.server;
+
+import com.bankledger.model.WireFormat;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.service.WirePostingService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves the binary {@link WireFormat} over plain TCP, next to Tomcat, for clients that need more commands per
+ * second than HTTP requests can carry.
+ * <p>
+ * A client keeps its connection open and streams command frames without waiting for replies; response frames come
+ * back in the same order. One thread runs a {@link Selector} over every connection: each read applies all the whole
+ * frames received so far through {@link WirePostingService#applyDeferred}, and their responses go back in a single
+ * write once the write-ahead log has made them durable. The thread never blocks on the log: it asks for a
+ * {@link WriteAheadLog#whenDurable} future and stops reading from that connection until the group commit completes
+ * it, serving the others in the meantime. A connection whose peer does not keep up with its responses is likewise
+ * not read from until they are written, so a client can never have more than one buffer of commands in flight.
+ * <p>
+ * The protocol has no authentication, so the server is off unless {@code ledger.wire.enabled} is set, and listens
+ * on {@code ledger.wire.address}, loopback by default, only. {@code ledger.wire.port=0} picks a free port, see
+ * {@link #port()}.
+ */
+@Component
+public class WireServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WireServer.class);
+
+    private static final String DEFAULT_ADDRESS = "127.0.0.1";
+    private static final int DEFAULT_PORT = 7070;
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final WirePostingService wirePostingService;
+    private final WriteAheadLog writeAheadLog;
+    private final boolean enabled;
+    private final String address;
+    private final int port;
+    /** Whole command frames per read buffer; the write buffer holds as many response frames. */
+    private final int framesPerBuffer;
+    /** Connections whose responses became durable, handed back to the selector thread by the flusher. */
+    private final ConcurrentLinkedQueue<Connection> durable = new ConcurrentLinkedQueue<>();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * @param bufferSize the size of each connection's read buffer, rounded down to whole command frames
+     */
+    @Autowired
+    public WireServer(WirePostingService wirePostingService,
+                      WriteAheadLog writeAheadLog,
+                      @Value("${ledger.wire.enabled:false}") boolean enabled,
+                      @Value("${ledger.wire.address:" + DEFAULT_ADDRESS + "}") String address,
+                      @Value("${ledger.wire.port:" + DEFAULT_PORT + "}") int port,
+                      @Value("${ledger.wire.buffer-size:" + DEFAULT_BUFFER_SIZE + "}") int bufferSize) {
+        this.wirePostingService = wirePostingService;
+        this.writeAheadLog = writeAheadLog;
+        this.enabled = enabled;
+        this.address = address;
+        this.port = port;
+        this.framesPerBuffer = Math.max(1, bufferSize / WireFormat.COMMAND_SIZE);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(address, port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        thread = new Thread(this::run, "ledger-wire");
+        thread.start();
+        logger.info("Wire protocol listening on {}:{}", address, port());
+    }
+
+    /**
+     * Stops accepting commands and closes every connection; responses not yet written are dropped.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        thread.join();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        thread = null;
+    }
+
+    /**
+     * @return the port the server listens on, or -1 if it is not running
+     */
+    public int port() {
+        return serverChannel == null ? -1 : serverChannel.socket().getLocalPort();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                logger.error("Wire protocol selector failed", e);
+                return;
+            }
+            Connection connection;
+            while ((connection = durable.poll()) != null) {
+                connection.durable();
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                } else {
+                    ((Connection) key.attachment()).ready(key);
+                }
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                Connection connection = new Connection(channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            }
+        } catch (IOException e) {
+            logger.warn("Wire protocol accept failed", e);
+        }
+    }
+
+    /**
+     * One client connection. Only the selector thread touches it, apart from queueing it on {@link #durable}.
+     * <p>
+     * Both buffers stay in fill mode between events: commands received but not yet applied sit before the read
+     * buffer's position, and responses not yet written before the write buffer's.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final ByteBuffer commands;
+        private final ByteBuffer responses;
+        private SelectionKey key;
+        private CompletableFuture<Void> pending;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.commands = ByteBuffer.allocateDirect(framesPerBuffer * WireFormat.COMMAND_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.responses = ByteBuffer.allocateDirect(framesPerBuffer * WireFormat.RESPONSE_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        void ready(SelectionKey key) {
+            try {
+                if (key.isWritable()) {
+                    write();
+                } else if (key.isReadable()) {
+                    read();
+                }
+            } catch (IOException | RuntimeException e) {
+                close(e);
+            }
+        }
+
+        /**
+         * Called once the write-ahead log has made the pending responses durable, or failed to.
+         */
+        void durable() {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                pending.join();
+                pending = null;
+                write();
+            } catch (IOException | RuntimeException e) {
+                close(e);
+            }
+        }
+
+        private void read() throws IOException {
+            if (channel.read(commands) < 0) {
+                close(null);
+                return;
+            }
+            apply();
+        }
+
+        /**
+         * Applies every whole command frame received, then writes the responses once they are durable.
+         */
+        private void apply() throws IOException {
+            commands.flip();
+            long position = wirePostingService.applyDeferred(commands, responses);
+            commands.compact();
+            if (responses.position() == 0) {
+                return;
+            }
+            CompletableFuture<Void> future = writeAheadLog.whenDurable(position);
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                write();
+                return;
+            }
+            pending = future;
+            key.interestOps(0);
+            future.whenComplete((ignored, error) -> {
+                durable.add(this);
+                selector.wakeup();
+            });
+        }
+
+        /**
+         * Writes the pending responses, and once they are all written, goes back to reading commands.
+         */
+        private void write() throws IOException {
+            responses.flip();
+            channel.write(responses);
+            boolean drained = !responses.hasRemaining();
+            responses.compact();
+            if (!drained) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            if (commands.position() >= WireFormat.COMMAND_SIZE) {
+                apply();
+            }
+        }
+
+        private void close(Exception cause) {
+            if (cause != null) {
+                logger.warn("Closing wire protocol connection {}", channel, cause);
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Closing wire protocol connection failed", e);
+            }
+        }
+    }
+}
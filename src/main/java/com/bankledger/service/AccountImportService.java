@@ -0,0 +1,369 @@
+package com.bankledger.service;
+
+import com.bankledger.dto.ImportResponse;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.model.ImportFormat;
+import com.bankledger.model.Money;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.validation.ImportValidation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Creates accounts in bulk from a file of account numbers and opening balances, for migrating existing customers.
+ * <p>
+ * The input is read in large blocks. Each block is split into chunks that are parsed in parallel straight from the
+ * bytes, without a string per record. The parsed accounts are then checked against a bitmap of the account numbers
+ * seen so far, in input order, so only the first record for a number counts, and are handed to
+ * {@link AccountRepository#createAll} in one call per block.
+ * <p>
+ * Two formats are read:
+ * <ul>
+ *     <li>{@link ImportFormat#CSV}: one {@code accountNumber,balance} line per account, the balance optional and in
+ *     the same decimal form as request amounts, with an optional {@code accountNumber} header line</li>
+ *     <li>{@link ImportFormat#BINARY}: 12-byte big-endian records of an {@code int} account number and a
+ *     {@code long} balance in cents</li>
+ * </ul>
+ */
+@Service
+public class AccountImportService {
+
+    private static final int BLOCK_SIZE = 16 << 20;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int BINARY_RECORD_SIZE = 12;
+    private static final int MAX_INVALID_RECORDS = 100;
+    private static final int MAX_ACCOUNT_NUMBER = 999_999_999;
+
+    private final AccountRepository accountRepository;
+    private final Path importDirectory;
+
+    public AccountImportService(AccountRepository accountRepository,
+                                @Value("${ledger.import.directory:data/import}") Path importDirectory) {
+        this.accountRepository = accountRepository;
+        this.importDirectory = importDirectory.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Imports accounts from a file in the import directory if {@code path} is given, or from {@code body}
+     * otherwise.
+     *
+     * @param format {@code csv} (the default) or {@code binary}
+     * @param path   a file name relative to {@code ledger.import.directory}, or {@code null}
+     */
+    public ImportResponse importAccounts(String format, String path, InputStream body) throws ExceptionList {
+        ImportFormat parsedFormat = ImportValidation.parseFormat(format);
+        Path file = path == null ? null : resolve(path);
+
+        // Validate format and path
+        String formatError = ImportValidation.checkFormat(parsedFormat, "format");
+        String pathError = path == null ? null : ImportValidation.checkPath(file, "path");
+
+        // Check for any errors before proceeding
+        if (formatError != null || pathError != null) {
+            throw ExceptionList.of("format", formatError, "path", pathError);
+        }
+
+        try (InputStream in = file == null ? body : Files.newInputStream(file)) {
+            return importAccounts(parsedFormat, in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the accounts to import", e);
+        }
+    }
+
+    /**
+     * Resolves symbolic links on both sides, so a link inside the import directory cannot lead outside it.
+     *
+     * @return the file, or {@code null} if it does not exist or the path leads outside the import directory
+     */
+    private Path resolve(String path) {
+        try {
+            Path file = importDirectory.resolve(path).toRealPath();
+            return file.startsWith(importDirectory.toRealPath()) ? file : null;
+        } catch (IOException | InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private ImportResponse importAccounts(ImportFormat format, InputStream in) throws IOException {
+        Import result = new Import();
+        byte[] block = new byte[BLOCK_SIZE];
+        int carried = 0;
+        boolean first = true;
+        while (true) {
+            int filled = carried + in.readNBytes(block, carried, block.length - carried);
+            if (filled == 0) {
+                // Empty input, or the previous block ended exactly on a record boundary
+                return result.toResponse();
+            }
+            boolean last = filled < block.length;
+            int end = last ? filled : recordsEnd(format, block, filled);
+            if (end == 0 && !last) {
+                // A single line fills the block: it cannot be an account, so drop it whole
+                result.invalid(++result.records);
+                carried = 0;
+                skipLine(in);
+                continue;
+            }
+            Chunk[] chunks = parse(format, block, end, first && format == ImportFormat.CSV);
+            install(chunks, result);
+            first = false;
+            if (last) {
+                return result.toResponse();
+            }
+            carried = filled - end;
+            System.arraycopy(block, end, block, 0, carried);
+        }
+    }
+
+    /**
+     * @return the end of the last whole record in {@code block[0, filled)}, or 0 if there is none
+     */
+    private static int recordsEnd(ImportFormat format, byte[] block, int filled) {
+        if (format == ImportFormat.BINARY) {
+            return filled - filled % BINARY_RECORD_SIZE;
+        }
+        for (int i = filled - 1; i >= 0; i--) {
+            if (block[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static void skipLine(InputStream in) throws IOException {
+        int next;
+        do {
+            next = in.read();
+        } while (next != -1 && next != '\n');
+    }
+
+    /**
+     * Splits {@code block[0, end)} into chunks of whole records and parses them in parallel.
+     */
+    private static Chunk[] parse(ImportFormat format, byte[] block, int end, boolean header) {
+        List<int[]> bounds = new ArrayList<>();
+        for (int start = 0; start < end; ) {
+            int chunkEnd = Math.min(end, start + CHUNK_SIZE);
+            if (format == ImportFormat.BINARY) {
+                chunkEnd -= (chunkEnd - start) % BINARY_RECORD_SIZE;
+                if (chunkEnd == start) {
+                    chunkEnd = end;
+                }
+            } else {
+                while (chunkEnd < end && block[chunkEnd - 1] != '\n') {
+                    chunkEnd++;
+                }
+            }
+            bounds.add(new int[]{start, chunkEnd});
+            start = chunkEnd;
+        }
+        Chunk[] chunks = new Chunk[bounds.size()];
+        IntStream.range(0, chunks.length).parallel().forEach(i -> {
+            int[] range = bounds.get(i);
+            chunks[i] = format == ImportFormat.BINARY
+                    ? parseBinary(block, range[0], range[1])
+                    : parseCsv(block, range[0], range[1], header && i == 0);
+        });
+        return chunks;
+    }
+
+    private static Chunk parseCsv(byte[] block, int start, int end, boolean header) {
+        Chunk chunk = new Chunk(Math.max(16, (end - start) / 16));
+        Ascii text = new Ascii(block);
+        for (int lineStart = start; lineStart < end; ) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && block[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && block[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (header && lineStart == start && lineEnd > lineStart && (block[lineStart] < '0' || block[lineStart] > '9')) {
+                // Header line
+                chunk.records++;
+            } else if (lineEnd == lineStart) {
+                // Blank lines are not records
+                chunk.records++;
+            } else {
+                int comma = lineStart;
+                while (comma < lineEnd && block[comma] != ',') {
+                    comma++;
+                }
+                int key = AccountNumbers.parse(text, lineStart, comma);
+                long balance = comma >= lineEnd - 1 ? 0 : Money.parseCents(text, comma + 1, lineEnd);
+                chunk.add(key, balance);
+            }
+            lineStart = next;
+        }
+        return chunk;
+    }
+
+    private static Chunk parseBinary(byte[] block, int start, int end) {
+        Chunk chunk = new Chunk((end - start) / BINARY_RECORD_SIZE + 1);
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        int records = start;
+        for (; records + BINARY_RECORD_SIZE <= end; records += BINARY_RECORD_SIZE) {
+            int key = buffer.getInt(records);
+            chunk.add(key >= 0 && key <= MAX_ACCOUNT_NUMBER ? key : AccountNumbers.INVALID, buffer.getLong(records + Integer.BYTES));
+        }
+        if (records < end) {
+            // A truncated record at the end of the input
+            chunk.add(AccountNumbers.INVALID, 0);
+        }
+        return chunk;
+    }
+
+    /**
+     * Drops invalid and repeated records in input order, then creates the rest.
+     */
+    private void install(Chunk[] chunks, Import result) {
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.size;
+        }
+        int[] keys = new int[total];
+        long[] openingBalances = new long[total];
+        int count = 0;
+        for (Chunk chunk : chunks) {
+            long base = result.records;
+            for (int i = 0; i < chunk.size; i++) {
+                int key = chunk.keys[i];
+                long balance = chunk.balances[i];
+                if (key == AccountNumbers.INVALID || balance < 0) {
+                    result.invalid(base + chunk.numbers[i] + 1);
+                } else if (result.seen.testAndSet(key)) {
+                    result.duplicates++;
+                } else {
+                    keys[count] = key;
+                    openingBalances[count++] = balance;
+                }
+            }
+            result.records += chunk.records;
+        }
+        int created = accountRepository.createAll(keys, openingBalances, count, new boolean[count]);
+        result.imported += created;
+        result.existing += count - created;
+    }
+
+    /**
+     * Accounts parsed from one chunk, with the chunk-relative record number of each.
+     */
+    private static final class Chunk {
+        int[] keys;
+        long[] balances;
+        int[] numbers;
+        int size;
+        int records;
+
+        Chunk(int capacity) {
+            keys = new int[capacity];
+            balances = new long[capacity];
+            numbers = new int[capacity];
+        }
+
+        void add(int key, long balance) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                balances = Arrays.copyOf(balances, size * 2);
+                numbers = Arrays.copyOf(numbers, size * 2);
+            }
+            keys[size] = key;
+            balances[size] = balance;
+            numbers[size++] = records++;
+        }
+    }
+
+    /**
+     * Running totals of one import.
+     */
+    private static final class Import {
+        final AccountBitmap seen = new AccountBitmap();
+        final List<Long> invalidRecords = new ArrayList<>();
+        long records;
+        long imported;
+        long existing;
+        long duplicates;
+        long invalid;
+
+        void invalid(long recordNumber) {
+            invalid++;
+            if (invalidRecords.size() < MAX_INVALID_RECORDS) {
+                invalidRecords.add(recordNumber);
+            }
+        }
+
+        ImportResponse toResponse() {
+            return new ImportResponse(imported, existing, duplicates, invalid, invalidRecords);
+        }
+    }
+
+    /**
+     * Set of account numbers as a bitmap in 8 KiB pages, allocated as numbers in their range turn up, so a dense
+     * range of a million accounts costs about 128 KiB however large the numbers are.
+     */
+    private static final class AccountBitmap {
+        private static final int PAGE_SHIFT = 16;
+        private final long[][] pages = new long[(MAX_ACCOUNT_NUMBER >>> PAGE_SHIFT) + 1][];
+
+        /**
+         * @return {@code true} if the number was already in the set
+         */
+        boolean testAndSet(int key) {
+            long[] page = pages[key >>> PAGE_SHIFT];
+            if (page == null) {
+                page = pages[key >>> PAGE_SHIFT] = new long[1 << (PAGE_SHIFT - 6)];
+            }
+            int bit = key & ((1 << PAGE_SHIFT) - 1);
+            long mask = 1L << bit;
+            long word = page[bit >>> 6];
+            page[bit >>> 6] = word | mask;
+            return (word & mask) != 0;
+        }
+    }
+
+    /**
+     * A byte array read as ASCII characters, so the parsers that take text can read records in place.
+     */
+    private static final class Ascii implements CharSequence {
+        private final byte[] bytes;
+
+        Ascii(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, bytes.length).toString();
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.bankledger.service;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.exception.RetryLaterException;
+import com.bankledger.validation.IdempotencyValidation;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs each posting at most once per {@code Idempotency-Key}, so a client that retries after a timeout gets the
+ * original outcome instead of posting twice.
+ * <p>
+ * Keys are remembered as a 128-bit hash, together with a 128-bit hash of the class and fields of the request they
+ * were first used with and the outcome: success, or the {@link ExceptionList} the posting failed with. A retry that
+ * arrives while the first attempt is still running waits up to {@code ledger.idempotency.wait-seconds} for its
+ * outcome, and is otherwise answered with a {@link RetryLaterException}. A posting that fails unexpectedly is
+ * forgotten, so it can be retried.
+ * <p>
+ * The keys are spread over independently locked segments. Each segment keeps two generations of open-addressing
+ * tables in primitive arrays: keys go into the current one, and when it is full or older than the retention time it
+ * becomes the previous one and the previous one is dropped whole. No key is ever removed on its own, so there are
+ * no per-key timers or lists, and a key costs about 60 bytes. Keys are remembered for at least the retention time
+ * unless more than {@code ledger.idempotency.max-keys} arrive within it, and at most twice as long.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int SEGMENT_SHIFT = 6;
+    private static final int SEGMENTS = 1 << SEGMENT_SHIFT;
+    private static final int INITIAL_SLOTS = 64;
+
+    private static final Object SUCCEEDED = new Object();
+    private static final Object MISMATCHED = new Object();
+
+    /** Accessors of each request record's components, in declaration order. */
+    private static final ClassValue<Method[]> COMPONENTS = new ClassValue<>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            RecordComponent[] components = type.getRecordComponents();
+            if (components == null) {
+                throw new IllegalArgumentException(type.getName() + " is not a record.");
+            }
+            Method[] accessors = new Method[components.length];
+            for (int i = 0; i < components.length; i++) {
+                accessors[i] = components[i].getAccessor();
+            }
+            return accessors;
+        }
+    };
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long retentionNanos;
+    private final long waitNanos;
+    /**
+     * Runs retries of forgotten attempts. A first attempt is completed by whichever thread finishes it, often a
+     * shard, and a retry resubmitted from that thread could wait forever on its own full ring.
+     */
+    private final ExecutorService retryExecutor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "ledger-idempotency-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyService(long retentionSeconds, int maxKeys) {
+        this(retentionSeconds, maxKeys, 30);
+    }
+
+    @Autowired
+    public IdempotencyService(@Value("${ledger.idempotency.retention-seconds:3600}") long retentionSeconds,
+                              @Value("${ledger.idempotency.max-keys:1048576}") int maxKeys,
+                              @Value("${ledger.idempotency.wait-seconds:30}") long waitSeconds) {
+        this.retentionNanos = TimeUnit.SECONDS.toNanos(retentionSeconds);
+        this.waitNanos = TimeUnit.SECONDS.toNanos(waitSeconds);
+        // Two generations per segment share the limit
+        int generationCapacity = Math.max(INITIAL_SLOTS / 2, maxKeys / SEGMENTS / 2);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(generationCapacity);
+        }
+    }
+
+    /**
+     * Runs the posting, unless the key was already used for the same request, in which case the original outcome
+     * is repeated: nothing for success, or the original {@link ExceptionList} thrown again.
+     *
+     * @param idempotencyKey the client's key, or {@code null} to always run the posting
+     * @param request        the request record the posting applies, whose class and fields decide whether a
+     *                       reused key is a retry of the same request
+     * @throws ExceptionList       if the key is invalid or was first used with a different request
+     * @throws RetryLaterException if the key's first attempt is still running after the wait time
+     */
+    public void run(String idempotencyKey, Object request, Runnable posting) throws ExceptionList {
+        if (idempotencyKey == null) {
+            posting.run();
+            return;
+        }
+        String keyError = IdempotencyValidation.checkKey(idempotencyKey, HEADER);
+        if (keyError != null) {
+            throw ExceptionList.of(HEADER, keyError);
+        }
+        long hash = hash(idempotencyKey, 0xCBF29CE484222325L);
+        // Never zero, which marks an empty table slot
+        long check = hash(idempotencyKey, 0x9E3779B97F4A7C15L) | 1;
+        long fingerprint = fingerprint(request, 0xCBF29CE484222325L);
+        long fingerprintCheck = fingerprint(request, 0x9E3779B97F4A7C15L);
+        Segment segment = segments[(int) (hash >>> (Long.SIZE - SEGMENT_SHIFT))];
+
+        while (true) {
+            Pending mine = new Pending(hash, check);
+            Object outcome = segment.claim(hash, check, fingerprint, fingerprintCheck, mine, System.nanoTime(),
+                    retentionNanos);
+            if (outcome == mine) {
+                execute(segment, mine, posting);
+                return;
+            }
+            if (outcome instanceof Pending pending) {
+                outcome = await(pending);
+                if (outcome == null) {
+                    // The first attempt failed unexpectedly and was forgotten; claim the key again
+                    continue;
+                }
+            }
+            if (outcome == MISMATCHED) {
+                throw ExceptionList.of(HEADER, Messages.forField(HEADER, Messages.IDEMPOTENCY_KEY_REUSED));
+            }
+            if (outcome instanceof ExceptionList exceptionList) {
+                throw exceptionList;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Like {@link #run}, for a posting that completes later: the returned future completes with the original
+     * outcome, and a retry that arrives while the first attempt is pending is chained onto it rather than blocking.
+     * The outcome is recorded before the returned future completes.
+     *
+     * @param idempotencyKey the client's key, or {@code null} to always run the posting
+     * @param request        the request record the posting applies, whose class and fields decide whether a
+     *                       reused key is a retry of the same request
+     * @return a future that fails with an {@link ExceptionList} if the posting was rejected, or if the key is
+     * invalid or was first used with a different request, and with a {@link RetryLaterException} if the key's first
+     * attempt is still running after the wait time
+     */
+    public CompletableFuture<Void> runAsync(String idempotencyKey, Object request,
+                                            Supplier<CompletableFuture<Void>> posting) {
+        if (idempotencyKey == null) {
+            return posting.get();
+        }
+        String keyError = IdempotencyValidation.checkKey(idempotencyKey, HEADER);
+        if (keyError != null) {
+            return CompletableFuture.failedFuture(ExceptionList.of(HEADER, keyError));
+        }
+        long hash = hash(idempotencyKey, 0xCBF29CE484222325L);
+        long check = hash(idempotencyKey, 0x9E3779B97F4A7C15L) | 1;
+        long fingerprint = fingerprint(request, 0xCBF29CE484222325L);
+        long fingerprintCheck = fingerprint(request, 0x9E3779B97F4A7C15L);
+        Segment segment = segments[(int) (hash >>> (Long.SIZE - SEGMENT_SHIFT))];
+
+        Pending mine = new Pending(hash, check);
+        Object outcome = segment.claim(hash, check, fingerprint, fingerprintCheck, mine, System.nanoTime(),
+                    retentionNanos);
+        if (outcome == mine) {
+            return executeAsync(segment, mine, posting);
+        }
+        if (outcome instanceof Pending pending) {
+            // If the first attempt fails unexpectedly it is forgotten, and this one claims the key again, away from
+            // the thread that completed the first attempt. The wait is bounded like a blocking retry's, and times out
+            // a copy so that the future other retries share is never completed by the timeout
+            return pending.result.copy().orTimeout(waitNanos, TimeUnit.NANOSECONDS)
+                    .handle((result, failure) -> failure != null
+                            ? CompletableFuture.<Void>failedFuture(inProgress())
+                            : result == null
+                            ? CompletableFuture.supplyAsync(() -> runAsync(idempotencyKey, request, posting), retryExecutor)
+                            .thenCompose(Function.identity())
+                            : replay(result))
+                    .thenCompose(Function.identity());
+        }
+        return replay(outcome);
+    }
+
+    @PreDestroy
+    public void stop() {
+        retryExecutor.shutdown();
+    }
+
+    /**
+     * Waits for another attempt's outcome, for at most the wait time.
+     *
+     * @return the outcome, or {@code null} if the attempt failed unexpectedly and was forgotten
+     */
+    private Object await(Pending pending) {
+        try {
+            return pending.result.get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException e) {
+            // Never thrown: attempts complete their result normally, with null for an unexpected failure
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static RetryLaterException inProgress() {
+        return new RetryLaterException(HEADER, Messages.forField(HEADER, Messages.IDEMPOTENCY_KEY_IN_PROGRESS));
+    }
+
+    private static CompletableFuture<Void> replay(Object outcome) {
+        if (outcome == MISMATCHED) {
+            return CompletableFuture.failedFuture(ExceptionList.of(HEADER, Messages.forField(HEADER, Messages.IDEMPOTENCY_KEY_REUSED)));
+        }
+        if (outcome instanceof ExceptionList exceptionList) {
+            return CompletableFuture.failedFuture(exceptionList);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static CompletableFuture<Void> executeAsync(Segment segment, Pending mine,
+                                                        Supplier<CompletableFuture<Void>> posting) {
+        CompletableFuture<Void> result;
+        try {
+            result = posting.get();
+        } catch (RuntimeException | Error e) {
+            segment.complete(mine, e instanceof ExceptionList ? e : null);
+            throw e;
+        }
+        return result.whenComplete((ignored, failure) -> {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            if (cause == null) {
+                segment.complete(mine, SUCCEEDED);
+            } else {
+                segment.complete(mine, cause instanceof ExceptionList ? cause : null);
+            }
+        });
+    }
+
+    private static void execute(Segment segment, Pending mine, Runnable posting) {
+        try {
+            posting.run();
+        } catch (ExceptionList e) {
+            segment.complete(mine, e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            segment.complete(mine, null);
+            throw e;
+        }
+        segment.complete(mine, SUCCEEDED);
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's characters, finished with a MurmurHash3 mix so every bit depends on every
+     * character. Two seeds give two independent halves of a 128-bit hash.
+     */
+    private static long hash(String key, long seed) {
+        return mix(feed(seed, key));
+    }
+
+    /**
+     * Like {@link #hash}, over the request's class name and then each record component's text, each preceded by
+     * its length ({@code -1} for {@code null}) so that no two different requests feed the same characters.
+     */
+    private static long fingerprint(Object request, long seed) {
+        long hash = feed(seed, request.getClass().getName());
+        for (Method accessor : COMPONENTS.get(request.getClass())) {
+            Object value;
+            try {
+                value = accessor.invoke(request);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalArgumentException("Cannot read " + accessor.getName() + " of "
+                        + request.getClass().getName() + ".", e);
+            }
+            String text = value == null ? null : value.toString();
+            hash = (hash ^ (text == null ? -1 : text.length())) * 0x100000001B3L;
+            if (text != null) {
+                hash = feed(hash, text);
+            }
+        }
+        return mix(hash);
+    }
+
+    private static long feed(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * An attempt in progress, which retries of the same key wait for.
+     */
+    private static final class Pending {
+        final long hash;
+        final long check;
+        /** Completes with the outcome, or {@code null} if the attempt failed unexpectedly. */
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        Generation generation;
+
+        Pending(long hash, long check) {
+            this.hash = hash;
+            this.check = check;
+        }
+    }
+
+    private static final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int generationCapacity;
+        private Generation current;
+        private Generation previous;
+
+        Segment(int generationCapacity) {
+            this.generationCapacity = generationCapacity;
+        }
+
+        /**
+         * Looks the key up, claiming it for {@code mine} if it is new or was forgotten.
+         *
+         * @return {@code mine} if the caller must run the posting; otherwise the outcome, another attempt's
+         * {@link Pending}, or {@link #MISMATCHED}
+         */
+        Object claim(long hash, long check, long fingerprint, long fingerprintCheck, Pending mine, long now,
+                     long retention) {
+            lock.lock();
+            try {
+                if (current == null || now - current.startedAt >= 2 * retention) {
+                    previous = null;
+                    current = new Generation(now);
+                } else if (now - current.startedAt >= retention) {
+                    previous = current;
+                    current = new Generation(now);
+                }
+                Generation generation = current;
+                int slot = generation.find(hash, check);
+                if (slot < 0 && previous != null) {
+                    generation = previous;
+                    slot = generation.find(hash, check);
+                }
+                if (slot >= 0) {
+                    Object outcome = generation.outcomes[slot];
+                    if (outcome != null) {
+                        return generation.fingerprints[slot * 2] == fingerprint
+                                && generation.fingerprints[slot * 2 + 1] == fingerprintCheck ? outcome : MISMATCHED;
+                    }
+                    // A forgotten key is free for any request
+                    generation.fingerprints[slot * 2] = fingerprint;
+                    generation.fingerprints[slot * 2 + 1] = fingerprintCheck;
+                    generation.outcomes[slot] = mine;
+                    mine.generation = generation;
+                    return mine;
+                }
+                if (current.size >= generationCapacity) {
+                    previous = current;
+                    current = new Generation(now);
+                }
+                current.insert(hash, check, fingerprint, fingerprintCheck, mine);
+                mine.generation = current;
+                return mine;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Records the outcome of a claimed attempt, or forgets the key if the outcome is {@code null}, and wakes
+         * any retries waiting for it. The generation may have been dropped meanwhile, which only means the outcome
+         * is not kept.
+         */
+        void complete(Pending pending, Object outcome) {
+            lock.lock();
+            try {
+                Generation generation = pending.generation;
+                int slot = generation.find(pending.hash, pending.check);
+                if (slot >= 0 && generation.outcomes[slot] == pending) {
+                    generation.outcomes[slot] = outcome;
+                }
+            } finally {
+                lock.unlock();
+            }
+            pending.result.complete(outcome);
+        }
+    }
+
+    /**
+     * Open-addressing table of keys, which only grows. A slot's key is two longs, both zero when the slot is empty,
+     * and so is its request fingerprint.
+     */
+    private static final class Generation {
+        final long startedAt;
+        long[] keys = new long[INITIAL_SLOTS * 2];
+        long[] fingerprints = new long[INITIAL_SLOTS * 2];
+        Object[] outcomes = new Object[INITIAL_SLOTS];
+        int size;
+
+        Generation(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        int find(long hash, long check) {
+            int mask = outcomes.length - 1;
+            for (int slot = (int) check & mask; ; slot = (slot + 1) & mask) {
+                long slotCheck = keys[slot * 2 + 1];
+                if (slotCheck == 0) {
+                    return -1;
+                }
+                if (slotCheck == check && keys[slot * 2] == hash) {
+                    return slot;
+                }
+            }
+        }
+
+        void insert(long hash, long check, long fingerprint, long fingerprintCheck, Object outcome) {
+            if ((size + 1) * 4L > outcomes.length * 3L) {
+                grow();
+            }
+            int mask = outcomes.length - 1;
+            int slot = (int) check & mask;
+            while (keys[slot * 2 + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot * 2] = hash;
+            keys[slot * 2 + 1] = check;
+            fingerprints[slot * 2] = fingerprint;
+            fingerprints[slot * 2 + 1] = fingerprintCheck;
+            outcomes[slot] = outcome;
+            size++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldFingerprints = fingerprints;
+            Object[] oldOutcomes = outcomes;
+            int slots = oldOutcomes.length * 2;
+            keys = new long[slots * 2];
+            fingerprints = new long[slots * 2];
+            outcomes = new Object[slots];
+            size = 0;
+            for (int slot = 0; slot < oldOutcomes.length; slot++) {
+                if (oldKeys[slot * 2 + 1] != 0) {
+                    insert(oldKeys[slot * 2], oldKeys[slot * 2 + 1], oldFingerprints[slot * 2],
+                            oldFingerprints[slot * 2 + 1], oldOutcomes[slot]);
+                }
+            }
+        }
+    }
+}
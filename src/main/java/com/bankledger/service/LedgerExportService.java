@@ -0,0 +1,174 @@
+package com.bankledger.service;
+
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.model.Account;
+import com.bankledger.model.ExportFormat;
+import com.bankledger.model.Money;
+import com.bankledger.model.Transaction;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.validation.ExportValidation;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+/**
+ * Streams every account or every journal entry as NDJSON or CSV, for reconciliation against other systems.
+ * <p>
+ * Rows are formatted one at a time into a fixed buffer that is written straight to the response, so an export holds
+ * the same memory however large the ledger is. Writes to the response block while the client is not reading, so a
+ * slow client slows the export down instead of making rows queue up in memory.
+ * <p>
+ * The journal only retains its most recent entries. Where entries were evicted before the export reached them, a
+ * {@code GAP} row takes their place, giving the first missing sequence number and how many entries are missing, so
+ * a copy is never silently incomplete.
+ */
+@Service
+public class LedgerExportService {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final String ACCOUNTS_CSV_HEADER = "accountNumber,balance";
+    private static final String TRANSACTIONS_CSV_HEADER = "sequence,accountNumber,type,amount,timestamp";
+    private static final String GAP = "GAP";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+
+    public LedgerExportService(AccountRepository accountRepository, TransactionRepository transactionRepository) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Validates the requested format before anything is streamed, while an error can still be a 400 response.
+     */
+    public ExportFormat parseFormat(String format) throws ExceptionList {
+        ExportFormat parsedFormat = ExportValidation.parseFormat(format);
+        String formatError = ExportValidation.checkFormat(parsedFormat, "format");
+        if (formatError != null) {
+            throw ExceptionList.of("format", formatError);
+        }
+        return parsedFormat;
+    }
+
+    /**
+     * Writes every account as of the moment the export starts, in creation order. Writers are not stopped.
+     *
+     * @return the number of accounts written
+     */
+    public long exportAccounts(ExportFormat format, OutputStream out) throws IOException {
+        try (AccountRepository.AccountExport accounts = accountRepository.openExport()) {
+            BiConsumer<StringBuilder, Account> formatter = format == ExportFormat.CSV
+                    ? LedgerExportService::appendAccountCsv
+                    : LedgerExportService::appendAccountJson;
+            Writer writer = open(format, ACCOUNTS_CSV_HEADER, out);
+            StringBuilder row = new StringBuilder(128);
+            long count = 0;
+            while (accounts.hasNext()) {
+                formatter.accept(row, accounts.next());
+                writeRow(writer, row);
+                count++;
+            }
+            writer.flush();
+            return count;
+        }
+    }
+
+    /**
+     * Writes every journal entry appended before the export starts, in sequence order, with a {@code GAP} row in
+     * place of each run of entries evicted before the export reached them. Entries appended later are left out.
+     *
+     * @return the number of entries written, not counting gap rows
+     */
+    public long exportTransactions(ExportFormat format, OutputStream out) throws IOException {
+        long end = transactionRepository.nextSequence();
+        Iterator<Transaction> transactions = transactionRepository.findAllBefore(end);
+        boolean csv = format == ExportFormat.CSV;
+        BiConsumer<StringBuilder, Transaction> formatter = csv
+                ? LedgerExportService::appendTransactionCsv
+                : LedgerExportService::appendTransactionJson;
+        Writer writer = open(format, TRANSACTIONS_CSV_HEADER, out);
+        StringBuilder row = new StringBuilder(128);
+        long count = 0;
+        long expected = 0;
+        while (transactions.hasNext()) {
+            Transaction transaction = transactions.next();
+            if (transaction.sequence() > expected) {
+                appendGap(row, csv, expected, transaction.sequence() - expected);
+                writeRow(writer, row);
+            }
+            formatter.accept(row, transaction);
+            writeRow(writer, row);
+            expected = transaction.sequence() + 1;
+            count++;
+        }
+        if (end > expected) {
+            appendGap(row, csv, expected, end - expected);
+            writeRow(writer, row);
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static Writer open(ExportFormat format, String csvHeader, OutputStream out) throws IOException {
+        // Every field is ASCII: digits, account numbers and enum names
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            writer.write(csvHeader);
+            writer.write('\n');
+        }
+        return writer;
+    }
+
+    private static void writeRow(Writer writer, StringBuilder row) throws IOException {
+        writer.append(row.append('\n'));
+        row.setLength(0);
+    }
+
+    private static void appendAccountJson(StringBuilder row, Account account) {
+        row.append("{\"accountNumber\":\"").append(account.accountNumber()).append("\",\"balance\":");
+        Money.append(row, account.balance()).append('}');
+    }
+
+    private static void appendAccountCsv(StringBuilder row, Account account) {
+        Money.append(row.append(account.accountNumber()).append(','), account.balance());
+    }
+
+    private static void appendTransactionJson(StringBuilder row, Transaction transaction) {
+        row.append("{\"sequence\":").append(transaction.sequence())
+                .append(",\"accountNumber\":\"").append(transaction.accountNumber())
+                .append("\",\"type\":\"").append(transaction.type().name())
+                .append("\",\"amount\":");
+        Money.append(row, transaction.amount())
+                .append(",\"timestamp\":").append(transaction.timestamp()).append('}');
+    }
+
+    /**
+     * A gap row names the first missing entry in its {@code sequence}, has {@code type} {@code GAP}, and in CSV
+     * carries the number of missing entries in the {@code amount} column.
+     */
+    private static void appendGap(StringBuilder row, boolean csv, long from, long missing) {
+        if (csv) {
+            row.append(from).append(",,").append(GAP).append(',').append(missing).append(',');
+        } else {
+            row.append("{\"sequence\":").append(from)
+                    .append(",\"type\":\"").append(GAP)
+                    .append("\",\"count\":").append(missing).append('}');
+        }
+    }
+
+    private static void appendTransactionCsv(StringBuilder row, Transaction transaction) {
+        row.append(transaction.sequence()).append(',')
+                .append(transaction.accountNumber()).append(',')
+                .append(transaction.type().name()).append(',');
+        Money.append(row, transaction.amount()).append(',').append(transaction.timestamp());
+    }
+}
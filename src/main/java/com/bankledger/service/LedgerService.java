@@ -1,109 +1,544 @@
 package com.bankledger.service;
 
+import com.bankledger.constants.Messages;
+import com.bankledger.dto.BatchItem;
+import com.bankledger.dto.BatchRequest;
+import com.bankledger.dto.BatchResponse;
 import com.bankledger.dto.CreateAccountRequest;
 import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.TransactionPage;
+import com.bankledger.dto.TransferRequest;
 import com.bankledger.dto.WithdrawRequest;
 import com.bankledger.exception.ExceptionList;
+import com.bankledger.metrics.LedgerMetrics;
+import com.bankledger.metrics.LedgerMetrics.Operation;
 import com.bankledger.model.Account;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.model.Money;
+import com.bankledger.model.PostingStatus;
+import com.bankledger.model.Transaction;
+import com.bankledger.model.TransactionType;
 import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
 import com.bankledger.validation.AccountValidation;
 import com.bankledger.validation.AmountValidation;
 import com.bankledger.validation.BalanceValidation;
+import com.bankledger.validation.InputValidation;
+import com.bankledger.validation.PageValidation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class LedgerService {
 
+    private static final int DEFAULT_MAX_BATCH_ITEMS = 100_000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_MAX_PAGE_SIZE = 1_000;
+
     private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerMetrics metrics;
+
+    @Value("${ledger.batch.max-items:" + DEFAULT_MAX_BATCH_ITEMS + "}")
+    private int maxBatchItems = DEFAULT_MAX_BATCH_ITEMS;
 
-    public LedgerService(AccountRepository accountRepository) {
+    @Value("${ledger.history.max-page-size:" + DEFAULT_MAX_PAGE_SIZE + "}")
+    private int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+
+    public LedgerService(AccountRepository accountRepository, TransactionRepository transactionRepository) {
+        this(accountRepository, transactionRepository, LedgerMetrics.disabled());
+    }
+
+    @Autowired
+    public LedgerService(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                         LedgerMetrics metrics) {
         this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.metrics = metrics;
     }
 
     public void createAccount(CreateAccountRequest request) throws ExceptionList {
+        long start = metrics.start();
+        try {
+            openAccount(request);
+        } catch (ExceptionList e) {
+            metrics.rejected(Operation.CREATE_ACCOUNT, start, e);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.CREATE_ACCOUNT, start);
+            throw e;
+        }
+        metrics.succeeded(Operation.CREATE_ACCOUNT, start);
+    }
+
+    private void openAccount(CreateAccountRequest request) throws ExceptionList {
         String accountNumber = request.accountNumber();
-        Map<String, List<String>> errors = new LinkedHashMap<>();
 
         // Validate account number
-        List<String> accountNumberErrors = AccountValidation.validateNewAccountNumber(accountNumber, accountRepository, "accountNumber");
-        errors.put("accountNumber", accountNumberErrors);
+        String accountNumberError = AccountValidation.checkNewAccountNumber(accountNumber, accountRepository, "accountNumber");
 
         // Check for any errors before proceeding
-        if (errors.values().stream().anyMatch(list -> !list.isEmpty())) {
-            throw new ExceptionList(errors);
+        if (accountNumberError != null) {
+            throw ExceptionList.of("accountNumber", accountNumberError);
+        }
+
+        // Create account; a concurrent create may have won the race since validation
+        if (!accountRepository.create(new Account(accountNumber))) {
+            throw ExceptionList.of("accountNumber", Messages.forField("accountNumber", Messages.ACCOUNT_NUMBER_EXISTS));
         }
+    }
 
-        // Create account
-        accountRepository.save(new Account(accountNumber));
+    /**
+     * Opens an account given as a packed account number, for callers that decoded it straight from a binary frame. A
+     * refused creation is reported by its status rather than thrown.
+     *
+     * @return {@link PostingStatus#OK}, or {@link PostingStatus#INVALID_ACCOUNT_NUMBER} or
+     * {@link PostingStatus#ACCOUNT_NUMBER_EXISTS}
+     */
+    public PostingStatus createAccount(int account) {
+        long start = metrics.start();
+        PostingStatus status;
+        try {
+            status = openAccount(account);
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.CREATE_ACCOUNT, start);
+            throw e;
+        }
+        record(Operation.CREATE_ACCOUNT, start, status);
+        return status;
+    }
+
+    private PostingStatus openAccount(int account) {
+        if (!AccountNumbers.isValid(account)) {
+            return PostingStatus.INVALID_ACCOUNT_NUMBER;
+        }
+        return accountRepository.create(new Account(AccountNumbers.format(account)))
+                ? PostingStatus.OK
+                : PostingStatus.ACCOUNT_NUMBER_EXISTS;
     }
 
     public Account getAccount(String accountNumber) throws ExceptionList {
-        Map<String, List<String>> errors = new LinkedHashMap<>();
+        long start = metrics.start();
+        Account result;
+        try {
+            result = readAccount(accountNumber);
+        } catch (ExceptionList e) {
+            metrics.rejected(Operation.GET_ACCOUNT, start, e);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.GET_ACCOUNT, start);
+            throw e;
+        }
+        metrics.succeeded(Operation.GET_ACCOUNT, start);
+        return result;
+    }
+
+    private Account readAccount(String accountNumber) throws ExceptionList {
+        // Look the account up once; the store returns a consistent balance and version without locking
+        Account account = AccountValidation.resolveAccount(accountNumber, accountRepository);
 
         // Validate account number
-        List<String> accountNumberErrors = AccountValidation.validateExistingAccountNumber(accountNumber, accountRepository, "accountNumber");
-        errors.put("accountNumber", accountNumberErrors);
+        String accountNumberError = AccountValidation.checkExistingAccount(accountNumber, account, "accountNumber");
+        if (accountNumberError != null) {
+            throw ExceptionList.of("accountNumber", accountNumberError);
+        }
+
+        return account;
+    }
+
+    /**
+     * Reads an account given as a packed account number like {@link #createAccount(int)}.
+     *
+     * @return the account, or {@code null} if the number is not valid or has no account
+     */
+    public Account findAccount(int account) {
+        long start = metrics.start();
+        Account result;
+        try {
+            result = AccountNumbers.isValid(account)
+                    ? accountRepository.findByAccountNumber(AccountNumbers.format(account))
+                    : null;
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.GET_ACCOUNT, start);
+            throw e;
+        }
+        if (result != null) {
+            metrics.succeeded(Operation.GET_ACCOUNT, start);
+        } else {
+            metrics.rejected(Operation.GET_ACCOUNT, start, AccountNumbers.isValid(account)
+                    ? PostingStatus.ACCOUNT_NOT_FOUND
+                    : PostingStatus.INVALID_ACCOUNT_NUMBER);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a page of the account's retained transactions, oldest first.
+     *
+     * @param after the {@link TransactionPage#after} cursor of the previous page, or {@code null} for the first page
+     * @param limit the page size, or {@code null} for the default
+     */
+    public TransactionPage getTransactions(String accountNumber, String after, String limit) throws ExceptionList {
+        long start = metrics.start();
+        TransactionPage result;
+        try {
+            result = readTransactions(accountNumber, after, limit);
+        } catch (ExceptionList e) {
+            metrics.rejected(Operation.GET_TRANSACTIONS, start, e);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.GET_TRANSACTIONS, start);
+            throw e;
+        }
+        metrics.succeeded(Operation.GET_TRANSACTIONS, start);
+        return result;
+    }
+
+    private TransactionPage readTransactions(String accountNumber, String after, String limit) throws ExceptionList {
+        Account account = AccountValidation.resolveAccount(accountNumber, accountRepository);
+        long parsedAfter = PageValidation.parseCursor(after);
+        long parsedLimit = PageValidation.parseLimit(limit, Math.min(DEFAULT_PAGE_SIZE, maxPageSize));
+
+        // Validate account number, cursor and page size
+        String accountNumberError = AccountValidation.checkExistingAccount(accountNumber, account, "accountNumber");
+        String afterError = PageValidation.checkCursor(parsedAfter, "after");
+        String limitError = PageValidation.checkLimit(parsedLimit, maxPageSize, "limit");
 
         // Check for any errors before proceeding
-        if (errors.values().stream().anyMatch(list -> !list.isEmpty())) {
-            throw new ExceptionList(errors);
+        if (accountNumberError != null || afterError != null || limitError != null) {
+            throw ExceptionList.of("accountNumber", accountNumberError, "after", afterError, "limit", limitError);
         }
 
-        // Get account
-        return accountRepository.findByAccountNumber(accountNumber);
+        // Read one transaction past the page to learn whether another page follows
+        int pageSize = (int) parsedLimit;
+        List<Transaction> transactions = transactionRepository.findByAccount(accountNumber, parsedAfter, pageSize + 1);
+        boolean hasMore = transactions.size() > pageSize;
+        if (hasMore) {
+            transactions = transactions.subList(0, pageSize);
+        }
+        long next = transactions.isEmpty() ? parsedAfter : transactions.get(transactions.size() - 1).sequence();
+        return new TransactionPage(transactions, next, hasMore);
     }
 
     public void deposit(DepositRequest request) throws ExceptionList {
+        long start = metrics.start();
+        try {
+            postDeposit(request);
+        } catch (ExceptionList e) {
+            metrics.rejected(Operation.DEPOSIT, start, e);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.DEPOSIT, start);
+            throw e;
+        }
+        metrics.succeeded(Operation.DEPOSIT, start);
+    }
+
+    private void postDeposit(DepositRequest request) throws ExceptionList {
         String accountNumber = request.accountNumber();
         String amount = request.amount();
-        Map<String, List<String>> errors = new LinkedHashMap<>();
 
-        // Validate account number
-        List<String> accountNumberErrors = AccountValidation.validateExistingAccountNumber(accountNumber, accountRepository, "accountNumber");
-        errors.put("accountNumber", accountNumberErrors);
+        // Resolve the account and parse the amount once for every check and the update
+        Account account = AccountValidation.resolveAccount(accountNumber, accountRepository);
+        long parsedAmount = AmountValidation.parseAmount(amount);
 
-        // Validate amount
-        List<String> amountErrors = AmountValidation.validateAmount(amount, "amount");
-        errors.put("amount", amountErrors);
+        // Validate account number and amount
+        String accountNumberError = AccountValidation.checkExistingAccount(accountNumber, account, "accountNumber");
+        String amountError = AmountValidation.checkAmount(amount, parsedAmount, "amount");
 
         // Check for any errors before proceeding
-        if (errors.values().stream().anyMatch(list -> !list.isEmpty())) {
-            throw new ExceptionList(errors);
+        if (accountNumberError != null || amountError != null) {
+            throw ExceptionList.of("accountNumber", accountNumberError, "amount", amountError);
         }
 
-        // Deposit amount
-        Account account = accountRepository.findByAccountNumber(accountNumber);
-        accountRepository.save(account.deposit(Double.parseDouble(amount)));
+        // Deposit amount and record it in the journal; the repository refuses a credit that would overflow the balance
+        if (accountRepository.deposit(AccountNumbers.parse(accountNumber), parsedAmount, transactionRepository) != PostingStatus.OK) {
+            throw ExceptionList.of("accountNumber", null, "amount", Messages.BALANCE_LIMIT_EXCEEDED);
+        }
     }
 
     public void withdraw(WithdrawRequest request) throws ExceptionList {
+        long start = metrics.start();
+        try {
+            postWithdrawal(request);
+        } catch (ExceptionList e) {
+            metrics.rejected(Operation.WITHDRAW, start, e);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.WITHDRAW, start);
+            throw e;
+        }
+        metrics.succeeded(Operation.WITHDRAW, start);
+    }
+
+    private void postWithdrawal(WithdrawRequest request) throws ExceptionList {
         String accountNumber = request.accountNumber();
         String amount = request.amount();
-        Map<String, List<String>> errors = new LinkedHashMap<>();
 
-        // Validate account number
-        List<String> accountNumberErrors = AccountValidation.validateExistingAccountNumber(accountNumber, accountRepository, "accountNumber");
-        errors.put("accountNumber", accountNumberErrors);
+        // Resolve the account and parse the amount once for every check and the update
+        Account account = AccountValidation.resolveAccount(accountNumber, accountRepository);
+        long parsedAmount = AmountValidation.parseAmount(amount);
+
+        // Validate account number, amount and sufficient balance
+        String accountNumberError = AccountValidation.checkExistingAccount(accountNumber, account, "accountNumber");
+        String amountError = AmountValidation.checkAmount(amount, parsedAmount, "amount");
+        if (amountError == null) {
+            amountError = BalanceValidation.checkSufficientBalance(account, parsedAmount);
+        }
+
+        // Check for any errors before proceeding
+        if (accountNumberError != null || amountError != null) {
+            throw ExceptionList.of("accountNumber", accountNumberError, "amount", amountError);
+        }
+
+        // Withdraw amount and record it in the journal; the balance is re-checked atomically in case a concurrent
+        // withdrawal got there first
+        if (accountRepository.withdraw(AccountNumbers.parse(accountNumber), parsedAmount, transactionRepository) != PostingStatus.OK) {
+            throw ExceptionList.of("accountNumber", null, "amount", Messages.INSUFFICIENT_BALANCE);
+        }
+    }
+
+    public void transfer(TransferRequest request) throws ExceptionList {
+        long start = metrics.start();
+        try {
+            postTransfer(request);
+        } catch (ExceptionList e) {
+            metrics.rejected(Operation.TRANSFER, start, e);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.TRANSFER, start);
+            throw e;
+        }
+        metrics.succeeded(Operation.TRANSFER, start);
+    }
 
-        // Validate amount
-        List<String> amountErrors = AmountValidation.validateAmount(amount, "amount");
-        errors.put("amount", amountErrors);
+    private void postTransfer(TransferRequest request) throws ExceptionList {
+        String fromAccountNumber = request.fromAccountNumber();
+        String toAccountNumber = request.toAccountNumber();
+        String amount = request.amount();
 
-        // Validate sufficient balance
-        List<String> balanceErrors = BalanceValidation.validateSufficientBalance(accountNumber, accountRepository, amount, "amount");
-        errors.put("amount", balanceErrors);
+        // Resolve both accounts and parse the amount once for every check and the update
+        Account fromAccount = AccountValidation.resolveAccount(fromAccountNumber, accountRepository);
+        Account toAccount = AccountValidation.resolveAccount(toAccountNumber, accountRepository);
+        long parsedAmount = AmountValidation.parseAmount(amount);
+
+        // Validate both account numbers, amount and sufficient balance
+        String fromAccountNumberError = AccountValidation.checkExistingAccount(fromAccountNumber, fromAccount, "fromAccountNumber");
+        String toAccountNumberError = AccountValidation.checkExistingAccount(toAccountNumber, toAccount, "toAccountNumber");
+        if (toAccountNumberError == null && toAccountNumber.equals(fromAccountNumber)) {
+            toAccountNumberError = Messages.forField("toAccountNumber", Messages.SAME_ACCOUNT_TRANSFER);
+        }
+        String amountError = AmountValidation.checkAmount(amount, parsedAmount, "amount");
+        if (amountError == null) {
+            amountError = BalanceValidation.checkSufficientBalance(fromAccount, parsedAmount);
+        }
 
         // Check for any errors before proceeding
-        if (errors.values().stream().anyMatch(list -> !list.isEmpty())) {
-            throw new ExceptionList(errors);
+        if (fromAccountNumberError != null || toAccountNumberError != null || amountError != null) {
+            throw ExceptionList.of("fromAccountNumber", fromAccountNumberError, "toAccountNumber", toAccountNumberError,
+                    "amount", amountError);
+        }
+
+        // Move the amount and record both sides in the journal; both balances are re-checked atomically in case a
+        // concurrent update got there first
+        PostingStatus status = accountRepository.transfer(AccountNumbers.parse(fromAccountNumber),
+                AccountNumbers.parse(toAccountNumber), parsedAmount, transactionRepository);
+        if (status != PostingStatus.OK) {
+            throw ExceptionList.of("fromAccountNumber", null, "toAccountNumber", null, "amount",
+                    status == PostingStatus.BALANCE_LIMIT_EXCEEDED ? Messages.BALANCE_LIMIT_EXCEEDED : Messages.INSUFFICIENT_BALANCE);
+        }
+    }
+
+    /**
+     * Credits an account given as a packed account number with an amount in cents, for callers that decoded both
+     * straight from a binary frame. A refused posting is reported by its status rather than thrown.
+     *
+     * @return {@link PostingStatus#OK}, or {@link PostingStatus#INVALID_ACCOUNT_NUMBER},
+     * {@link PostingStatus#INVALID_AMOUNT}, {@link PostingStatus#ACCOUNT_NOT_FOUND} or
+     * {@link PostingStatus#BALANCE_LIMIT_EXCEEDED}
+     */
+    public PostingStatus deposit(int account, long amount) {
+        long start = metrics.start();
+        PostingStatus status;
+        try {
+            status = postDeposit(account, amount);
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.DEPOSIT, start);
+            throw e;
+        }
+        record(Operation.DEPOSIT, start, status);
+        return status;
+    }
+
+    private PostingStatus postDeposit(int account, long amount) {
+        PostingStatus status = checkPosting(account, amount);
+        if (status == PostingStatus.OK) {
+            status = accountRepository.deposit(account, amount, transactionRepository);
+        }
+        return status;
+    }
+
+    /**
+     * Debits a packed account number like {@link #deposit(int, long)}.
+     *
+     * @return {@link PostingStatus#OK}, or {@link PostingStatus#INVALID_ACCOUNT_NUMBER},
+     * {@link PostingStatus#INVALID_AMOUNT}, {@link PostingStatus#ACCOUNT_NOT_FOUND} or
+     * {@link PostingStatus#INSUFFICIENT_BALANCE}
+     */
+    public PostingStatus withdraw(int account, long amount) {
+        long start = metrics.start();
+        PostingStatus status;
+        try {
+            status = postWithdrawal(account, amount);
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.WITHDRAW, start);
+            throw e;
+        }
+        record(Operation.WITHDRAW, start, status);
+        return status;
+    }
+
+    private PostingStatus postWithdrawal(int account, long amount) {
+        PostingStatus status = checkPosting(account, amount);
+        if (status == PostingStatus.OK) {
+            status = accountRepository.withdraw(account, amount, transactionRepository);
+        }
+        return status;
+    }
+
+    /**
+     * Moves an amount between packed account numbers like {@link #deposit(int, long)}.
+     *
+     * @return {@link PostingStatus#OK}, or {@link PostingStatus#INVALID_ACCOUNT_NUMBER},
+     * {@link PostingStatus#INVALID_AMOUNT}, {@link PostingStatus#SAME_ACCOUNT_TRANSFER},
+     * {@link PostingStatus#ACCOUNT_NOT_FOUND}, {@link PostingStatus#INSUFFICIENT_BALANCE} or
+     * {@link PostingStatus#BALANCE_LIMIT_EXCEEDED}
+     */
+    public PostingStatus transfer(int fromAccount, int toAccount, long amount) {
+        long start = metrics.start();
+        PostingStatus status;
+        try {
+            status = postTransfer(fromAccount, toAccount, amount);
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.TRANSFER, start);
+            throw e;
+        }
+        record(Operation.TRANSFER, start, status);
+        return status;
+    }
+
+    private PostingStatus postTransfer(int fromAccount, int toAccount, long amount) {
+        PostingStatus status = checkPosting(fromAccount, amount);
+        if (status == PostingStatus.OK && !AccountNumbers.isValid(toAccount)) {
+            status = PostingStatus.INVALID_ACCOUNT_NUMBER;
         }
+        if (status == PostingStatus.OK && fromAccount == toAccount) {
+            status = PostingStatus.SAME_ACCOUNT_TRANSFER;
+        }
+        if (status == PostingStatus.OK) {
+            status = accountRepository.transfer(fromAccount, toAccount, amount, transactionRepository);
+        }
+        return status;
+    }
+
+    private static PostingStatus checkPosting(int account, long amount) {
+        if (!AccountNumbers.isValid(account)) {
+            return PostingStatus.INVALID_ACCOUNT_NUMBER;
+        }
+        return amount > 0 ? PostingStatus.OK : PostingStatus.INVALID_AMOUNT;
+    }
+
+    private void record(Operation operation, long start, PostingStatus status) {
+        if (status == PostingStatus.OK) {
+            metrics.succeeded(operation, start);
+        } else {
+            metrics.rejected(operation, start, status);
+        }
+    }
+
+    public BatchResponse applyBatch(BatchRequest request) throws ExceptionList {
+        long start = metrics.start();
+        BatchResponse result;
+        try {
+            result = postBatch(request);
+        } catch (ExceptionList e) {
+            metrics.rejected(Operation.BATCH, start, e);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.failed(Operation.BATCH, start);
+            throw e;
+        }
+        metrics.succeeded(Operation.BATCH, start);
+        return result;
+    }
+
+    private BatchResponse postBatch(BatchRequest request) throws ExceptionList {
+        List<BatchItem> items = request.items();
+        boolean atomic = Boolean.TRUE.equals(request.atomic());
 
-        // Withdraw amount
-        Account account = accountRepository.findByAccountNumber(accountNumber);
-        accountRepository.save(account.withdraw(Double.parseDouble(amount)));
+        // Validate batch size
+        if (items == null) {
+            throw ExceptionList.of("items", Messages.forField("items", Messages.PARAMETER_NULL));
+        }
+        if (items.size() > maxBatchItems) {
+            throw ExceptionList.of("items", Messages.forField("items", Messages.BATCH_TOO_LARGE, maxBatchItems));
+        }
+
+        // Validate and parse every item up front; account existence and balances are checked while applying
+        int size = items.size();
+        int[] accounts = new int[size];
+        long[] amounts = new long[size];
+        PostingStatus[] statuses = new PostingStatus[size];
+        boolean valid = true;
+        for (int i = 0; i < size; i++) {
+            BatchItem item = items.get(i);
+            TransactionType type = item == null ? null : parseType(item.type());
+            int account = item == null ? AccountNumbers.INVALID : AccountNumbers.parse(item.accountNumber());
+            long amount = item == null ? Money.INVALID : AmountValidation.parseAmount(item.amount());
+            if (type == null) {
+                statuses[i] = PostingStatus.INVALID_TYPE;
+            } else if (InputValidation.checkAccountNumber(account, "accountNumber") != null) {
+                statuses[i] = PostingStatus.INVALID_ACCOUNT_NUMBER;
+            } else if (InputValidation.checkAmount(amount, "amount") != null) {
+                statuses[i] = PostingStatus.INVALID_AMOUNT;
+            } else {
+                statuses[i] = PostingStatus.OK;
+                accounts[i] = account;
+                amounts[i] = type == TransactionType.DEPOSIT ? amount : -amount;
+            }
+            valid &= statuses[i] == PostingStatus.OK;
+        }
+
+        // Apply the postings, grouped by account, and record the applied ones in the journal
+        int applied = 0;
+        if (valid || !atomic) {
+            applied = accountRepository.applyBatch(accounts, amounts, statuses, atomic, transactionRepository);
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (statuses[i] == PostingStatus.OK) {
+                    statuses[i] = PostingStatus.NOT_APPLIED;
+                }
+            }
+        }
+
+        // Build the status codes
+        int[] codes = new int[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = statuses[i].code();
+        }
+        return new BatchResponse(!atomic || applied == size, applied, codes);
+    }
+
+    private static TransactionType parseType(String type) {
+        if ("DEPOSIT".equals(type)) {
+            return TransactionType.DEPOSIT;
+        }
+        if ("WITHDRAWAL".equals(type)) {
+            return TransactionType.WITHDRAWAL;
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.bankledger.service;
+
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.model.Account;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.model.PostingStatus;
+import com.bankledger.model.WireFormat;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.validation.WireValidation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Applies commands encoded in the binary {@link WireFormat}, for clients that send too many for JSON.
+ * <p>
+ * Commands are decoded in place from the buffer they arrived in, with no request records and no amounts in text,
+ * and applied through the packed-account-number operations of {@link LedgerService}, so they are validated,
+ * journaled and measured like any other request. A refused command only sets its response frame's status; the
+ * other commands still apply. The write-ahead log is waited for once, after the last command, rather than once per
+ * command.
+ * <p>
+ * Commands always run on the calling thread, in either {@link com.bankledger.engine.LedgerEngine.Mode}.
+ */
+@Service
+public class WirePostingService {
+
+    private static final int DEFAULT_MAX_COMMANDS = 100_000;
+
+    private final LedgerService ledgerService;
+    private final WriteAheadLog writeAheadLog;
+
+    @Value("${ledger.batch.max-items:" + DEFAULT_MAX_COMMANDS + "}")
+    private int maxCommands = DEFAULT_MAX_COMMANDS;
+
+    public WirePostingService(LedgerService ledgerService, WriteAheadLog writeAheadLog) {
+        this.ledgerService = ledgerService;
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    /**
+     * Applies every command frame in {@code body} and waits until they are durable.
+     *
+     * @return one response frame per command
+     * @throws ExceptionList if the body is not a whole number of frames, or holds more than
+     *                       {@code ledger.batch.max-items}
+     */
+    public byte[] apply(byte[] body) throws ExceptionList {
+        String bodyError = WireValidation.checkCommands(body.length, maxCommands, "body");
+        if (bodyError != null) {
+            throw ExceptionList.of("body", bodyError);
+        }
+
+        byte[] reply = new byte[body.length / WireFormat.COMMAND_SIZE * WireFormat.RESPONSE_SIZE];
+        ByteBuffer commands = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer responses = ByteBuffer.wrap(reply).order(ByteOrder.LITTLE_ENDIAN);
+        writeAheadLog.awaitDurable(applyDeferred(commands, responses));
+        return reply;
+    }
+
+    /**
+     * Applies the whole command frames between the position and limit of {@code commands}, writing a response frame
+     * for each into {@code responses}, and stops early once {@code responses} is full. Both buffers must be
+     * little-endian; their positions are advanced past the frames handled. Nothing waits for the write-ahead log.
+     *
+     * @return the log position to wait for before the responses are sent, or 0 if there is none
+     */
+    public long applyDeferred(ByteBuffer commands, ByteBuffer responses) {
+        return writeAheadLog.applyDeferred(() -> {
+            while (commands.remaining() >= WireFormat.COMMAND_SIZE && responses.remaining() >= WireFormat.RESPONSE_SIZE) {
+                int offset = commands.position();
+                int opcode = commands.getInt(offset + WireFormat.OPCODE_OFFSET);
+                int account = commands.getInt(offset + WireFormat.ACCOUNT_OFFSET);
+                commands.position(offset + WireFormat.COMMAND_SIZE);
+                if (opcode == WireFormat.BALANCE) {
+                    writeBalance(account, responses);
+                } else {
+                    PostingStatus status = execute(opcode, account,
+                            commands.getLong(offset + WireFormat.AMOUNT_OFFSET),
+                            commands.getInt(offset + WireFormat.TO_ACCOUNT_OFFSET));
+                    responses.putInt(status.code()).putLong(0);
+                }
+            }
+        });
+    }
+
+    private PostingStatus execute(int opcode, int account, long amount, int toAccount) {
+        return switch (opcode) {
+            case WireFormat.DEPOSIT -> ledgerService.deposit(account, amount);
+            case WireFormat.WITHDRAW -> ledgerService.withdraw(account, amount);
+            case WireFormat.TRANSFER -> ledgerService.transfer(account, toAccount, amount);
+            case WireFormat.CREATE -> ledgerService.createAccount(account);
+            default -> PostingStatus.INVALID_TYPE;
+        };
+    }
+
+    private void writeBalance(int account, ByteBuffer responses) {
+        Account found = ledgerService.findAccount(account);
+        if (found != null) {
+            responses.putInt(PostingStatus.OK.code()).putLong(found.balance());
+        } else if (AccountNumbers.isValid(account)) {
+            responses.putInt(PostingStatus.ACCOUNT_NOT_FOUND.code()).putLong(0);
+        } else {
+            responses.putInt(PostingStatus.INVALID_ACCOUNT_NUMBER.code()).putLong(0);
+        }
+    }
+}
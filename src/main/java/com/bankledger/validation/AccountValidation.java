@@ -3,26 +3,33 @@ package com.bankledger.validation;
 import com.bankledger.model.Account;
 import com.bankledger.repository.AccountRepository;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class AccountValidation {
 
-    public static List<String> validateNewAccountNumber(String accountNumber, AccountRepository accountRepository, String fieldName) {
-        List<String> errors = new ArrayList<>(CommonValidation.validateNotNullAndNotBlank(accountNumber, fieldName));
-        if (errors.isEmpty()) {
-            errors.addAll(InputValidation.validateAccountNumber(accountNumber, fieldName));
-            errors.addAll(InputValidation.validateAccountNumberExists(accountRepository.findByAccountNumber(accountNumber) != null, fieldName));
+    public static String checkNewAccountNumber(String accountNumber, AccountRepository accountRepository, String fieldName) {
+        String error = CommonValidation.checkNotNullAndNotBlank(accountNumber, fieldName);
+        if (error == null) {
+            error = InputValidation.checkAccountNumber(accountNumber, fieldName);
+        }
+        if (error == null) {
+            error = InputValidation.checkAccountNumberExists(accountRepository.findByAccountNumber(accountNumber) != null, fieldName);
         }
-        return errors;
+        return error;
     }
 
-    public static List<String> validateExistingAccountNumber(String accountNumber, AccountRepository accountRepository, String fieldName) {
-        List<String> errors = new ArrayList<>(CommonValidation.validateNotNullAndNotBlank(accountNumber, fieldName));
-        if (errors.isEmpty()) {
-            Account account = accountRepository.findByAccountNumber(accountNumber);
-            errors.addAll(InputValidation.validateAccountNotFound(account != null, "accountNumber"));
+    /**
+     * Looks the account up once so the result can be shared by every check and by the update itself.
+     *
+     * @return the account, or {@code null} if the number is missing, blank or unknown
+     */
+    public static Account resolveAccount(String accountNumber, AccountRepository accountRepository) {
+        if (InputValidation.isBlank(accountNumber)) {
+            return null;
         }
-        return errors;
+        return accountRepository.findByAccountNumber(accountNumber);
+    }
+
+    public static String checkExistingAccount(String accountNumber, Account account, String fieldName) {
+        String error = CommonValidation.checkNotNullAndNotBlank(accountNumber, fieldName);
+        return error != null ? error : InputValidation.checkAccountNotFound(account != null, fieldName);
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,20 @@
 package com.bankledger.validation;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.bankledger.model.Money;
 
 public class AmountValidation {
 
-    public static List<String> validateAmount(String amount, String fieldName) {
-        List<String> errors = new ArrayList<>(CommonValidation.validateNotNullAndNotBlank(amount, fieldName));
-        if (errors.isEmpty()) {
-            errors.addAll(InputValidation.validateAmount(amount, "amount"));
-        }
-        return errors;
+    /**
+     * Parses the amount once for both validation and the balance update.
+     *
+     * @return the amount in cents, or {@link Money#INVALID} if the value is missing or not a valid amount
+     */
+    public static long parseAmount(String amount) {
+        return Money.parseCents(amount);
     }
-}
\ No newline at end of file
+
+    public static String checkAmount(String amount, long parsedAmount, String fieldName) {
+        String error = CommonValidation.checkNotNullAndNotBlank(amount, fieldName);
+        return error != null ? error : InputValidation.checkAmount(parsedAmount, fieldName);
+    }
+}
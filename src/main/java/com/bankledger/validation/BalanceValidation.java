@@ -1,26 +1,17 @@
 package com.bankledger.validation;
 
-import com.bankledger.repository.AccountRepository;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.bankledger.model.Account;
 
 public class BalanceValidation {
 
-    public static List<String> validateSufficientBalance(String accountNumber, AccountRepository accountRepository, String amount, String fieldName) {
-
-        // Validate amount using InputValidation
-        List<String> errors = new ArrayList<>(AmountValidation.validateAmount(amount, fieldName));
-        if (!errors.isEmpty()) {
-            return errors;
+    /**
+     * Checks the balance of an already resolved account. A missing account is reported by
+     * {@link AccountValidation#checkExistingAccount}, so it passes here.
+     */
+    public static String checkSufficientBalance(Account account, long amount) {
+        if (account == null) {
+            return null;
         }
-
-        // Retrieve the account and check balance
-        var account = accountRepository.findByAccountNumber(accountNumber);
-        if (account != null) {
-            errors.addAll(InputValidation.validateSufficientBalance(account.balance() >= Double.parseDouble(amount), "amount"));
-        }
-
-        return errors;
+        return InputValidation.checkSufficientBalance(account.balance() >= amount);
     }
-}
\ No newline at end of file
+}
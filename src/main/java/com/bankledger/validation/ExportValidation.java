@@ -0,0 +1,27 @@
+package com.bankledger.validation;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.model.ExportFormat;
+
+public class ExportValidation {
+
+    /**
+     * @return the format named by the value, ignoring case, {@link ExportFormat#NDJSON} if the value is missing, or
+     * {@code null} if it names no format
+     */
+    public static ExportFormat parseFormat(String format) {
+        if (format == null) {
+            return ExportFormat.NDJSON;
+        }
+        for (ExportFormat candidate : ExportFormat.values()) {
+            if (candidate.name().equalsIgnoreCase(format)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public static String checkFormat(ExportFormat parsedFormat, String fieldName) {
+        return parsedFormat != null ? null : Messages.forField(fieldName, Messages.EXPORT_FORMAT_INVALID);
+    }
+}
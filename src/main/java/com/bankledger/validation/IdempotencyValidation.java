@@ -0,0 +1,18 @@
+package com.bankledger.validation;
+
+import com.bankledger.constants.Messages;
+
+public class IdempotencyValidation {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String KEY_TOO_LONG = Messages.IDEMPOTENCY_KEY_TOO_LONG + MAX_KEY_LENGTH + " characters.";
+
+    public static String checkKey(String key, String fieldName) {
+        if (InputValidation.isBlank(key)) {
+            return Messages.forField(fieldName, Messages.PARAMETER_BLANK);
+        }
+        return key.length() <= MAX_KEY_LENGTH
+                ? null
+                : Messages.forField(fieldName, KEY_TOO_LONG);
+    }
+}
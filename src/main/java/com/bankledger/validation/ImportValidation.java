@@ -0,0 +1,37 @@
+package com.bankledger.validation;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.model.ImportFormat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ImportValidation {
+
+    /**
+     * @return the format named by the value, ignoring case, {@link ImportFormat#CSV} if the value is missing, or
+     * {@code null} if it names no format
+     */
+    public static ImportFormat parseFormat(String format) {
+        if (format == null) {
+            return ImportFormat.CSV;
+        }
+        for (ImportFormat candidate : ImportFormat.values()) {
+            if (candidate.name().equalsIgnoreCase(format)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public static String checkFormat(ImportFormat parsedFormat, String fieldName) {
+        return parsedFormat != null ? null : Messages.forField(fieldName, Messages.IMPORT_FORMAT_INVALID);
+    }
+
+    /**
+     * @param file the file resolved within the import directory, or {@code null} if the path led outside it
+     */
+    public static String checkPath(Path file, String fieldName) {
+        return file != null && Files.isRegularFile(file) ? null : Messages.forField(fieldName, Messages.IMPORT_PATH_INVALID);
+    }
+}
@@ -1,74 +1,63 @@
 package com.bankledger.validation;
 
 import com.bankledger.constants.Messages;
+import com.bankledger.model.AccountNumbers;
 
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Primitive field checks. Each check returns the error message for the field, or {@code null} when the value is
+ * valid, so the success path allocates nothing. Messages come from {@link Messages#forField}, so neither does the
+ * failure path once a field has been rejected for that reason before.
+ */
 public class InputValidation {
 
-    public static List<String> validateNotNull(String value, String fieldName) {
-        List<String> errors = new ArrayList<>();
-        if (value == null) {
-            errors.add(fieldName + Messages.PARAMETER_NULL);
-        }
-        return errors;
+    public static String checkNotNull(String value, String fieldName) {
+        return value == null ? Messages.forField(fieldName, Messages.PARAMETER_NULL) : null;
     }
 
-    public static List<String> validateNotBlank(String value, String fieldName) {
-        List<String> errors = new ArrayList<>();
-        if (value == null || value.trim().isEmpty()) {
-            errors.add(fieldName + Messages.PARAMETER_BLANK);
-        }
-        return errors;
+    public static String checkNotBlank(String value, String fieldName) {
+        return isBlank(value) ? Messages.forField(fieldName, Messages.PARAMETER_BLANK) : null;
     }
 
-    public static List<String> validateAmount(String value, String fieldName) {
-        List<String> errors = new ArrayList<>();
-        if (value != null && !value.trim().isEmpty()) {
-            try {
-                double amount = Double.parseDouble(value);
-                if (amount <= 0) {
-                    errors.add(fieldName + Messages.AMOUNT_INVALID);
-                }
-            } catch (NumberFormatException e) {
-                errors.add(fieldName + Messages.AMOUNT_INVALID);
-            }
-        }
-        return errors;
+    public static String checkAmount(long amount, String fieldName) {
+        // Money.INVALID is negative, so unparseable amounts fail the comparison as well
+        return amount > 0 ? null : Messages.forField(fieldName, Messages.AMOUNT_INVALID);
     }
 
-    public static List<String> validateAccountNumber(String value, String fieldName) {
-        List<String> errors = new ArrayList<>();
-        if (value != null && !value.trim().isEmpty()) {
-            if (!value.matches("\\d{9}")) {
-                errors.add(fieldName + Messages.INVALID_ACCOUNT_NUMBER);
-            }
-        }
-        return errors;
+    public static String checkAccountNumber(String value, String fieldName) {
+        return checkAccountNumber(AccountNumbers.parse(value), fieldName);
     }
 
-    public static List<String> validateAccountNumberExists(boolean exists, String fieldName) {
-        List<String> errors = new ArrayList<>();
-        if (exists) {
-            errors.add(fieldName + Messages.ACCOUNT_NUMBER_EXISTS);
-        }
-        return errors;
+    /**
+     * Checks an account number already packed by {@link AccountNumbers#parse}, so the key can be reused afterwards.
+     */
+    public static String checkAccountNumber(int packedAccountNumber, String fieldName) {
+        return packedAccountNumber != AccountNumbers.INVALID ? null : Messages.forField(fieldName, Messages.INVALID_ACCOUNT_NUMBER);
     }
 
-    public static List<String> validateAccountNotFound(boolean found, String fieldName) {
-        List<String> errors = new ArrayList<>();
-        if (!found) {
-            errors.add(fieldName + Messages.ACCOUNT_NOT_FOUND);
-        }
-        return errors;
+    public static String checkAccountNumberExists(boolean exists, String fieldName) {
+        return exists ? Messages.forField(fieldName, Messages.ACCOUNT_NUMBER_EXISTS) : null;
+    }
+
+    public static String checkAccountNotFound(boolean found, String fieldName) {
+        return found ? null : Messages.forField(fieldName, Messages.ACCOUNT_NOT_FOUND);
+    }
+
+    public static String checkSufficientBalance(boolean sufficient) {
+        return sufficient ? null : Messages.INSUFFICIENT_BALANCE;
     }
 
-    public static List<String> validateSufficientBalance(boolean sufficient, String fieldName) {
-        List<String> errors = new ArrayList<>();
-        if (!sufficient) {
-            errors.add(Messages.INSUFFICIENT_BALANCE);
+    /**
+     * Same result as {@code value.trim().isEmpty()} for a non-null value, without allocating the trimmed copy.
+     */
+    static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
         }
-        return errors;
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package com.bankledger.validation;
+
+import com.bankledger.constants.Messages;
+
+/**
+ * Parsing and checks for the cursor and size of a page of transactions.
+ */
+public class PageValidation {
+
+    /** Returned by the parsers for a value that is not a valid cursor or limit. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /** Cursor of the first page, before the first retained transaction. */
+    public static final long FIRST_PAGE = -1;
+
+    /**
+     * @return the sequence number the page starts after, {@link #FIRST_PAGE} if the value is missing, or
+     * {@link #INVALID}
+     */
+    public static long parseCursor(String after) {
+        return after == null ? FIRST_PAGE : parseNumber(after);
+    }
+
+    /**
+     * @return the page size, {@code defaultLimit} if the value is missing, or {@link #INVALID}
+     */
+    public static long parseLimit(String limit, int defaultLimit) {
+        return limit == null ? defaultLimit : parseNumber(limit);
+    }
+
+    public static String checkCursor(long parsedCursor, String fieldName) {
+        return parsedCursor != INVALID ? null : Messages.forField(fieldName, Messages.TRANSACTION_CURSOR_INVALID);
+    }
+
+    public static String checkLimit(long parsedLimit, int maxLimit, String fieldName) {
+        return parsedLimit >= 1 && parsedLimit <= maxLimit
+                ? null
+                : Messages.forField(fieldName, Messages.PAGE_LIMIT_INVALID, maxLimit);
+    }
+
+    /**
+     * Parses a non-negative decimal number without allocating.
+     */
+    private static long parseNumber(String value) {
+        int length = value.length();
+        // 18 digits always fit in a long
+        if (length == 0 || length > 18) {
+            return INVALID;
+        }
+        long number = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            number = number * 10 + digit;
+        }
+        return number;
+    }
+}
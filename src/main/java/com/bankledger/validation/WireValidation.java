@@ -0,0 +1,19 @@
+package com.bankledger.validation;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.model.WireFormat;
+
+public class WireValidation {
+
+    /**
+     * Checks that a request body holds whole command frames, and no more of them than allowed.
+     */
+    public static String checkCommands(int length, int maxCommands, String fieldName) {
+        if (length % WireFormat.COMMAND_SIZE != 0) {
+            return Messages.forField(fieldName, Messages.COMMAND_FRAMES_INVALID);
+        }
+        return length / WireFormat.COMMAND_SIZE <= maxCommands
+                ? null
+                : Messages.forField(fieldName, Messages.BATCH_TOO_LARGE, maxCommands);
+    }
+}
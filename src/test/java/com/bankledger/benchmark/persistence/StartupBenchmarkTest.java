@@ -0,0 +1,83 @@
+package com.bankledger.benchmark.persistence;
+
+import com.bankledger.model.Account;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.persistence.FsyncPolicy;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures how long the account store takes to recover from a snapshot plus a log tail.
+ * <p>
+ * Run with {@code ./gradlew benchmark -Dbenchmark.accounts=10000000 -Dbenchmark.tail=1000000}.
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 1_000_000);
+    private static final int TAIL = Integer.getInteger("benchmark.tail", 100_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void benchmarkRecoverFromSnapshotAndLogTail() {
+        SnapshotStore snapshotStore = new SnapshotStore(true, directory.resolve("snapshots"));
+        Path logPath = directory.resolve("ledger.wal");
+
+        long start = System.nanoTime();
+        snapshotStore.write(0, generatedAccounts());
+        report("write snapshot", ACCOUNTS, start);
+
+        // Append a log tail on top of the snapshot
+        WriteAheadLog writeAheadLog = new WriteAheadLog(true, logPath, FsyncPolicy.OS, 1, 64 << 20);
+        AccountRepository accountRepository = new AccountRepository(writeAheadLog, snapshotStore);
+        start = System.nanoTime();
+        accountRepository.recover();
+        report("recover from snapshot only", ACCOUNTS, start);
+        for (int i = 0; i < TAIL; i++) {
+            accountRepository.deposit(AccountNumbers.format(i % ACCOUNTS), 1);
+        }
+        writeAheadLog.close();
+        accountRepository = null;
+        System.gc();
+
+        AccountRepository recovered = new AccountRepository(new WriteAheadLog(true, logPath, FsyncPolicy.OS, 1, 64 << 20), snapshotStore);
+        start = System.nanoTime();
+        recovered.recover();
+        report("recover from snapshot and log tail", ACCOUNTS + TAIL, start);
+
+        long expectedDeposits = TAIL / ACCOUNTS + (TAIL % ACCOUNTS > 0 ? 1 : 0);
+        assertEquals(100 + expectedDeposits, recovered.findByAccountNumber(AccountNumbers.format(0)).balance());
+    }
+
+    private static Iterable<Account> generatedAccounts() {
+        return () -> new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < ACCOUNTS;
+            }
+
+            @Override
+            public Account next() {
+                return new Account(AccountNumbers.format(next++), 100, 0);
+            }
+        };
+    }
+
+    private static void report(String phase, long operations, long startNanos) {
+        double millis = (System.nanoTime() - startNanos) / 1e6;
+        System.out.printf("%-40s %,12d items %,10.1f ms %,14.0f items/s%n", phase, operations, millis, operations / (millis / 1e3));
+    }
+}
@@ -0,0 +1,91 @@
+package com.bankledger.benchmark.repository;
+
+import com.bankledger.model.Account;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.BalanceStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the heap held per account, and allocated per deposit, by {@link AccountRepository} on the heap and
+ * off-heap balance stores with a {@code ConcurrentHashMap<String, Account>} of immutable records, the layout the
+ * primitive index replaced.
+ * <p>
+ * Run with {@code ./gradlew benchmark --tests '*HeapFootprintBenchmarkTest' -Dbenchmark.accounts=10000000}.
+ */
+@Tag("benchmark")
+class HeapFootprintBenchmarkTest {
+
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 1_000_000);
+    private static final int DEPOSITS = Integer.getInteger("benchmark.deposits", 10_000_000);
+
+    @Test
+    void benchmarkHeapPerAccount() {
+        long baseline = usedHeap();
+        Map<String, Account> records = new ConcurrentHashMap<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String accountNumber = AccountNumbers.format(i);
+            records.put(accountNumber, new Account(accountNumber, 100));
+        }
+        long recordBytes = usedHeap() - baseline;
+        long recordAllocation = allocatedBytes();
+        for (int i = 0; i < DEPOSITS; i++) {
+            records.compute(AccountNumbers.format(i % ACCOUNTS), (n, account) -> account.deposit(1));
+        }
+        recordAllocation = allocatedBytes() - recordAllocation;
+        assertEquals(ACCOUNTS, records.size());
+        records = null;
+
+        System.out.printf("%,d accounts, %,d deposits%n", ACCOUNTS, DEPOSITS);
+        System.out.printf("map of records     : %6.1f bytes/account  %6.1f bytes/deposit (including the key string)%n",
+                (double) recordBytes / ACCOUNTS, (double) recordAllocation / DEPOSITS);
+        for (BalanceStore.Type type : new BalanceStore.Type[]{BalanceStore.Type.HEAP, BalanceStore.Type.OFF_HEAP}) {
+            measureRepository(type);
+        }
+    }
+
+    private static void measureRepository(BalanceStore.Type type) {
+        long baseline = usedHeap();
+        AccountRepository accountRepository = new AccountRepository(WriteAheadLog.disabled(), SnapshotStore.disabled(),
+                BalanceStore.open(type, null));
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountRepository.create(new Account(AccountNumbers.format(i), 100));
+        }
+        long repositoryBytes = usedHeap() - baseline;
+        String[] accountNumbers = new String[Math.min(ACCOUNTS, 1 << 16)];
+        for (int i = 0; i < accountNumbers.length; i++) {
+            accountNumbers[i] = AccountNumbers.format(i);
+        }
+        long repositoryAllocation = allocatedBytes();
+        for (int i = 0; i < DEPOSITS; i++) {
+            accountRepository.deposit(accountNumbers[i % accountNumbers.length], 1);
+        }
+        repositoryAllocation = allocatedBytes() - repositoryAllocation;
+        assertEquals(100 + DEPOSITS / accountNumbers.length, accountRepository.findByAccountNumber(accountNumbers[accountNumbers.length - 1]).balance());
+
+        System.out.printf("%-19s: %6.1f bytes/account  %6.1f bytes/deposit (heap only)%n", "repository " + type,
+                (double) repositoryBytes / ACCOUNTS, (double) repositoryAllocation / DEPOSITS);
+        accountRepository.close();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
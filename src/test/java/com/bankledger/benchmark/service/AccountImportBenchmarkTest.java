@@ -0,0 +1,73 @@
+package com.bankledger.benchmark.service;
+
+import com.bankledger.dto.ImportResponse;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.persistence.FsyncPolicy;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.service.AccountImportService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures how long a bulk import of accounts with opening balances takes, from a file through to the logged store.
+ * <p>
+ * Run with {@code ./gradlew benchmark -Dbenchmark.accounts=1000000}.
+ */
+@Tag("benchmark")
+class AccountImportBenchmarkTest {
+
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 1_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void benchmarkImportCsv() throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("accounts.csv"))) {
+            writer.write("accountNumber,balance\n");
+            for (int i = 0; i < ACCOUNTS; i++) {
+                writer.write(AccountNumbers.format(i * 7));
+                writer.write(",1234.56\n");
+            }
+        }
+        runImport("csv", "accounts.csv");
+    }
+
+    @Test
+    void benchmarkImportBinary() throws Exception {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve("accounts.bin"))))) {
+            for (int i = 0; i < ACCOUNTS; i++) {
+                out.writeInt(i * 7);
+                out.writeLong(123_456);
+            }
+        }
+        runImport("binary", "accounts.bin");
+    }
+
+    private void runImport(String format, String file) {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(true, directory.resolve("ledger.wal"), FsyncPolicy.GROUP, 2, 64 << 20);
+        AccountRepository accountRepository = new AccountRepository(writeAheadLog, SnapshotStore.disabled());
+        accountRepository.recover();
+        AccountImportService accountImportService = new AccountImportService(accountRepository, directory);
+
+        long start = System.nanoTime();
+        ImportResponse response = accountImportService.importAccounts(format, file, null);
+        double millis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-40s %,12d items %,10.1f ms %,14.0f items/s%n", "import " + format, response.imported(), millis, response.imported() / (millis / 1e3));
+        writeAheadLog.close();
+
+        assertEquals(ACCOUNTS, response.imported());
+        assertEquals(123_456, accountRepository.findByAccountNumber(AccountNumbers.format(7)).balance());
+    }
+}
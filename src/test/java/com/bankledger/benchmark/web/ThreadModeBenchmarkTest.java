@@ -0,0 +1,123 @@
+package com.bankledger.benchmark.web;
+
+import com.bankledger.Application;
+import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.service.LedgerService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares request handling on Tomcat's platform thread pool with virtual threads under many concurrent
+ * connections, with the write-ahead log in group commit mode so every deposit blocks until it is durable.
+ * <p>
+ * Each connection sends its deposits back to back, so the number of requests in flight equals the number of
+ * connections. Virtual threads need Java 21; on older runtimes only the platform mode is measured.
+ * <p>
+ * Run with {@code ./gradlew benchmark --tests '*ThreadModeBenchmarkTest' -Dbenchmark.connections=10000}. The client
+ * and the server share one process, so both ends of every connection count against the open file limit.
+ */
+@Tag("benchmark")
+class ThreadModeBenchmarkTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 10_000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 20);
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 1_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void benchmarkPlatformVersusVirtualThreads() throws Exception {
+        System.out.printf("%d connections x %d deposits over %d accounts%n", CONNECTIONS, REQUESTS, ACCOUNTS);
+        run(false);
+        if (Runtime.version().feature() < 21) {
+            System.out.printf("virtual : skipped, needs Java 21 (running %s)%n", Runtime.version());
+            return;
+        }
+        run(true);
+    }
+
+    private void run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class).run(
+                "--server.port=0",
+                "--ledger.wire.enabled=false",
+                "--server.tomcat.max-connections=" + (CONNECTIONS + 1_000),
+                "--server.tomcat.accept-count=" + CONNECTIONS,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--ledger.wal.path=" + directory.resolve(mode + ".wal"),
+                "--ledger.snapshot.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        try {
+            LedgerService ledgerService = context.getBean(LedgerService.class);
+            for (int i = 0; i < ACCOUNTS; i++) {
+                ledgerService.createAccount(new CreateAccountRequest(AccountNumbers.format(i)));
+            }
+            URI uri = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/ledger/deposit");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofMinutes(1)).build();
+
+            long[] latencies = new long[CONNECTIONS * REQUESTS];
+            AtomicInteger failures = new AtomicInteger();
+            long start = System.nanoTime();
+            CompletableFuture<?>[] connections = new CompletableFuture<?>[CONNECTIONS];
+            for (int c = 0; c < CONNECTIONS; c++) {
+                connections[c] = send(client, uri, c * REQUESTS, (c + 1) * REQUESTS, latencies, failures);
+            }
+            CompletableFuture.allOf(connections).join();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            System.out.printf("%-8s: %,10.0f req/s  p50 %7.2f ms  p99 %8.2f ms  max %8.2f ms  failures %d%n", mode,
+                    latencies.length / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    latencies[latencies.length - 1] / 1e6, failures.get());
+            assertEquals(0, failures.get());
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Sends the deposits {@code [next, end)} one after another, recording the latency of each.
+     */
+    private static CompletableFuture<?> send(HttpClient client, URI uri, int next, int end, long[] latencies, AtomicInteger failures) {
+        if (next == end) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String body = "{\"accountNumber\":\"" + AccountNumbers.format(ThreadLocalRandom.current().nextInt(ACCOUNTS)) + "\",\"amount\":\"1.00\"}";
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).handle((response, error) -> {
+            latencies[next] = System.nanoTime() - start;
+            if (error != null || response.statusCode() != 200) {
+                failures.incrementAndGet();
+            }
+            return null;
+        }).thenCompose(ignored -> send(client, uri, next + 1, end, latencies, failures));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * sorted.length))] / 1e6;
+    }
+}
@@ -0,0 +1,146 @@
+package com.bankledger.benchmark.web;
+
+import com.bankledger.Application;
+import com.bankledger.model.PostingStatus;
+import com.bankledger.model.WireFormat;
+import com.bankledger.server.WireServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the {@link WireServer} of a running application with a few persistent connections, each writing deposits
+ * back to back in chunks while another thread reads the responses, with the write-ahead log in group commit mode.
+ * <p>
+ * Run with {@code ./gradlew benchmark --tests '*WireServerBenchmarkTest' -Dbenchmark.wire-connections=4}. The
+ * client and the server share one process, so on a small machine they compete for the same cores.
+ */
+@Tag("benchmark")
+class WireServerBenchmarkTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.wire-connections", 4);
+    private static final int REQUESTS = Integer.getInteger("benchmark.wire-requests", 2_000_000);
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 1_000);
+    /** Commands written per socket write. */
+    private static final int CHUNK = 1_024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void benchmarkPipelinedDeposits() throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class).run(
+                "--server.port=0",
+                "--ledger.wire.enabled=true",
+                "--ledger.wire.port=0",
+                "--ledger.wal.path=" + directory.resolve("ledger.wal"),
+                "--ledger.snapshot.enabled=false",
+                "--ledger.metrics.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1", context.getBean(WireServer.class).port());
+            try (SocketChannel channel = SocketChannel.open(address)) {
+                ByteBuffer commands = ByteBuffer.allocate(ACCOUNTS * WireFormat.COMMAND_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    commands.putInt(WireFormat.CREATE).putInt(i).putLong(0).putInt(0);
+                }
+                assertEquals(ACCOUNTS, send(channel, commands.flip(), ACCOUNTS, executor));
+            }
+
+            int perConnection = REQUESTS / CONNECTIONS;
+            System.out.printf("%d connections x %d deposits over %d accounts%n", CONNECTIONS, perConnection, ACCOUNTS);
+            long start = System.nanoTime();
+            CompletableFuture<?>[] connections = new CompletableFuture<?>[CONNECTIONS];
+            for (int c = 0; c < CONNECTIONS; c++) {
+                connections[c] = CompletableFuture.supplyAsync(() -> {
+                    try (SocketChannel channel = SocketChannel.open(address)) {
+                        return send(channel, null, perConnection, executor);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }, executor);
+            }
+            long succeeded = 0;
+            for (CompletableFuture<?> connection : connections) {
+                succeeded += (Integer) connection.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("wire    : %,10.0f ops/s%n", perConnection * CONNECTIONS / seconds);
+            assertEquals((long) perConnection * CONNECTIONS, succeeded);
+        } finally {
+            executor.shutdownNow();
+            context.close();
+        }
+    }
+
+    /**
+     * Writes {@code commands}, or {@code count} deposits to random accounts if it is {@code null}, while reading
+     * the responses on another thread.
+     *
+     * @return the number of commands that succeeded
+     */
+    private static int send(SocketChannel channel, ByteBuffer commands, int count, ExecutorService executor) throws IOException {
+        CompletableFuture<Integer> reader = CompletableFuture.supplyAsync(() -> {
+            ByteBuffer responses = ByteBuffer.allocate(CHUNK * WireFormat.RESPONSE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            int received = 0;
+            int succeeded = 0;
+            try {
+                while (received < count) {
+                    if (channel.read(responses) < 0) {
+                        throw new IOException("Connection closed after " + received + " responses");
+                    }
+                    responses.flip();
+                    while (responses.remaining() >= WireFormat.RESPONSE_SIZE) {
+                        if (responses.getInt() == PostingStatus.OK.code()) {
+                            succeeded++;
+                        }
+                        responses.getLong();
+                        received++;
+                    }
+                    responses.compact();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return succeeded;
+        }, executor);
+
+        if (commands != null) {
+            while (commands.hasRemaining()) {
+                channel.write(commands);
+            }
+        } else {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK * WireFormat.COMMAND_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int sent = 0; sent < count; ) {
+                chunk.clear();
+                for (int end = Math.min(count, sent + CHUNK); sent < end; sent++) {
+                    chunk.putInt(WireFormat.DEPOSIT).putInt(random.nextInt(ACCOUNTS)).putLong(100).putInt(0);
+                }
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+        }
+        return reader.join();
+    }
+}
@@ -1,8 +1,21 @@
 package com.bankledger.unit.controller;
 
 import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.ImportResponse;
+import com.bankledger.dto.TransactionPage;
+import com.bankledger.engine.Completion;
+import com.bankledger.engine.LedgerEngine;
 import com.bankledger.model.Account;
+import com.bankledger.model.ExportFormat;
+import com.bankledger.model.Transaction;
+import com.bankledger.model.TransactionType;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.service.AccountImportService;
+import com.bankledger.service.IdempotencyService;
+import com.bankledger.service.LedgerExportService;
 import com.bankledger.service.LedgerService;
+import com.bankledger.service.WirePostingService;
 import com.bankledger.controller.LedgerController;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -11,6 +24,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,6 +46,21 @@ class LedgerControllerTest {
     @Mock
     private LedgerService ledgerService;
 
+    @Mock
+    private LedgerExportService ledgerExportService;
+
+    @Mock
+    private AccountImportService accountImportService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private WirePostingService wirePostingService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -177,14 +214,46 @@ class LedgerControllerTest {
         when(ledgerService.getAccount(accountNumber)).thenReturn(account);
 
         // Act
-        ResponseEntity<?> response = ledgerController.getAccount(accountNumber);
+        ResponseEntity<?> response = ledgerController.getAccount(accountNumber, null);
 
         // Assert
         assertEquals(200, response.getStatusCode().value());
         assertEquals(account, response.getBody());
+        assertEquals("\"0\"", response.getHeaders().getETag());
         verify(ledgerService, times(1)).getAccount(accountNumber);
     }
 
+    @Test
+    void testGetAccount_NotModifiedWhenETagMatches() {
+        // Arrange
+        String accountNumber = "123456789";
+        when(ledgerService.getAccount(accountNumber)).thenReturn(new Account(accountNumber, 500, 7));
+
+        // Act
+        ResponseEntity<?> response = ledgerController.getAccount(accountNumber, "\"6\", W/\"7\"");
+
+        // Assert
+        assertEquals(304, response.getStatusCode().value());
+        assertNull(response.getBody());
+        assertEquals("\"7\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetAccount_ReturnsBodyWhenETagIsStale() {
+        // Arrange
+        String accountNumber = "123456789";
+        Account account = new Account(accountNumber, 500, 17);
+        when(ledgerService.getAccount(accountNumber)).thenReturn(account);
+
+        // Act
+        ResponseEntity<?> response = ledgerController.getAccount(accountNumber, "\"1\"");
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(account, response.getBody());
+        assertEquals("\"17\"", response.getHeaders().getETag());
+    }
+
     @Test
     void testGetAccount_Failure_NotFound() {
         // Arrange
@@ -192,11 +261,126 @@ class LedgerControllerTest {
         when(ledgerService.getAccount(accountNumber)).thenReturn(null);
 
         // Act
-        ResponseEntity<?> response = ledgerController.getAccount(accountNumber);
+        ResponseEntity<?> response = ledgerController.getAccount(accountNumber, null);
 
         // Assert
         assertEquals(404, response.getStatusCode().value());
         assertEquals("Account not found.", response.getBody());
         verify(ledgerService, times(1)).getAccount(accountNumber);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetTransactions_Success() {
+        // Arrange
+        String accountNumber = "123456789";
+        TransactionPage page = new TransactionPage(
+                List.of(new Transaction(4, accountNumber, TransactionType.DEPOSIT, 100, 0)), 4, false);
+        when(ledgerService.getTransactions(accountNumber, "3", "10")).thenReturn(page);
+
+        // Act
+        ResponseEntity<TransactionPage> response = ledgerController.getTransactions(accountNumber, "3", "10");
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(page, response.getBody());
+        verify(ledgerService, times(1)).getTransactions(accountNumber, "3", "10");
+    }
+
+    @Test
+    void testExportAccounts_StreamsInRequestedFormat() throws Exception {
+        // Arrange
+        when(ledgerExportService.parseFormat("csv")).thenReturn(ExportFormat.CSV);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = ledgerController.exportAccounts("csv");
+        response.getBody().writeTo(out);
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("text/csv", response.getHeaders().getContentType().toString());
+        verify(ledgerExportService, times(1)).exportAccounts(ExportFormat.CSV, out);
+    }
+
+    @Test
+    void testExportTransactions_Failure_InvalidFormat() throws Exception {
+        // Arrange
+        ExceptionList error = ExceptionList.of("format", "format must be ndjson or csv.");
+        when(ledgerExportService.parseFormat("xml")).thenThrow(error);
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerController.exportTransactions("xml"));
+
+        // Assert
+        assertSame(error, exception);
+        verify(ledgerExportService, never()).exportTransactions(any(), any());
+    }
+
+    @Test
+    void testImportAccounts_Success() {
+        // Arrange
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        ImportResponse expected = new ImportResponse(2, 0, 0, 0, List.of());
+        when(accountImportService.importAccounts("csv", null, body)).thenReturn(expected);
+
+        // Act
+        ResponseEntity<ImportResponse> response = ledgerController.importAccounts("csv", null, body);
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(expected, response.getBody());
+    }
+
+    @Test
+    void testDeposit_RunsThroughIdempotencyKey() {
+        // Arrange
+        DepositRequest request = new DepositRequest("123456789", "25.50");
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return null;
+        }).when(idempotencyService).run(eq("retry-1"), eq(request), any());
+        when(ledgerEngine.deposit(request)).thenReturn(Completion.DONE);
+
+        // Act
+        ResponseEntity<?> response = ledgerController.deposit(request, "retry-1");
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        verify(ledgerEngine, times(1)).deposit(request);
+    }
+
+    @Test
+    void testBinary_ReturnsResponseFrames() {
+        // Arrange
+        byte[] commands = new byte[40];
+        byte[] responses = new byte[24];
+        when(wirePostingService.apply(commands)).thenReturn(responses);
+
+        // Act
+        ResponseEntity<byte[]> response = ledgerController.binary(commands);
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(responses, response.getBody());
+    }
+
+    @Test
+    void testDepositAsync_CompletesWithPosting() {
+        // Arrange
+        DepositRequest request = new DepositRequest("123456789", "25.50");
+        CompletableFuture<Void> posting = new CompletableFuture<>();
+        when(ledgerEngine.depositAsync(request)).thenReturn(posting);
+        when(idempotencyService.runAsync(eq(null), eq(request), any())).thenAnswer(
+                invocation -> invocation.<Supplier<CompletableFuture<Void>>>getArgument(2).get());
+
+        // Act
+        CompletableFuture<ResponseEntity<Void>> response = ledgerController.depositAsync(request, null);
+        boolean doneBeforePosting = response.isDone();
+        posting.complete(null);
+
+        // Assert
+        assertFalse(doneBeforePosting);
+        assertEquals(200, response.join().getStatusCode().value());
+        verify(ledgerService, never()).deposit(request);
+    }
+}
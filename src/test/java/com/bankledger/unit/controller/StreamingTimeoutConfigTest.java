@@ -0,0 +1,55 @@
+package com.bankledger.unit.controller;
+
+import com.bankledger.controller.LedgerController;
+import com.bankledger.controller.StreamingTimeoutConfig;
+import com.bankledger.dto.DepositRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.Callable;
+
+import static org.mockito.Mockito.*;
+
+@Tag("unit")
+class StreamingTimeoutConfigTest {
+
+    private final StreamingTimeoutConfig.StreamingTimeoutInterceptor interceptor =
+            new StreamingTimeoutConfig.StreamingTimeoutInterceptor();
+
+    @Test
+    void testBeforeConcurrentHandling_ExportHasNoTimeout() throws Exception {
+        // Arrange
+        AsyncWebRequest request = requestFor("exportAccounts", String.class);
+
+        // Act
+        interceptor.beforeConcurrentHandling(request, (Callable<Object>) () -> null);
+
+        // Assert
+        verify(request, times(1)).setTimeout(-1L);
+    }
+
+    @Test
+    void testBeforeConcurrentHandling_AsyncPostingKeepsTimeout() throws Exception {
+        // Arrange
+        AsyncWebRequest request = requestFor("depositAsync", DepositRequest.class, String.class);
+
+        // Act
+        interceptor.beforeConcurrentHandling(request, (Callable<Object>) () -> null);
+
+        // Assert
+        verify(request, never()).setTimeout(any());
+    }
+
+    private static AsyncWebRequest requestFor(String handlerName, Class<?>... parameterTypes) throws Exception {
+        AsyncWebRequest request = mock(AsyncWebRequest.class);
+        HandlerMethod handler = new HandlerMethod(new LedgerController(),
+                LedgerController.class.getMethod(handlerName, parameterTypes));
+        when(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))
+                .thenReturn(handler);
+        return request;
+    }
+}
@@ -0,0 +1,219 @@
+package com.bankledger.unit.engine;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.TransferRequest;
+import com.bankledger.dto.WithdrawRequest;
+import com.bankledger.engine.Completion;
+import com.bankledger.engine.LedgerEngine;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.model.Account;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.persistence.FsyncPolicy;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.service.LedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class LedgerEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private LedgerEngine ledgerEngine;
+    private WriteAheadLog writeAheadLog;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (ledgerEngine != null) {
+            ledgerEngine.stop();
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
+
+    @Test
+    void testLocking_AppliesOnCallingThread() {
+        // Arrange
+        LedgerService ledgerService = newLedger(WriteAheadLog.disabled());
+        ledgerEngine = new LedgerEngine(ledgerService);
+
+        // Act
+        Completion completion = ledgerEngine.deposit(new DepositRequest("000000001", "10.00"));
+
+        // Assert
+        assertSame(Completion.DONE, completion);
+        assertEquals(LedgerEngine.Mode.LOCKING, ledgerEngine.mode());
+        assertEquals(1_000, ledgerService.getAccount("000000001").balance());
+    }
+
+    @Test
+    void testSharded_ConcurrentPostingsAcrossShards() throws Exception {
+        // Arrange
+        LedgerService ledgerService = newLedger(WriteAheadLog.disabled());
+        ledgerEngine = startSharded(ledgerService, WriteAheadLog.disabled(), 4, 64);
+        int accounts = 16;
+        int postings = 2_000;
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(() -> {
+                List<Completion> completions = new ArrayList<>();
+                for (int i = 0; i < postings; i++) {
+                    String accountNumber = AccountNumbers.format(i % accounts);
+                    completions.add(ledgerEngine.deposit(new DepositRequest(accountNumber, "2.00")));
+                    completions.add(ledgerEngine.withdraw(new WithdrawRequest(accountNumber, "1.00")));
+                }
+                completions.forEach(Completion::await);
+            });
+        }
+
+        // Act
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // Assert: every account received 500 net postings of 1.00 from each producer
+        for (int i = 0; i < accounts; i++) {
+            Account account = ledgerService.getAccount(AccountNumbers.format(i));
+            assertEquals(producers.length * postings / accounts * 100L, account.balance());
+            assertEquals(producers.length * postings / accounts * 2L, account.version());
+        }
+    }
+
+    @Test
+    void testSharded_TransferAcrossShards() {
+        // Arrange
+        LedgerService ledgerService = newLedger(WriteAheadLog.disabled());
+        ledgerEngine = startSharded(ledgerService, WriteAheadLog.disabled(), 8, 16);
+        ledgerEngine.deposit(new DepositRequest("000000001", "100.00")).await();
+
+        // Act
+        for (int i = 2; i < 50; i++) {
+            ledgerEngine.transfer(new TransferRequest("000000001", AccountNumbers.format(i), "1.00")).await();
+        }
+
+        // Assert
+        assertEquals(100_00 - 48 * 100, ledgerService.getAccount("000000001").balance());
+        assertEquals(100, ledgerService.getAccount("000000049").balance());
+    }
+
+    @Test
+    void testSharded_RejectionReachesWaiter() {
+        // Arrange
+        LedgerService ledgerService = newLedger(WriteAheadLog.disabled());
+        ledgerEngine = startSharded(ledgerService, WriteAheadLog.disabled(), 2, 16);
+
+        // Act
+        Completion completion = ledgerEngine.withdraw(new WithdrawRequest("000000001", "1.00"));
+        ExceptionList exception = assertThrows(ExceptionList.class, completion::await);
+        ExceptionList invalid = assertThrows(ExceptionList.class,
+                () -> ledgerEngine.deposit(new DepositRequest("12345", "1.00")));
+
+        // Assert
+        assertTrue(completion.isDone());
+        assertTrue(exception.getErrors().toString().contains(Messages.INSUFFICIENT_BALANCE));
+        assertTrue(invalid.getErrors().get("accountNumber").toString().contains(Messages.ACCOUNT_NOT_FOUND));
+    }
+
+    @Test
+    void testSharded_CompletesOnlyOnceDurable() {
+        // Arrange
+        writeAheadLog = new WriteAheadLog(true, directory.resolve("ledger.wal"), FsyncPolicy.GROUP, 1,
+                WriteAheadLog.RECORD_SIZE * 1024);
+        LedgerService ledgerService = newLedger(writeAheadLog);
+        ledgerEngine = startSharded(ledgerService, writeAheadLog, 2, 256);
+        List<Completion> completions = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            completions.add(ledgerEngine.deposit(new DepositRequest(AccountNumbers.format(i % 4), "1.00")));
+        }
+        completions.forEach(Completion::await);
+        long durable = writeAheadLog.checkpoint();
+
+        // Assert: the 64 creations and 200 deposits were all in the log before the last completion
+        assertTrue(durable >= 264L * WriteAheadLog.RECORD_SIZE);
+        assertEquals(5_000, ledgerService.getAccount("000000000").balance());
+    }
+
+    @Test
+    void testLockingAsync_CompletesOnceDurable() {
+        // Arrange
+        writeAheadLog = new WriteAheadLog(true, directory.resolve("ledger.wal"), FsyncPolicy.GROUP, 1,
+                WriteAheadLog.RECORD_SIZE * 1024);
+        LedgerService ledgerService = newLedger(writeAheadLog);
+        ledgerEngine = new LedgerEngine(ledgerService, writeAheadLog, LedgerEngine.Mode.LOCKING, 0, 16);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            futures.add(ledgerEngine.depositAsync(new DepositRequest(AccountNumbers.format(i % 4), "1.00")));
+        }
+        futures.add(ledgerEngine.transferAsync(new TransferRequest("000000000", "000000001", "5.00")));
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        long durable = writeAheadLog.checkpoint();
+
+        // Assert: the 64 creations, 100 deposits and both sides of the transfer
+        assertTrue(durable >= 166L * WriteAheadLog.RECORD_SIZE);
+        assertEquals(2_000, ledgerService.getAccount("000000000").balance());
+        assertEquals(3_000, ledgerService.getAccount("000000001").balance());
+    }
+
+    @Test
+    void testShardedAsync_RejectionCompletesExceptionally() {
+        // Arrange
+        LedgerService ledgerService = newLedger(WriteAheadLog.disabled());
+        ledgerEngine = startSharded(ledgerService, WriteAheadLog.disabled(), 2, 16);
+
+        // Act
+        CompletableFuture<Void> deposit = ledgerEngine.depositAsync(new DepositRequest("000000001", "3.00"));
+        CompletableFuture<Void> withdrawal = ledgerEngine.withdrawAsync(new WithdrawRequest("000000001", "5.00"));
+        CompletableFuture<Void> invalid = ledgerEngine.withdrawAsync(new WithdrawRequest("12345", "1.00"));
+        deposit.join();
+        CompletionException rejected = assertThrows(CompletionException.class, withdrawal::join);
+        CompletionException notFound = assertThrows(CompletionException.class, invalid::join);
+
+        // Assert
+        ExceptionList exception = assertInstanceOf(ExceptionList.class, rejected.getCause());
+        assertTrue(exception.getErrors().toString().contains(Messages.INSUFFICIENT_BALANCE));
+        assertInstanceOf(ExceptionList.class, notFound.getCause());
+        assertEquals(300, ledgerService.getAccount("000000001").balance());
+    }
+
+    private static LedgerService newLedger(WriteAheadLog writeAheadLog) {
+        AccountRepository accountRepository = new AccountRepository(writeAheadLog, SnapshotStore.disabled());
+        accountRepository.recover();
+        LedgerService ledgerService = new LedgerService(accountRepository, new TransactionRepository(1 << 16));
+        for (int i = 0; i < 64; i++) {
+            ledgerService.createAccount(new CreateAccountRequest(AccountNumbers.format(i)));
+        }
+        return ledgerService;
+    }
+
+    private static LedgerEngine startSharded(LedgerService ledgerService, WriteAheadLog writeAheadLog, int shards,
+                                             int ringSize) {
+        LedgerEngine ledgerEngine = new LedgerEngine(ledgerService, writeAheadLog, LedgerEngine.Mode.SHARDED, shards,
+                ringSize);
+        ledgerEngine.start();
+        return ledgerEngine;
+    }
+}
@@ -0,0 +1,107 @@
+package com.bankledger.unit.exception;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.exception.GlobalExceptionHandler;
+import com.bankledger.exception.RetryLaterException;
+import com.bankledger.validation.InputValidation;
+import com.bankledger.validation.PageValidation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class GlobalExceptionHandlerTest {
+
+    @Test
+    void testExceptionList_SharedAndStackless() {
+        // Act
+        ExceptionList first = ExceptionList.of("accountNumber", InputValidation.checkAccountNotFound(false, "accountNumber"),
+                "amount", null);
+        ExceptionList second = ExceptionList.of("accountNumber", InputValidation.checkAccountNotFound(false, "accountNumber"),
+                "amount", null);
+
+        // Assert
+        assertSame(first, second);
+        assertTrue(first.isShared());
+        assertSame(Messages.forField("accountNumber", Messages.ACCOUNT_NOT_FOUND),
+                first.getErrors().get("accountNumber").get(0));
+        assertEquals(0, first.getStackTrace().length);
+        assertThrows(UnsupportedOperationException.class, () -> first.getErrors().clear());
+    }
+
+    @Test
+    void testExceptionList_LimitMessagesShared() {
+        // Act
+        String first = PageValidation.checkLimit(0, 1_000, "limit");
+        String second = PageValidation.checkLimit(1_001, 1_000, "limit");
+
+        // Assert
+        assertEquals("limit must be a number from 1 to 1000.", first);
+        assertSame(first, second);
+        assertSame(ExceptionList.of("limit", first), ExceptionList.of("limit", second));
+    }
+
+    @Test
+    void testHandleExceptionList_SerializesBodyOnce() throws Exception {
+        // Arrange
+        GlobalExceptionHandler handler = new GlobalExceptionHandler(new ObjectMapper());
+        ExceptionList exception = ExceptionList.of("fromAccountNumber", null, "toAccountNumber",
+                Messages.forField("toAccountNumber", Messages.SAME_ACCOUNT_TRANSFER), "amount", null);
+
+        // Act
+        ResponseEntity<byte[]> first = handler.handleExceptionList(exception, null);
+        ResponseEntity<byte[]> second = handler.handleExceptionList(exception, null);
+
+        // Assert
+        assertEquals(400, first.getStatusCode().value());
+        assertEquals(MediaType.APPLICATION_JSON, first.getHeaders().getContentType());
+        assertEquals("{\"status\":400,\"errors\":{\"fromAccountNumber\":[],"
+                        + "\"toAccountNumber\":[\"toAccountNumber must differ from the source account.\"],\"amount\":[]}}",
+                new String(first.getBody(), StandardCharsets.UTF_8));
+        assertSame(first.getBody(), second.getBody());
+    }
+
+    @Test
+    void testHandleExceptionList_DoesNotCacheUnsharedInstances() throws Exception {
+        // Arrange
+        GlobalExceptionHandler handler = new GlobalExceptionHandler(new ObjectMapper());
+        ExceptionList exception = new ExceptionList(Map.of("amount", List.of("amount" + Messages.AMOUNT_INVALID)));
+
+        // Act
+        ResponseEntity<byte[]> first = handler.handleExceptionList(exception, null);
+        ResponseEntity<byte[]> second = handler.handleExceptionList(exception, null);
+
+        // Assert
+        assertFalse(exception.isShared());
+        assertEquals("{\"status\":400,\"errors\":{\"amount\":[\"amount must be a number greater than zero.\"]}}",
+                new String(first.getBody(), StandardCharsets.UTF_8));
+        assertNotSame(first.getBody(), second.getBody());
+    }
+
+    @Test
+    void testHandleRetryLater_Conflict() {
+        // Arrange
+        GlobalExceptionHandler handler = new GlobalExceptionHandler(new ObjectMapper());
+        RetryLaterException exception = new RetryLaterException("Idempotency-Key",
+                "Idempotency-Key" + Messages.IDEMPOTENCY_KEY_IN_PROGRESS);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = handler.handleRetryLater(exception, null);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(409, response.getBody().get("status"));
+        assertEquals(exception.getErrors(), response.getBody().get("errors"));
+        assertEquals(0, exception.getStackTrace().length);
+    }
+}
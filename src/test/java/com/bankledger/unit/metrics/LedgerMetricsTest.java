@@ -0,0 +1,133 @@
+package com.bankledger.unit.metrics;
+
+import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.WithdrawRequest;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.metrics.LedgerMetrics;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.HeapBalanceStore;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.service.LedgerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class LedgerMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        LedgerMetrics metrics = new LedgerMetrics(registry, true);
+        AccountRepository accountRepository = new AccountRepository(WriteAheadLog.disabled(), SnapshotStore.disabled(),
+                new HeapBalanceStore(), metrics);
+        ledgerService = new LedgerService(accountRepository, new TransactionRepository(1024, metrics), metrics);
+    }
+
+    @Test
+    void testOperations_CountedByOutcome() {
+        // Arrange
+        ledgerService.createAccount(new CreateAccountRequest("123456789"));
+
+        // Act
+        ledgerService.deposit(new DepositRequest("123456789", "10.00"));
+        ledgerService.deposit(new DepositRequest("123456789", "5.00"));
+        assertThrows(ExceptionList.class, () -> ledgerService.withdraw(new WithdrawRequest("123456789", "100.00")));
+
+        // Assert
+        assertEquals(2, operations("deposit", "success"));
+        assertEquals(0, operations("deposit", "rejected"));
+        assertEquals(1, operations("withdraw", "rejected"));
+        assertEquals(2, registry.get("ledger.journal.append").timer().count());
+        assertTrue(registry.get("ledger.operations").tag("operation", "deposit").tag("outcome", "success")
+                .timer().totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    void testRejected_CountedByMessage() {
+        // Act
+        assertThrows(ExceptionList.class, () -> ledgerService.deposit(new DepositRequest("12345", "-1")));
+        assertThrows(ExceptionList.class, () -> ledgerService.deposit(new DepositRequest(" ", "1.00")));
+
+        // Assert
+        assertEquals(1, failures("account-not-found"));
+        assertEquals(1, failures("amount-invalid"));
+        assertEquals(1, failures("parameter-blank"));
+        assertEquals(0, failures("other"));
+    }
+
+    @Test
+    void testHistogram_PercentilesWithinBucketPrecision() {
+        // Arrange: only registries that aggregate percentiles, like Prometheus, keep histogram buckets
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        LedgerMetrics metrics = new LedgerMetrics(prometheus, true);
+
+        // Act: 90 waits of about 1 ms and 10 of about 50 ms
+        for (int i = 0; i < 100; i++) {
+            long waited = i < 90 ? 1_000_000 : 50_000_000;
+            metrics.lockWaited(LedgerMetrics.Lock.ACCOUNT_STRIPE, System.nanoTime() - waited);
+        }
+
+        // Assert
+        double median = percentile(prometheus, 0.5);
+        double tail = percentile(prometheus, 0.99);
+        assertTrue(median >= 0.001 && median < 0.001 * 1.4, "median " + median);
+        assertTrue(tail >= 0.05 && tail < 0.05 * 1.4, "99th percentile " + tail);
+        assertEquals(100, prometheus.get("ledger.lock.wait").tag("lock", "account-stripe").timer().count());
+    }
+
+    @Test
+    void testDisabled_RegistersNothing() {
+        // Arrange
+        SimpleMeterRegistry disabledRegistry = new SimpleMeterRegistry();
+        LedgerMetrics metrics = new LedgerMetrics(disabledRegistry, false);
+
+        // Act
+        long start = metrics.start();
+        metrics.succeeded(LedgerMetrics.Operation.DEPOSIT, start);
+        metrics.lockWaited(LedgerMetrics.Lock.ACCOUNT_STRIPE, start);
+
+        // Assert
+        assertEquals(0, start);
+        assertTrue(disabledRegistry.getMeters().isEmpty());
+        assertFalse(LedgerMetrics.disabled().isEnabled());
+    }
+
+    private long operations(String operation, String outcome) {
+        return (long) registry.get("ledger.operations").tag("operation", operation).tag("outcome", outcome)
+                .timer().count();
+    }
+
+    /**
+     * @return the upper bound of the histogram bucket the percentile falls in, as {@code histogram_quantile} sees it
+     */
+    private static double percentile(MeterRegistry registry, double phi) {
+        HistogramSnapshot snapshot = registry.get("ledger.lock.wait").tag("lock", "account-stripe").timer().takeSnapshot();
+        for (CountAtBucket bucket : snapshot.histogramCounts()) {
+            if (bucket.count() >= phi * snapshot.count()) {
+                return bucket.bucket(TimeUnit.SECONDS);
+            }
+        }
+        throw new AssertionError("No bucket for percentile " + phi);
+    }
+
+    private double failures(String reason) {
+        return registry.get("ledger.validation.failures").tag("reason", reason).counter().count();
+    }
+}
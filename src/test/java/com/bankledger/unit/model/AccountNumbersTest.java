@@ -0,0 +1,37 @@
+package com.bankledger.unit.model;
+
+import com.bankledger.model.AccountNumbers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class AccountNumbersTest {
+
+    @Test
+    void testParse_Success() {
+        assertEquals(123456789, AccountNumbers.parse("123456789"));
+        assertEquals(123456, AccountNumbers.parse("000123456"));
+        assertEquals(0, AccountNumbers.parse("000000000"));
+        assertEquals(999999999, AccountNumbers.parse("999999999"));
+    }
+
+    @Test
+    void testParse_Failure() {
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.parse(null));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.parse(""));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.parse("12345678"));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.parse("1234567890"));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.parse("12345678a"));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.parse(" 12345678"));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.parse("-12345678"));
+        assertEquals(AccountNumbers.INVALID, AccountNumbers.parse("12345678٣"));
+    }
+
+    @Test
+    void testFormat_RoundTrips() {
+        assertEquals("000123456", AccountNumbers.format(AccountNumbers.parse("000123456")));
+        assertEquals("123456789", AccountNumbers.format(123456789));
+    }
+}
@@ -0,0 +1,52 @@
+package com.bankledger.unit.model;
+
+import com.bankledger.model.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class MoneyTest {
+
+    @Test
+    void testParseCents_Success() {
+        assertEquals(10_000, Money.parseCents("100"));
+        assertEquals(10_050, Money.parseCents("100.5"));
+        assertEquals(10_050, Money.parseCents(" 100.50 "));
+        assertEquals(10_050, Money.parseCents("100.5000"));
+        assertEquals(50, Money.parseCents(".5"));
+        assertEquals(-25, Money.parseCents("-0.25"));
+        assertEquals(Long.MAX_VALUE - 7, Money.parseCents("92233720368547758.00"));
+    }
+
+    @Test
+    void testParseCents_Failure() {
+        assertEquals(Money.INVALID, Money.parseCents(null));
+        assertEquals(Money.INVALID, Money.parseCents(""));
+        assertEquals(Money.INVALID, Money.parseCents("."));
+        assertEquals(Money.INVALID, Money.parseCents("-"));
+        assertEquals(Money.INVALID, Money.parseCents("abc"));
+        assertEquals(Money.INVALID, Money.parseCents("1.2.3"));
+        assertEquals(Money.INVALID, Money.parseCents("1e3"));
+        assertEquals(Money.INVALID, Money.parseCents("0.001"));
+        assertEquals(Money.INVALID, Money.parseCents("92233720368547758.08"));
+        assertEquals(Money.INVALID, Money.parseCents("100000000000000000000"));
+    }
+
+    @Test
+    void testOverflows() {
+        assertFalse(Money.overflows(Long.MAX_VALUE - 1, 1));
+        assertTrue(Money.overflows(Long.MAX_VALUE, 1));
+        assertTrue(Money.overflows(Long.MIN_VALUE, -1));
+    }
+
+    @Test
+    void testFormat() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("123.45", Money.format(12_345));
+        assertEquals("-1.50", Money.format(-150));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+    }
+}
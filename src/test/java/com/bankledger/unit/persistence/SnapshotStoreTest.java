@@ -0,0 +1,129 @@
+package com.bankledger.unit.persistence;
+
+import com.bankledger.model.Account;
+import com.bankledger.model.AccountNumbers;
+import com.bankledger.persistence.FsyncPolicy;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLoad_RestoresWrittenAccounts() {
+        // Arrange
+        SnapshotStore snapshotStore = new SnapshotStore(true, directory);
+        List<Account> accounts = List.of(new Account("000000001", 100, 1), new Account("999999999", 250, 3));
+        snapshotStore.write(4_096, accounts);
+        Map<String, Account> restored = new ConcurrentHashMap<>();
+
+        // Act
+        long logPosition = snapshotStore.load((account, balance, version) ->
+                restored.put(AccountNumbers.format(account), new Account(AccountNumbers.format(account), balance, version)));
+
+        // Assert
+        assertEquals(4_096, logPosition);
+        assertEquals(Map.of("000000001", accounts.get(0), "999999999", accounts.get(1)), restored);
+    }
+
+    @Test
+    void testLoad_FallsBackWhenNewestSnapshotIsCorrupt() throws IOException {
+        // Arrange
+        SnapshotStore snapshotStore = new SnapshotStore(true, directory);
+        snapshotStore.write(32, List.of(new Account("000000001", 100, 1)));
+        snapshotStore.write(64, List.of(new Account("000000001", 200, 2)));
+        Path newest = newestSnapshot();
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[30] ^= 0x5A;
+        Files.write(newest, bytes);
+        Map<String, Account> restored = new ConcurrentHashMap<>();
+
+        // Act
+        long logPosition = snapshotStore.load((account, balance, version) ->
+                restored.put(AccountNumbers.format(account), new Account(AccountNumbers.format(account), balance, version)));
+
+        // Assert
+        assertEquals(32, logPosition);
+        assertEquals(100, restored.get("000000001").balance());
+    }
+
+    @Test
+    void testRecover_ReplaysOnlyChangesMissingFromFuzzySnapshot() {
+        // Arrange
+        SnapshotStore snapshotStore = new SnapshotStore(true, directory.resolve("snapshots"));
+        Path logPath = directory.resolve("ledger.wal");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(true, logPath, FsyncPolicy.OS, 1, WriteAheadLog.RECORD_SIZE * 64);
+        AccountRepository accountRepository = new AccountRepository(writeAheadLog, snapshotStore);
+        accountRepository.recover();
+        accountRepository.create(new Account("123456789"));
+        accountRepository.deposit("123456789", 100);
+
+        // A change that lands between the checkpoint and the snapshot is in both the snapshot and the log tail
+        long logPosition = writeAheadLog.checkpoint();
+        accountRepository.deposit("123456789", 200);
+        snapshotStore.write(logPosition, accountRepository.findAll());
+        accountRepository.withdraw("123456789", 50);
+        writeAheadLog.close();
+
+        // Act
+        AccountRepository recovered = new AccountRepository(
+                new WriteAheadLog(true, logPath, FsyncPolicy.OS, 1, WriteAheadLog.RECORD_SIZE * 64), snapshotStore);
+        recovered.recover();
+
+        // Assert
+        assertEquals(new Account("123456789", 250, 3), recovered.findByAccountNumber("123456789"));
+    }
+
+    @Test
+    void testRecover_HotAccountCellsAroundFuzzySnapshot() {
+        // Arrange
+        SnapshotStore snapshotStore = new SnapshotStore(true, directory.resolve("snapshots"));
+        Path logPath = directory.resolve("ledger.wal");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(true, logPath, FsyncPolicy.OS, 1, WriteAheadLog.RECORD_SIZE * 64);
+        AccountRepository accountRepository = new AccountRepository(writeAheadLog, snapshotStore);
+        accountRepository.recover();
+        accountRepository.create(new Account("123456789"));
+        accountRepository.promote("123456789");
+        accountRepository.deposit("123456789", 100);
+
+        // Cell deposits before the checkpoint, between it and the snapshot, and after the snapshot
+        long logPosition = writeAheadLog.checkpoint();
+        accountRepository.deposit("123456789", 200);
+        snapshotStore.write(logPosition, accountRepository.findAll());
+        accountRepository.deposit("123456789", 400);
+        writeAheadLog.close();
+
+        // Act
+        AccountRepository recovered = new AccountRepository(
+                new WriteAheadLog(true, logPath, FsyncPolicy.OS, 1, WriteAheadLog.RECORD_SIZE * 64), snapshotStore);
+        recovered.recover();
+
+        // Assert
+        assertEquals(new Account("123456789", 700, 3), recovered.findByAccountNumber("123456789"));
+    }
+
+    private Path newestSnapshot() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".bin"))
+                    .max(Path::compareTo)
+                    .orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.bankledger.unit.persistence;
+
+import com.bankledger.model.Account;
+import com.bankledger.persistence.FsyncPolicy;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.service.SnapshotService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class WriteAheadLogTest {
+
+    private static final int REGION_SIZE = WriteAheadLog.RECORD_SIZE * 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecover_RestoresBalances() {
+        // Arrange
+        Path path = directory.resolve("ledger.wal");
+        WriteAheadLog writeAheadLog = newLog(path, FsyncPolicy.PER_OP);
+        AccountRepository accountRepository = recover(writeAheadLog);
+        accountRepository.create(new Account("000000001"));
+        accountRepository.create(new Account("123456789"));
+        accountRepository.deposit("000000001", 10_000);
+        accountRepository.deposit("123456789", 2_550);
+        accountRepository.withdraw("000000001", 2_500);
+        writeAheadLog.close();
+
+        // Act
+        AccountRepository recovered = recover(newLog(path, FsyncPolicy.PER_OP));
+
+        // Assert
+        assertEquals(new Account("000000001", 7_500, 2), recovered.findByAccountNumber("000000001"));
+        assertEquals(new Account("123456789", 2_550, 1), recovered.findByAccountNumber("123456789"));
+    }
+
+    @Test
+    void testRecover_StopsAtTornRecord() throws IOException {
+        // Arrange
+        Path path = directory.resolve("ledger.wal");
+        WriteAheadLog writeAheadLog = newLog(path, FsyncPolicy.OS);
+        AccountRepository accountRepository = recover(writeAheadLog);
+        accountRepository.create(new Account("123456789"));
+        accountRepository.deposit("123456789", 100);
+        accountRepository.deposit("123456789", 200);
+        writeAheadLog.close();
+        corruptByte(path, WriteAheadLog.RECORD_SIZE * 2 + 9);
+
+        // Act
+        WriteAheadLog recoveredLog = newLog(path, FsyncPolicy.OS);
+        AccountRepository recovered = recover(recoveredLog);
+        recovered.deposit("123456789", 400);
+        recoveredLog.close();
+        AccountRepository reopened = recover(newLog(path, FsyncPolicy.OS));
+
+        // Assert
+        assertEquals(500, recovered.findByAccountNumber("123456789").balance());
+        assertEquals(500, reopened.findByAccountNumber("123456789").balance());
+    }
+
+    @Test
+    void testRecover_DropsTransferWithTornCredit() throws IOException {
+        // Arrange
+        Path path = directory.resolve("ledger.wal");
+        WriteAheadLog writeAheadLog = newLog(path, FsyncPolicy.OS);
+        AccountRepository accountRepository = recover(writeAheadLog);
+        accountRepository.create(new Account("000000001", 1_000));
+        accountRepository.create(new Account("000000002"));
+        accountRepository.transfer("000000001", "000000002", 300);
+        accountRepository.transfer("000000002", "000000001", 100);
+        writeAheadLog.close();
+        corruptByte(path, WriteAheadLog.RECORD_SIZE * 5 + 9);
+
+        // Act
+        AccountRepository recovered = recover(newLog(path, FsyncPolicy.OS));
+
+        // Assert
+        assertEquals(new Account("000000001", 700, 1), recovered.findByAccountNumber("000000001"));
+        assertEquals(new Account("000000002", 300, 1), recovered.findByAccountNumber("000000002"));
+    }
+
+    @Test
+    void testRecover_HotAccountCellDeposits() {
+        // Arrange: cell deposits on both sides of a fold, and the last ones never folded
+        Path path = directory.resolve("ledger.wal");
+        WriteAheadLog writeAheadLog = newLog(path, FsyncPolicy.OS);
+        AccountRepository accountRepository = recover(writeAheadLog);
+        accountRepository.create(new Account("123456789"));
+        accountRepository.promote("123456789");
+        accountRepository.deposit("123456789", 100);
+        accountRepository.deposit("123456789", 200);
+        accountRepository.withdraw("123456789", 50);
+        accountRepository.deposit("123456789", 400);
+        writeAheadLog.close();
+
+        // Act
+        WriteAheadLog recoveredLog = newLog(path, FsyncPolicy.OS);
+        AccountRepository recovered = recover(recoveredLog);
+        recovered.deposit("123456789", 1);
+        recoveredLog.close();
+        AccountRepository reopened = recover(newLog(path, FsyncPolicy.OS));
+
+        // Assert
+        assertEquals(new Account("123456789", 651, 5), recovered.findByAccountNumber("123456789"));
+        assertEquals(new Account("123456789", 651, 5), reopened.findByAccountNumber("123456789"));
+    }
+
+    @Test
+    void testGroupCommit_ConcurrentWritersAcrossRegions() throws Exception {
+        // Arrange
+        Path path = directory.resolve("ledger.wal");
+        WriteAheadLog writeAheadLog = newLog(path, FsyncPolicy.GROUP);
+        AccountRepository accountRepository = recover(writeAheadLog);
+        int threads = 8;
+        int depositsPerThread = 100;
+        for (int t = 0; t < threads; t++) {
+            accountRepository.create(new Account(String.format("%09d", t)));
+        }
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String accountNumber = String.format("%09d", t);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < depositsPerThread; i++) {
+                        accountRepository.deposit(accountNumber, 1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        writeAheadLog.close();
+        WriteAheadLog recoveredLog = newLog(path, FsyncPolicy.GROUP);
+        AccountRepository recovered = recover(recoveredLog);
+
+        // Assert
+        for (int t = 0; t < threads; t++) {
+            assertEquals(depositsPerThread, recovered.findByAccountNumber(String.format("%09d", t)).balance());
+        }
+        recoveredLog.close();
+    }
+
+    @Test
+    void testRelease_LogStaysBoundedAcrossSnapshots() throws IOException {
+        // Arrange: each round logs several regions' worth of deposits, then takes a snapshot
+        Path path = directory.resolve("ledger.wal");
+        SnapshotStore snapshotStore = new SnapshotStore(true, directory.resolve("snapshots"));
+        WriteAheadLog writeAheadLog = newLog(path, FsyncPolicy.OS);
+        AccountRepository accountRepository = new AccountRepository(writeAheadLog, snapshotStore);
+        accountRepository.recover();
+        SnapshotService snapshotService = new SnapshotService(accountRepository, snapshotStore, writeAheadLog, 0);
+        accountRepository.create(new Account("123456789"));
+        int rounds = 10;
+        int depositsPerRound = 200;
+        long roundSize = (long) depositsPerRound * WriteAheadLog.RECORD_SIZE;
+
+        // Act
+        List<Long> sizes = new ArrayList<>();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < depositsPerRound; i++) {
+                accountRepository.deposit("123456789", 1);
+            }
+            snapshotService.snapshot();
+            sizes.add(logSize());
+        }
+        writeAheadLog.close();
+        AccountRepository recovered = recover(newLog(path, FsyncPolicy.OS), snapshotStore);
+
+        // Assert: only what the two retained snapshots do not both cover is kept, plus the partly filled segments
+        for (long size : sizes) {
+            assertTrue(size <= roundSize + 2L * REGION_SIZE, "log size " + size);
+        }
+        assertFalse(Files.exists(segment(path, 0)));
+        assertEquals((long) rounds * depositsPerRound, recovered.findByAccountNumber("123456789").balance());
+    }
+
+    @Test
+    void testApplyDeferred_CompletesOnGroupCommit() throws Exception {
+        // Arrange
+        Path path = directory.resolve("ledger.wal");
+        WriteAheadLog writeAheadLog = newLog(path, FsyncPolicy.GROUP);
+        AccountRepository accountRepository = recover(writeAheadLog);
+        accountRepository.create(new Account("123456789"));
+
+        // Act
+        long position = writeAheadLog.applyDeferred(() -> accountRepository.deposit("123456789", 500));
+        CompletableFuture<Void> durable = writeAheadLog.whenDurable(position);
+        durable.get(30, TimeUnit.SECONDS);
+        long checkpoint = writeAheadLog.checkpoint();
+        writeAheadLog.close();
+        CompletableFuture<Void> afterClose = writeAheadLog.whenDurable(position + WriteAheadLog.RECORD_SIZE);
+
+        // Assert
+        assertEquals(2L * WriteAheadLog.RECORD_SIZE, position);
+        assertTrue(checkpoint >= position);
+        assertTrue(writeAheadLog.whenDurable(position).isDone());
+        ExecutionException exception = assertThrows(ExecutionException.class, afterClose::get);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    private static Path segment(Path path, long index) {
+        return path.resolveSibling(String.format("%s.%016x", path.getFileName(), index * REGION_SIZE));
+    }
+
+    private long logSize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long size = 0;
+            for (Path file : files.filter(file -> file.getFileName().toString().startsWith("ledger.wal.")).toList()) {
+                size += Files.size(file);
+            }
+            return size;
+        }
+    }
+
+    private static WriteAheadLog newLog(Path path, FsyncPolicy fsyncPolicy) {
+        return new WriteAheadLog(true, path, fsyncPolicy, 1, REGION_SIZE);
+    }
+
+    private static AccountRepository recover(WriteAheadLog writeAheadLog) {
+        return recover(writeAheadLog, SnapshotStore.disabled());
+    }
+
+    private static AccountRepository recover(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore) {
+        AccountRepository accountRepository = new AccountRepository(writeAheadLog, snapshotStore);
+        accountRepository.recover();
+        return accountRepository;
+    }
+
+    private static void corruptByte(Path path, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment(path, position / REGION_SIZE),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            position %= REGION_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.flip();
+            buffer.put(0, (byte) (buffer.get(0) ^ 0x5A));
+            channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.bankledger.unit.repository;
+
+import com.bankledger.repository.AccountIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class AccountIndexTest {
+
+    @Test
+    void testFind_AfterGrowingPastInitialCapacity() {
+        // Arrange
+        AccountIndex index = new AccountIndex();
+        int accounts = 100_000;
+
+        // Act
+        for (int slot = 0; slot < accounts; slot++) {
+            index.put(slot * 9_973, slot);
+        }
+
+        // Assert
+        assertEquals(accounts, index.size());
+        for (int slot = 0; slot < accounts; slot++) {
+            assertEquals(slot, index.find(slot * 9_973));
+        }
+        assertEquals(-1, index.find(1));
+    }
+
+    @Test
+    void testFind_SmallestAndLargestAccountNumbers() {
+        // Arrange
+        AccountIndex index = new AccountIndex();
+
+        // Act
+        index.put(0, 7);
+        index.put(999_999_999, 8);
+
+        // Assert
+        assertEquals(7, index.find(0));
+        assertEquals(8, index.find(999_999_999));
+        assertEquals(-1, index.find(999_999_998));
+    }
+}
@@ -0,0 +1,456 @@
+package com.bankledger.unit.repository;
+
+import com.bankledger.model.Account;
+import com.bankledger.model.PostingStatus;
+import com.bankledger.model.Transaction;
+import com.bankledger.model.TransactionType;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class AccountRepositoryTest {
+
+    private static final int THREADS = 8;
+
+    private AccountRepository accountRepository;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = new AccountRepository();
+    }
+
+    @Test
+    void testCreate_RejectsDuplicate() {
+        // Act
+        boolean first = accountRepository.create(new Account("123456789"));
+        boolean second = accountRepository.create(new Account("123456789"));
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+    }
+
+    @Test
+    void testDeposit_UnknownAccount() {
+        // Act
+        PostingStatus status = accountRepository.deposit("123456789", 10);
+
+        // Assert
+        assertEquals(PostingStatus.ACCOUNT_NOT_FOUND, status);
+        assertNull(accountRepository.findByAccountNumber("123456789"));
+    }
+
+    @Test
+    void testWithdraw_InsufficientBalance() {
+        // Arrange
+        accountRepository.create(new Account("123456789", 10));
+
+        // Act
+        PostingStatus status = accountRepository.withdraw("123456789", 11);
+
+        // Assert
+        assertEquals(PostingStatus.INSUFFICIENT_BALANCE, status);
+        assertEquals(10, accountRepository.findByAccountNumber("123456789").balance());
+    }
+
+    @Test
+    void testDeposit_ConcurrentUpdatesAreNotLost() throws Exception {
+        // Arrange
+        String accountNumber = "123456789";
+        int depositsPerThread = 10_000;
+        accountRepository.create(new Account(accountNumber));
+
+        // Act
+        runConcurrently(() -> {
+            for (int i = 0; i < depositsPerThread; i++) {
+                accountRepository.deposit(accountNumber, 1);
+            }
+        });
+
+        // Assert
+        assertEquals(THREADS * depositsPerThread, accountRepository.findByAccountNumber(accountNumber).balance());
+    }
+
+    @Test
+    void testWithdraw_ConcurrentWithdrawalsNeverOverdraw() throws Exception {
+        // Arrange
+        String accountNumber = "123456789";
+        int balance = 1_000;
+        accountRepository.create(new Account(accountNumber, balance));
+        AtomicInteger succeeded = new AtomicInteger();
+
+        // Act
+        runConcurrently(() -> {
+            for (int i = 0; i < balance; i++) {
+                if (accountRepository.withdraw(accountNumber, 1) == PostingStatus.OK) {
+                    succeeded.incrementAndGet();
+                }
+            }
+        });
+
+        // Assert
+        assertEquals(balance, succeeded.get());
+        assertEquals(0, accountRepository.findByAccountNumber(accountNumber).balance());
+    }
+
+    @Test
+    void testFindByAccountNumber_ReadsAreConsistentDuringUpdates() throws Exception {
+        // Arrange
+        String accountNumber = "123456789";
+        long amount = 7;
+        int deposits = 200_000;
+        accountRepository.create(new Account(accountNumber));
+        AtomicInteger inconsistent = new AtomicInteger();
+
+        // Act: one writer, the other threads check that balance and version always belong together
+        AtomicInteger writers = new AtomicInteger();
+        runConcurrently(() -> {
+            if (writers.getAndIncrement() == 0) {
+                for (int i = 0; i < deposits; i++) {
+                    accountRepository.deposit(accountNumber, amount);
+                }
+                return;
+            }
+            for (int i = 0; i < deposits; i++) {
+                Account account = accountRepository.findByAccountNumber(accountNumber);
+                if (account.balance() != account.version() * amount) {
+                    inconsistent.incrementAndGet();
+                }
+            }
+        });
+
+        // Assert
+        assertEquals(0, inconsistent.get());
+        assertEquals(new Account(accountNumber, deposits * amount, deposits), accountRepository.findByAccountNumber(accountNumber));
+    }
+
+    @Test
+    void testTransfer_InsufficientBalanceMovesNothing() {
+        // Arrange
+        accountRepository.create(new Account("000000001", 100));
+        accountRepository.create(new Account("000000002", 100));
+
+        // Act
+        PostingStatus status = accountRepository.transfer("000000001", "000000002", 101);
+
+        // Assert
+        assertEquals(PostingStatus.INSUFFICIENT_BALANCE, status);
+        assertEquals(new Account("000000001", 100, 0), accountRepository.findByAccountNumber("000000001"));
+        assertEquals(new Account("000000002", 100, 0), accountRepository.findByAccountNumber("000000002"));
+    }
+
+    @Test
+    void testTransfer_ConcurrentOppositeTransfersConserveTotal() throws Exception {
+        // Arrange
+        int accountCount = 6;
+        long initialBalance = 1_000;
+        int transfersPerThread = 20_000;
+        for (int i = 0; i < accountCount; i++) {
+            accountRepository.create(new Account(String.format("%09d", i), initialBalance));
+        }
+
+        // Act: few accounts and random directions, so pairs collide and are locked in both orders
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < transfersPerThread; i++) {
+                int from = random.nextInt(accountCount);
+                int to = (from + 1 + random.nextInt(accountCount - 1)) % accountCount;
+                accountRepository.transfer(String.format("%09d", from), String.format("%09d", to), 1 + random.nextInt(50));
+            }
+        });
+
+        // Assert
+        long total = 0;
+        for (int i = 0; i < accountCount; i++) {
+            long balance = accountRepository.findByAccountNumber(String.format("%09d", i)).balance();
+            assertTrue(balance >= 0);
+            total += balance;
+        }
+        assertEquals(accountCount * initialBalance, total);
+    }
+
+    @Test
+    void testTransfer_ConcurrentPostingsAreJournaledInApplyOrder() throws Exception {
+        // Arrange: one hot account, so cell deposits race with withdrawals and transfers that fold its cells
+        TransactionRepository journal = new TransactionRepository(1 << 20);
+        accountRepository.create(new Account("000000000", 100));
+        accountRepository.create(new Account("000000001", 100));
+        assertTrue(accountRepository.promote("000000000"));
+        int postingsPerThread = 5_000;
+
+        // Act
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < postingsPerThread; i++) {
+                long amount = 1 + random.nextInt(50);
+                switch (random.nextInt(4)) {
+                    case 0 -> accountRepository.deposit(0, amount, journal);
+                    case 1 -> accountRepository.withdraw(0, amount, journal);
+                    case 2 -> accountRepository.transfer(0, 1, amount, journal);
+                    default -> accountRepository.transfer(1, 0, amount, journal);
+                }
+            }
+        });
+
+        // Assert: replaying the journal never overdraws, ends at the stored balances, and keeps both legs together
+        long[] balances = {100, 100};
+        Transaction previous = null;
+        for (Transaction transaction : journal.findAll()) {
+            int account = Integer.parseInt(transaction.accountNumber());
+            balances[account] += switch (transaction.type()) {
+                case DEPOSIT, TRANSFER_IN -> transaction.amount();
+                case WITHDRAWAL, TRANSFER_OUT -> -transaction.amount();
+            };
+            assertTrue(balances[account] >= 0);
+            if (previous != null && previous.type() == TransactionType.TRANSFER_OUT) {
+                assertEquals(TransactionType.TRANSFER_IN, transaction.type());
+                assertEquals(previous.amount(), transaction.amount());
+            }
+            previous = transaction;
+        }
+        assertNotEquals(TransactionType.TRANSFER_OUT, previous.type());
+        assertEquals(accountRepository.findByAccountNumber("000000000").balance(), balances[0]);
+        assertEquals(accountRepository.findByAccountNumber("000000001").balance(), balances[1]);
+    }
+
+    @Test
+    void testPromote_ReadsAndWithdrawalsSeeUnfoldedDeposits() {
+        // Arrange
+        accountRepository.create(new Account("123456789", 100));
+        assertTrue(accountRepository.promote("123456789"));
+        accountRepository.deposit("123456789", 20);
+        accountRepository.deposit("123456789", 30);
+
+        // Act
+        Account beforeWithdrawal = accountRepository.findByAccountNumber("123456789");
+        PostingStatus overdraft = accountRepository.withdraw("123456789", 151);
+        PostingStatus withdrawal = accountRepository.withdraw("123456789", 150);
+
+        // Assert
+        assertEquals(new Account("123456789", 150, 2), beforeWithdrawal);
+        assertEquals(PostingStatus.INSUFFICIENT_BALANCE, overdraft);
+        assertEquals(PostingStatus.OK, withdrawal);
+        assertEquals(new Account("123456789", 0, 3), accountRepository.findByAccountNumber("123456789"));
+        assertFalse(accountRepository.promote("000000001"));
+    }
+
+    @Test
+    void testPromote_ConcurrentDepositsAndWithdrawalsNeverOverdraw() throws Exception {
+        // Arrange
+        String accountNumber = "123456789";
+        int operationsPerThread = 20_000;
+        accountRepository.create(new Account(accountNumber));
+        accountRepository.promote(accountNumber);
+        AtomicInteger workers = new AtomicInteger();
+        AtomicInteger withdrawn = new AtomicInteger();
+
+        // Act: half the threads deposit into cells, the others withdraw, which folds the cells each time
+        runConcurrently(() -> {
+            boolean depositor = workers.getAndIncrement() % 2 == 0;
+            for (int i = 0; i < operationsPerThread; i++) {
+                if (depositor) {
+                    accountRepository.deposit(accountNumber, 2);
+                } else if (accountRepository.withdraw(accountNumber, 3) == PostingStatus.OK) {
+                    withdrawn.incrementAndGet();
+                }
+                assertTrue(accountRepository.findByAccountNumber(accountNumber).balance() >= 0);
+            }
+        });
+
+        // Assert
+        long deposits = (long) THREADS / 2 * operationsPerThread;
+        Account account = accountRepository.findByAccountNumber(accountNumber);
+        assertEquals(deposits * 2 - withdrawn.get() * 3L, account.balance());
+        assertEquals(deposits + withdrawn.get(), account.version());
+    }
+
+    @Test
+    void testApplyBatch_PerItemAppliesInRequestOrder() {
+        // Arrange
+        accountRepository.create(new Account("000000001", 100));
+        accountRepository.create(new Account("000000002"));
+        int[] accounts = {1, 2, 1, 3, 2};
+        long[] amounts = {-150, 50, 100, 10, -20};
+        PostingStatus[] statuses = okStatuses(accounts.length);
+
+        // Act
+        int applied = accountRepository.applyBatch(accounts, amounts, statuses, false);
+
+        // Assert
+        assertEquals(3, applied);
+        assertArrayEquals(new PostingStatus[]{PostingStatus.INSUFFICIENT_BALANCE, PostingStatus.OK, PostingStatus.OK,
+                PostingStatus.ACCOUNT_NOT_FOUND, PostingStatus.OK}, statuses);
+        assertEquals(new Account("000000001", 200, 1), accountRepository.findByAccountNumber("000000001"));
+        assertEquals(new Account("000000002", 30, 2), accountRepository.findByAccountNumber("000000002"));
+    }
+
+    @Test
+    void testApplyBatch_RepeatedAccountsAcrossStripes() {
+        // Arrange
+        int accountCount = 1_000;
+        int postingsPerAccount = 10;
+        for (int i = 0; i < accountCount; i++) {
+            accountRepository.create(new Account(String.format("%09d", i)));
+        }
+        int[] accounts = new int[accountCount * postingsPerAccount];
+        long[] amounts = new long[accounts.length];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = i % accountCount;
+            amounts[i] = i < accountCount ? 10 : -1;
+        }
+        PostingStatus[] statuses = okStatuses(accounts.length);
+
+        // Act
+        int applied = accountRepository.applyBatch(accounts, amounts, statuses, false);
+
+        // Assert
+        assertEquals(accounts.length, applied);
+        for (int i = 0; i < accountCount; i++) {
+            assertEquals(new Account(String.format("%09d", i), 1, postingsPerAccount),
+                    accountRepository.findByAccountNumber(String.format("%09d", i)));
+        }
+    }
+
+    @Test
+    void testApplyBatch_AtomicRollsBackOnAnyFailure() {
+        // Arrange
+        accountRepository.create(new Account("000000001", 100));
+        accountRepository.create(new Account("000000002", 100));
+        int[] accounts = {1, 2, 2};
+        long[] amounts = {-100, -60, -60};
+        PostingStatus[] statuses = okStatuses(accounts.length);
+
+        // Act
+        int applied = accountRepository.applyBatch(accounts, amounts, statuses, true);
+
+        // Assert
+        assertEquals(0, applied);
+        assertArrayEquals(new PostingStatus[]{PostingStatus.NOT_APPLIED, PostingStatus.NOT_APPLIED,
+                PostingStatus.INSUFFICIENT_BALANCE}, statuses);
+        assertEquals(100, accountRepository.findByAccountNumber("000000001").balance());
+        assertEquals(100, accountRepository.findByAccountNumber("000000002").balance());
+    }
+
+    @Test
+    void testCreateAll_SkipsTakenNumbers() {
+        // Arrange
+        accountRepository.create(new Account("000000002", 5));
+        int[] keys = {1, 2, 300_000_000, 4};
+        long[] openingBalances = {100, 200, 300, 400};
+        boolean[] created = new boolean[keys.length];
+
+        // Act
+        int count = accountRepository.createAll(keys, openingBalances, 3, created);
+
+        // Assert
+        assertEquals(2, count);
+        assertArrayEquals(new boolean[]{true, false, true, false}, created);
+        assertEquals(new Account("000000001", 100, 0), accountRepository.findByAccountNumber("000000001"));
+        assertEquals(new Account("000000002", 5, 0), accountRepository.findByAccountNumber("000000002"));
+        assertEquals(new Account("300000000", 300, 0), accountRepository.findByAccountNumber("300000000"));
+        assertNull(accountRepository.findByAccountNumber("000000004"));
+    }
+
+    @Test
+    void testOpenExport_IgnoresChangesAfterItOpens() {
+        // Arrange
+        accountRepository.create(new Account("000000001", 100));
+        accountRepository.create(new Account("000000002", 100));
+        accountRepository.create(new Account("000000003", 100));
+        accountRepository.promote("000000003");
+        accountRepository.deposit("000000003", 5);
+        List<Account> exported = new ArrayList<>();
+
+        // Act: change accounts on both sides of the export's progress
+        try (AccountRepository.AccountExport export = accountRepository.openExport()) {
+            exported.add(export.next());
+            accountRepository.transfer("000000001", "000000002", 40);
+            accountRepository.deposit("000000003", 10);
+            accountRepository.deposit("000000003", 20);
+            accountRepository.applyBatch(new int[]{2}, new long[]{-1}, okStatuses(1), true);
+            accountRepository.create(new Account("000000004", 100));
+            export.forEachRemaining(exported::add);
+        }
+        accountRepository.deposit("000000003", 1);
+
+        // Assert
+        assertEquals(List.of(new Account("000000001", 100, 0), new Account("000000002", 100, 0),
+                new Account("000000003", 105, 1)), exported);
+        assertEquals(new Account("000000002", 139, 2), accountRepository.findByAccountNumber("000000002"));
+        assertEquals(new Account("000000003", 136, 4), accountRepository.findByAccountNumber("000000003"));
+    }
+
+    @Test
+    void testOpenExport_ConcurrentTransfersConserveExportedTotal() throws Exception {
+        // Arrange
+        int accountCount = 1_000;
+        long initialBalance = 1_000;
+        for (int i = 0; i < accountCount; i++) {
+            accountRepository.create(new Account(String.format("%09d", i), initialBalance));
+        }
+        AtomicInteger workers = new AtomicInteger();
+        long[] exportedTotal = new long[1];
+
+        // Act: one thread exports while the others keep transferring
+        runConcurrently(() -> {
+            if (workers.getAndIncrement() == 0) {
+                try (AccountRepository.AccountExport export = accountRepository.openExport()) {
+                    export.forEachRemaining(account -> exportedTotal[0] += account.balance());
+                }
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                int from = random.nextInt(accountCount);
+                int to = (from + 1 + random.nextInt(accountCount - 1)) % accountCount;
+                accountRepository.transfer(String.format("%09d", from), String.format("%09d", to), 1 + random.nextInt(50));
+            }
+        });
+
+        // Assert
+        assertEquals(accountCount * initialBalance, exportedTotal[0]);
+    }
+
+    private static PostingStatus[] okStatuses(int size) {
+        PostingStatus[] statuses = new PostingStatus[size];
+        Arrays.fill(statuses, PostingStatus.OK);
+        return statuses;
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
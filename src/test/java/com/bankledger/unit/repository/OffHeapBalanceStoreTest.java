@@ -0,0 +1,113 @@
+package com.bankledger.unit.repository;
+
+import com.bankledger.model.Account;
+import com.bankledger.model.PostingStatus;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.BalanceStore;
+import com.bankledger.repository.OffHeapBalanceStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class OffHeapBalanceStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAllocate_AcrossChunks() {
+        // Arrange
+        OffHeapBalanceStore store = OffHeapBalanceStore.allocate();
+        int accounts = 200_000;
+
+        // Act
+        for (int i = 0; i < accounts; i++) {
+            store.allocate(i * 7, i, 1);
+        }
+        store.update(accounts - 1, 5);
+
+        // Assert
+        assertEquals(accounts, store.size());
+        assertEquals(7 * 70_000, store.key(70_000));
+        assertEquals(new Account("000000001", 70_000, 1), store.read(70_000, "000000001"));
+        assertEquals(5, store.balance(accounts - 1));
+        assertEquals(2, store.version(accounts - 1));
+    }
+
+    @Test
+    void testRead_ConsistentDuringUpdates() throws Exception {
+        // Arrange
+        OffHeapBalanceStore store = OffHeapBalanceStore.allocate();
+        int slot = store.allocate(1, 0, 0);
+        int updates = 200_000;
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= updates; i++) {
+                store.update(slot, 7L * i);
+            }
+        });
+
+        // Act
+        int inconsistent = 0;
+        writer.start();
+        while (writer.isAlive()) {
+            Account account = store.read(slot, "000000001");
+            if (account.balance() != account.version() * 7) {
+                inconsistent++;
+            }
+        }
+        writer.join();
+
+        // Assert
+        assertEquals(0, inconsistent);
+        assertEquals(new Account("000000001", 7L * updates, updates), store.read(slot, "000000001"));
+    }
+
+    @Test
+    void testMap_KeepsAccountsAfterCleanClose() {
+        // Arrange
+        Path path = directory.resolve("balances.store");
+        AccountRepository accountRepository = newRepository(path);
+        accountRepository.create(new Account("000000001"));
+        accountRepository.create(new Account("123456789", 100));
+        accountRepository.deposit("000000001", 2_550);
+        accountRepository.close();
+
+        // Act
+        AccountRepository reopened = newRepository(path);
+
+        // Assert
+        assertEquals(new Account("000000001", 2_550, 1), reopened.findByAccountNumber("000000001"));
+        assertEquals(new Account("123456789", 100, 0), reopened.findByAccountNumber("123456789"));
+        assertEquals(PostingStatus.OK, reopened.withdraw("123456789", 40));
+        assertFalse(reopened.create(new Account("123456789")));
+    }
+
+    @Test
+    void testMap_DiscardsAccountsAfterUncleanClose() {
+        // Arrange
+        Path path = directory.resolve("balances.store");
+        AccountRepository accountRepository = newRepository(path);
+        accountRepository.create(new Account("000000001", 100));
+
+        // Act: reopen without closing, as after a crash
+        AccountRepository reopened = newRepository(path);
+
+        // Assert
+        assertNull(reopened.findByAccountNumber("000000001"));
+        assertTrue(reopened.create(new Account("000000001")));
+    }
+
+    private static AccountRepository newRepository(Path path) {
+        AccountRepository accountRepository = new AccountRepository(WriteAheadLog.disabled(), SnapshotStore.disabled(),
+                BalanceStore.open(BalanceStore.Type.MAPPED, path));
+        accountRepository.recover();
+        return accountRepository;
+    }
+}
@@ -0,0 +1,179 @@
+package com.bankledger.unit.repository;
+
+import com.bankledger.model.Transaction;
+import com.bankledger.model.TransactionType;
+import com.bankledger.repository.TransactionRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class TransactionRepositoryTest {
+
+    @Test
+    void testAppend_AssignsIncreasingSequences() {
+        // Arrange
+        TransactionRepository transactionRepository = new TransactionRepository(1024);
+
+        // Act
+        Transaction first = transactionRepository.append("123456789", TransactionType.DEPOSIT, 100);
+        Transaction second = transactionRepository.append("123456789", TransactionType.WITHDRAWAL, 50);
+
+        // Assert
+        assertEquals(0, first.sequence());
+        assertEquals(1, second.sequence());
+        assertEquals(List.of(first, second), toList(transactionRepository.findAll()));
+    }
+
+    @Test
+    void testAppend_EvictsOldestEntriesBeyondRetention() {
+        // Arrange
+        TransactionRepository transactionRepository = new TransactionRepository(1);
+        long capacity = transactionRepository.retainedCapacity();
+        long appended = capacity * 3 + 7;
+
+        // Act
+        for (long i = 0; i < appended; i++) {
+            transactionRepository.append("123456789", TransactionType.DEPOSIT, i + 1);
+        }
+
+        // Assert
+        List<Transaction> retained = toList(transactionRepository.findAll());
+        assertTrue(retained.size() <= capacity);
+        assertTrue(retained.size() > capacity / 2);
+        assertEquals(appended - 1, retained.get(retained.size() - 1).sequence());
+        assertEquals(appended - retained.size(), retained.get(0).sequence());
+    }
+
+    @Test
+    void testAppend_ConcurrentWritersProduceGapFreeJournal() throws Exception {
+        // Arrange
+        TransactionRepository transactionRepository = new TransactionRepository(1 << 20);
+        int threads = 8;
+        int appendsPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < appendsPerThread; i++) {
+                        transactionRepository.append("123456789", TransactionType.DEPOSIT, 1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        long expected = 0;
+        for (Transaction transaction : transactionRepository.findAll()) {
+            assertEquals(expected++, transaction.sequence());
+        }
+        assertEquals((long) threads * appendsPerThread, expected);
+    }
+
+    @Test
+    void testFindByAccount_PagesThroughInterleavedAccounts() {
+        // Arrange
+        TransactionRepository transactionRepository = new TransactionRepository(1024);
+        for (int i = 0; i < 10; i++) {
+            transactionRepository.append("000000001", TransactionType.DEPOSIT, i + 1);
+            transactionRepository.append("000000002", TransactionType.WITHDRAWAL, i + 1);
+        }
+
+        // Act
+        List<Transaction> firstPage = transactionRepository.findByAccount("000000002", -1, 4);
+        List<Transaction> secondPage = transactionRepository.findByAccount("000000002", firstPage.get(3).sequence(), 4);
+        List<Transaction> lastPage = transactionRepository.findByAccount("000000002", 17, 4);
+
+        // Assert
+        assertEquals(List.of(1L, 3L, 5L, 7L), firstPage.stream().map(Transaction::sequence).toList());
+        assertEquals(List.of(9L, 11L, 13L, 15L), secondPage.stream().map(Transaction::sequence).toList());
+        assertEquals(List.of(19L), lastPage.stream().map(Transaction::sequence).toList());
+        assertTrue(firstPage.stream().allMatch(transaction -> transaction.accountNumber().equals("000000002")));
+        assertEquals(List.of(), transactionRepository.findByAccount("000000003", -1, 4));
+    }
+
+    @Test
+    void testFindByAccount_SkipsEvictedEntries() {
+        // Arrange
+        TransactionRepository transactionRepository = new TransactionRepository(1);
+        long capacity = transactionRepository.retainedCapacity();
+        long appended = capacity * 3 + 7;
+        for (long i = 0; i < appended; i++) {
+            transactionRepository.append(i % 2 == 0 ? "000000001" : "000000002", TransactionType.DEPOSIT, i + 1);
+        }
+        Transaction oldest = transactionRepository.findAll().iterator().next();
+
+        // Act
+        List<Transaction> page = transactionRepository.findByAccount("000000001", -1, 3);
+
+        // Assert
+        long first = oldest.sequence() % 2 == 0 ? oldest.sequence() : oldest.sequence() + 1;
+        assertEquals(List.of(first, first + 2, first + 4), page.stream().map(Transaction::sequence).toList());
+    }
+
+    @Test
+    void testFindAllUpToNow_LeavesOutLaterEntries() {
+        // Arrange
+        TransactionRepository transactionRepository = new TransactionRepository(1024);
+        Transaction first = transactionRepository.append("123456789", TransactionType.DEPOSIT, 100);
+        Transaction second = transactionRepository.append("123456789", TransactionType.WITHDRAWAL, 50);
+
+        // Act
+        Iterator<Transaction> entries = transactionRepository.findAllUpToNow();
+        transactionRepository.append("123456789", TransactionType.DEPOSIT, 25);
+
+        // Assert
+        List<Transaction> copied = new ArrayList<>();
+        entries.forEachRemaining(copied::add);
+        assertEquals(List.of(first, second), copied);
+    }
+
+    @Test
+    void testFindAllUpToNow_SkipsEntriesEvictedBeforeTheyAreRead() {
+        // Arrange
+        TransactionRepository transactionRepository = new TransactionRepository(1);
+        long capacity = transactionRepository.retainedCapacity();
+        for (long i = 0; i < capacity; i++) {
+            transactionRepository.append("123456789", TransactionType.DEPOSIT, 1);
+        }
+        Iterator<Transaction> entries = transactionRepository.findAllUpToNow();
+        Transaction first = entries.next();
+
+        // Act: half the ring is recycled before the rest is read
+        for (long i = 0; i < capacity / 2; i++) {
+            transactionRepository.append("123456789", TransactionType.DEPOSIT, 1);
+        }
+        List<Long> sequences = new ArrayList<>();
+        entries.forEachRemaining(transaction -> sequences.add(transaction.sequence()));
+
+        // Assert: past any entry already read ahead, the copy resumes at the oldest entry still retained and stops
+        // where it started
+        assertEquals(0, first.sequence());
+        assertTrue(sequences.contains(capacity / 2));
+        assertTrue(sequences.stream().noneMatch(sequence -> sequence > 1 && sequence < capacity / 2));
+        assertEquals(capacity - 1, sequences.get(sequences.size() - 1));
+    }
+
+    private static List<Transaction> toList(Iterable<Transaction> transactions) {
+        List<Transaction> list = new ArrayList<>();
+        transactions.forEach(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,173 @@
+package com.bankledger.unit.server;
+
+import com.bankledger.model.PostingStatus;
+import com.bankledger.model.WireFormat;
+import com.bankledger.persistence.FsyncPolicy;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.server.WireServer;
+import com.bankledger.service.LedgerService;
+import com.bankledger.service.WirePostingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class WireServerTest {
+
+    @TempDir
+    Path directory;
+
+    private WriteAheadLog writeAheadLog;
+    private AccountRepository accountRepository;
+    private WireServer wireServer;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        wireServer.stop();
+        writeAheadLog.close();
+    }
+
+    @Test
+    void testCommands_CreateDepositWithdrawBalance() throws Exception {
+        // Arrange
+        startServer(WireFormat.COMMAND_SIZE * 1024);
+        ByteBuffer commands = commands(6);
+        command(commands, WireFormat.CREATE, 123456789, 0, 0);
+        command(commands, WireFormat.CREATE, 123456789, 0, 0);
+        command(commands, WireFormat.DEPOSIT, 123456789, 10_000, 0);
+        command(commands, WireFormat.WITHDRAW, 123456789, 2_500, 0);
+        command(commands, WireFormat.BALANCE, 123456789, 0, 0);
+        command(commands, WireFormat.BALANCE, 987654321, 0, 0);
+
+        // Act
+        ByteBuffer responses;
+        try (SocketChannel channel = connect()) {
+            responses = exchange(channel, commands.flip(), 6);
+        }
+
+        // Assert
+        assertEquals(PostingStatus.OK.code(), status(responses, 0));
+        assertEquals(PostingStatus.ACCOUNT_NUMBER_EXISTS.code(), status(responses, 1));
+        assertEquals(PostingStatus.OK.code(), status(responses, 2));
+        assertEquals(PostingStatus.OK.code(), status(responses, 3));
+        assertEquals(PostingStatus.OK.code(), status(responses, 4));
+        assertEquals(7_500, value(responses, 4));
+        assertEquals(PostingStatus.ACCOUNT_NOT_FOUND.code(), status(responses, 5));
+    }
+
+    @Test
+    void testCommands_PipelinedFromManyConnections() throws Exception {
+        // Arrange: buffers far smaller than the commands in flight, so reads, writes and log waits interleave
+        startServer(WireFormat.COMMAND_SIZE * 16);
+        int connections = 4;
+        int commandsPerConnection = 5_000;
+        try (SocketChannel channel = connect()) {
+            ByteBuffer create = commands(connections);
+            for (int c = 0; c < connections; c++) {
+                command(create, WireFormat.CREATE, 100_000_000 + c, 0, 0);
+            }
+            exchange(channel, create.flip(), connections);
+        }
+
+        // Act: each connection sends all its deposits before reading any response
+        CompletableFuture<?>[] clients = new CompletableFuture<?>[connections];
+        for (int c = 0; c < connections; c++) {
+            int account = 100_000_000 + c;
+            clients[c] = CompletableFuture.runAsync(() -> {
+                ByteBuffer commands = commands(commandsPerConnection);
+                for (int i = 0; i < commandsPerConnection; i++) {
+                    command(commands, WireFormat.DEPOSIT, account, 1, 0);
+                }
+                try (SocketChannel channel = connect()) {
+                    ByteBuffer responses = exchange(channel, commands.flip(), commandsPerConnection);
+                    for (int i = 0; i < commandsPerConnection; i++) {
+                        assertEquals(PostingStatus.OK.code(), status(responses, i));
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(clients).join();
+
+        // Assert
+        for (int c = 0; c < connections; c++) {
+            assertEquals(commandsPerConnection,
+                    accountRepository.findByAccountNumber(String.valueOf(100_000_000 + c)).balance());
+        }
+        assertTrue(writeAheadLog.checkpoint() >= (long) connections * (commandsPerConnection + 1) * WriteAheadLog.RECORD_SIZE);
+    }
+
+    private void startServer(int bufferSize) throws IOException {
+        writeAheadLog = new WriteAheadLog(true, directory.resolve("ledger.wal"), FsyncPolicy.GROUP, 1,
+                WriteAheadLog.RECORD_SIZE * 1024);
+        accountRepository = new AccountRepository(writeAheadLog, SnapshotStore.disabled());
+        accountRepository.recover();
+        LedgerService ledgerService = new LedgerService(accountRepository, new TransactionRepository(1 << 16));
+        wireServer = new WireServer(new WirePostingService(ledgerService, writeAheadLog), writeAheadLog, true,
+                "127.0.0.1", 0, bufferSize);
+        wireServer.start();
+    }
+
+    private SocketChannel connect() throws IOException {
+        return SocketChannel.open(new InetSocketAddress("127.0.0.1", wireServer.port()));
+    }
+
+    /**
+     * Writes every command while reading the given number of responses on another thread, as a pipelining client
+     * does.
+     */
+    private ByteBuffer exchange(SocketChannel channel, ByteBuffer commands, int count) throws IOException {
+        ByteBuffer responses = ByteBuffer.allocate(count * WireFormat.RESPONSE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+            try {
+                while (responses.hasRemaining()) {
+                    if (channel.read(responses) < 0) {
+                        throw new IOException("Connection closed after " + responses.position() + " bytes");
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, executor);
+        while (commands.hasRemaining()) {
+            channel.write(commands);
+        }
+        reader.join();
+        return responses.flip();
+    }
+
+    private static ByteBuffer commands(int count) {
+        return ByteBuffer.allocate(count * WireFormat.COMMAND_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void command(ByteBuffer commands, int opcode, int account, long amount, int toAccount) {
+        commands.putInt(opcode).putInt(account).putLong(amount).putInt(toAccount);
+    }
+
+    private static int status(ByteBuffer responses, int index) {
+        return responses.getInt(index * WireFormat.RESPONSE_SIZE + WireFormat.STATUS_OFFSET);
+    }
+
+    private static long value(ByteBuffer responses, int index) {
+        return responses.getLong(index * WireFormat.RESPONSE_SIZE + WireFormat.VALUE_OFFSET);
+    }
+}
@@ -0,0 +1,162 @@
+package com.bankledger.unit.service;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.dto.ImportResponse;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.model.Account;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.service.AccountImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class AccountImportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private AccountRepository accountRepository;
+    private AccountImportService accountImportService;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = new AccountRepository();
+        accountImportService = new AccountImportService(accountRepository, directory);
+    }
+
+    @Test
+    void testImportAccounts_Csv() {
+        // Arrange
+        accountRepository.create(new Account("000000003", 7));
+        String csv = """
+                accountNumber,balance
+                000000001,100.50
+                000000002
+                000000003,10
+                00000004,10
+                000000001,20
+
+                000000005,-1
+                000000006,0.05\r
+                000000007,""";
+
+        // Act
+        ImportResponse response = accountImportService.importAccounts(null, null, stream(csv));
+
+        // Assert
+        assertEquals(new ImportResponse(4, 1, 1, 2, List.of(5L, 8L)), response);
+        assertEquals(new Account("000000001", 10_050, 0), accountRepository.findByAccountNumber("000000001"));
+        assertEquals(new Account("000000002", 0, 0), accountRepository.findByAccountNumber("000000002"));
+        assertEquals(new Account("000000003", 7, 0), accountRepository.findByAccountNumber("000000003"));
+        assertEquals(new Account("000000006", 5, 0), accountRepository.findByAccountNumber("000000006"));
+        assertEquals(new Account("000000007", 0, 0), accountRepository.findByAccountNumber("000000007"));
+    }
+
+    @Test
+    void testImportAccounts_BinaryFromPath() throws Exception {
+        // Arrange
+        ByteBuffer records = ByteBuffer.allocate(12 * 3 + 5);
+        records.putInt(123456789).putLong(2_500);
+        records.putInt(1_000_000_000).putLong(1);
+        records.putInt(123456789).putLong(3);
+        records.put(new byte[5]);
+        Files.write(directory.resolve("accounts.bin"), records.array());
+
+        // Act
+        ImportResponse response = accountImportService.importAccounts("BINARY", "accounts.bin", null);
+
+        // Assert
+        assertEquals(new ImportResponse(1, 0, 1, 2, List.of(2L, 4L)), response);
+        assertEquals(new Account("123456789", 2_500, 0), accountRepository.findByAccountNumber("123456789"));
+    }
+
+    @Test
+    void testImportAccounts_ManyBlocks() {
+        // Arrange: well over one read block of input
+        int accounts = 1_200_000;
+        StringBuilder csv = new StringBuilder(accounts * 16);
+        for (int i = 0; i < accounts; i++) {
+            csv.append(String.format("%09d", i)).append(",1.00\n");
+        }
+
+        // Act
+        ImportResponse response = accountImportService.importAccounts("csv", null, stream(csv.toString()));
+
+        // Assert
+        assertEquals(new ImportResponse(accounts, 0, 0, 0, List.of()), response);
+        assertEquals(new Account("001199999", 100, 0), accountRepository.findByAccountNumber("001199999"));
+    }
+
+    @Test
+    void testImportAccounts_EmptyBody() {
+        // Act
+        ImportResponse response = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> accountImportService.importAccounts("csv", null, stream("")));
+
+        // Assert
+        assertEquals(new ImportResponse(0, 0, 0, 0, List.of()), response);
+    }
+
+    @Test
+    void testImportAccounts_BlockAlignedInput() {
+        // Arrange: 16-byte lines filling the 16 MiB read block exactly, so the next read returns nothing
+        int accounts = 1 << 20;
+        StringBuilder csv = new StringBuilder(accounts * 16);
+        for (int i = 0; i < accounts; i++) {
+            csv.append(String.format("%09d", i)).append(",10.00\n");
+        }
+
+        // Act
+        ImportResponse response = assertTimeoutPreemptively(Duration.ofSeconds(60),
+                () -> accountImportService.importAccounts("csv", null, stream(csv.toString())));
+
+        // Assert
+        assertEquals(new ImportResponse(accounts, 0, 0, 0, List.of()), response);
+        assertEquals(new Account("001048575", 1_000, 0), accountRepository.findByAccountNumber("001048575"));
+    }
+
+    @Test
+    void testImportAccounts_Failure_PathOutsideImportDirectoryAndUnknownFormat() {
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class,
+                () -> accountImportService.importAccounts("xml", "../accounts.csv", null));
+
+        // Assert
+        assertTrue(exception.getErrors().get("format").toString().contains(Messages.IMPORT_FORMAT_INVALID));
+        assertTrue(exception.getErrors().get("path").toString().contains(Messages.IMPORT_PATH_INVALID));
+    }
+
+    @Test
+    void testImportAccounts_Failure_SymbolicLinkOutsideImportDirectory() throws Exception {
+        // Arrange
+        Path importDirectory = Files.createDirectory(directory.resolve("import"));
+        Path outside = Files.writeString(directory.resolve("outside.csv"), "000000001,10.00\n");
+        Files.createSymbolicLink(importDirectory.resolve("accounts.csv"), outside);
+        AccountImportService service = new AccountImportService(accountRepository, importDirectory);
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class,
+                () -> service.importAccounts(null, "accounts.csv", null));
+
+        // Assert
+        assertTrue(exception.getErrors().get("path").toString().contains(Messages.IMPORT_PATH_INVALID));
+        assertNull(accountRepository.findByAccountNumber("000000001"));
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,329 @@
+package com.bankledger.unit.service;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.WithdrawRequest;
+import com.bankledger.engine.LedgerEngine;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.exception.RetryLaterException;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.service.IdempotencyService;
+import com.bankledger.service.LedgerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("unit")
+class IdempotencyServiceTest {
+
+    private static final DepositRequest DEPOSIT = new DepositRequest("123456789", "10.00");
+
+    private IdempotencyService idempotencyService;
+    private AtomicInteger postings;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(3600, 1 << 20);
+        postings = new AtomicInteger();
+    }
+
+    @Test
+    void testRun_SameKeyPostsOnce() {
+        // Act
+        idempotencyService.run("key-1", DEPOSIT, postings::incrementAndGet);
+        idempotencyService.run("key-1", new DepositRequest("123456789", "10.00"), postings::incrementAndGet);
+        idempotencyService.run("key-2", DEPOSIT, postings::incrementAndGet);
+
+        // Assert
+        assertEquals(2, postings.get());
+    }
+
+    @Test
+    void testRun_WithoutKeyAlwaysPosts() {
+        // Act
+        idempotencyService.run(null, DEPOSIT, postings::incrementAndGet);
+        idempotencyService.run(null, DEPOSIT, postings::incrementAndGet);
+
+        // Assert
+        assertEquals(2, postings.get());
+    }
+
+    @Test
+    void testRun_ReplaysValidationFailure() {
+        // Arrange
+        ExceptionList error = ExceptionList.of("amount", "amount" + Messages.PARAMETER_BLANK);
+
+        // Act
+        ExceptionList first = assertThrows(ExceptionList.class, () -> idempotencyService.run("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            throw error;
+        }));
+        ExceptionList retry = assertThrows(ExceptionList.class,
+                () -> idempotencyService.run("key-1", DEPOSIT, postings::incrementAndGet));
+
+        // Assert
+        assertSame(error, first);
+        assertSame(error, retry);
+        assertEquals(1, postings.get());
+    }
+
+    @Test
+    void testRun_Failure_KeyReusedForDifferentRequest() {
+        // Arrange
+        idempotencyService.run("key-1", DEPOSIT, postings::incrementAndGet);
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class,
+                () -> idempotencyService.run("key-1", new WithdrawRequest("123456789", "10.00"), postings::incrementAndGet));
+
+        // Assert
+        assertTrue(exception.getErrors().get(IdempotencyService.HEADER).toString().contains(Messages.IDEMPOTENCY_KEY_REUSED));
+        assertEquals(1, postings.get());
+    }
+
+    @Test
+    void testRun_Failure_KeyReusedForDifferentFields() {
+        // Arrange
+        idempotencyService.run("key-1", DEPOSIT, postings::incrementAndGet);
+
+        // Act: the same characters split differently between the fields, and a different amount
+        ExceptionList shifted = assertThrows(ExceptionList.class,
+                () -> idempotencyService.run("key-1", new DepositRequest("12345678", "910.00"), postings::incrementAndGet));
+        ExceptionList amount = assertThrows(ExceptionList.class,
+                () -> idempotencyService.run("key-1", new DepositRequest("123456789", "10.01"), postings::incrementAndGet));
+
+        // Assert
+        assertTrue(shifted.getErrors().get(IdempotencyService.HEADER).toString().contains(Messages.IDEMPOTENCY_KEY_REUSED));
+        assertTrue(amount.getErrors().get(IdempotencyService.HEADER).toString().contains(Messages.IDEMPOTENCY_KEY_REUSED));
+        assertEquals(1, postings.get());
+    }
+
+    @Test
+    void testRun_Failure_InvalidKey() {
+        // Act
+        ExceptionList blank = assertThrows(ExceptionList.class,
+                () -> idempotencyService.run(" ", DEPOSIT, postings::incrementAndGet));
+        ExceptionList tooLong = assertThrows(ExceptionList.class,
+                () -> idempotencyService.run("k".repeat(256), DEPOSIT, postings::incrementAndGet));
+
+        // Assert
+        assertTrue(blank.getErrors().get(IdempotencyService.HEADER).toString().contains(Messages.PARAMETER_BLANK));
+        assertTrue(tooLong.getErrors().get(IdempotencyService.HEADER).toString().contains(Messages.IDEMPOTENCY_KEY_TOO_LONG));
+        assertEquals(0, postings.get());
+    }
+
+    @Test
+    void testRun_UnexpectedFailureIsForgotten() {
+        // Act
+        assertThrows(IllegalStateException.class, () -> idempotencyService.run("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            throw new IllegalStateException("disk full");
+        }));
+        idempotencyService.run("key-1", DEPOSIT, postings::incrementAndGet);
+        idempotencyService.run("key-1", DEPOSIT, postings::incrementAndGet);
+
+        // Assert
+        assertEquals(2, postings.get());
+    }
+
+    @Test
+    void testRun_ConcurrentDuplicatesWaitForFirstAttempt() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = new Thread(() -> idempotencyService.run("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        Thread[] retries = new Thread[4];
+        for (int i = 0; i < retries.length; i++) {
+            retries[i] = new Thread(() -> idempotencyService.run("key-1", DEPOSIT, postings::incrementAndGet));
+        }
+
+        // Act
+        first.start();
+        started.await();
+        for (Thread retry : retries) {
+            retry.start();
+        }
+        Thread.sleep(50);
+        boolean waiting = retries[0].isAlive();
+        release.countDown();
+        first.join();
+        for (Thread retry : retries) {
+            retry.join();
+        }
+
+        // Assert
+        assertTrue(waiting);
+        assertEquals(1, postings.get());
+    }
+
+    @Test
+    void testRun_Failure_FirstAttemptStillRunning() throws Exception {
+        // Arrange
+        IdempotencyService impatient = new IdempotencyService(3600, 1 << 20, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = new Thread(() -> impatient.run("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        first.start();
+        started.await();
+
+        // Act
+        RetryLaterException exception = assertThrows(RetryLaterException.class,
+                () -> impatient.run("key-1", DEPOSIT, postings::incrementAndGet));
+        release.countDown();
+        first.join();
+        impatient.run("key-1", DEPOSIT, postings::incrementAndGet);
+
+        // Assert
+        assertTrue(exception.getErrors().get(IdempotencyService.HEADER).toString().contains(Messages.IDEMPOTENCY_KEY_IN_PROGRESS));
+        assertEquals(1, postings.get());
+    }
+
+    @Test
+    void testRunAsync_Failure_FirstAttemptStillRunning() {
+        // Arrange
+        IdempotencyService impatient = new IdempotencyService(3600, 1 << 20, 0);
+        CompletableFuture<Void> posting = new CompletableFuture<>();
+        CompletableFuture<Void> first = impatient.runAsync("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            return posting;
+        });
+
+        // Act
+        CompletableFuture<Void> retry = impatient.runAsync("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        });
+        CompletionException failure = assertThrows(CompletionException.class, retry::join);
+        posting.complete(null);
+
+        // Assert: the timeout failed only the retry
+        assertInstanceOf(RetryLaterException.class, failure.getCause());
+        assertNull(first.join());
+        assertEquals(1, postings.get());
+    }
+
+    @Test
+    void testRunAsync_RetryWaitsForPendingAttempt() {
+        // Arrange
+        CompletableFuture<Void> posting = new CompletableFuture<>();
+
+        // Act
+        CompletableFuture<Void> first = idempotencyService.runAsync("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            return posting;
+        });
+        CompletableFuture<Void> retry = idempotencyService.runAsync("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        });
+        boolean doneBeforePosting = retry.isDone();
+        posting.complete(null);
+
+        // Assert
+        assertFalse(doneBeforePosting);
+        assertNull(first.join());
+        assertNull(retry.join());
+        assertEquals(1, postings.get());
+    }
+
+    @Test
+    void testRunAsync_RetryAfterShardFailureLeavesShardThread() throws Exception {
+        // Arrange: the first deposit fails unexpectedly on the shard thread, once the retry is waiting for it
+        LedgerService ledgerService = mock(LedgerService.class);
+        CountDownLatch retryWaiting = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            retryWaiting.await();
+            throw new IllegalStateException("Store unavailable");
+        }).doNothing().when(ledgerService).deposit(DEPOSIT);
+        LedgerEngine ledgerEngine = new LedgerEngine(ledgerService, WriteAheadLog.disabled(), LedgerEngine.Mode.SHARDED,
+                1, 2);
+        ledgerEngine.start();
+        AtomicReference<String> retryThread = new AtomicReference<>();
+
+        try {
+            // Act
+            CompletableFuture<Void> first = idempotencyService.runAsync("key-1", DEPOSIT,
+                    () -> ledgerEngine.depositAsync(DEPOSIT));
+            CompletableFuture<Void> retry = idempotencyService.runAsync("key-1", DEPOSIT, () -> {
+                retryThread.set(Thread.currentThread().getName());
+                return ledgerEngine.depositAsync(DEPOSIT);
+            });
+            retryWaiting.countDown();
+
+            // Assert
+            CompletionException failure = assertThrows(CompletionException.class, first::join);
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+            assertNull(retry.get(10, TimeUnit.SECONDS));
+            assertFalse(retryThread.get().startsWith("ledger-shard-"));
+            verify(ledgerService, times(2)).deposit(DEPOSIT);
+        } finally {
+            ledgerEngine.stop();
+        }
+    }
+
+    @Test
+    void testRunAsync_ReplaysValidationFailure() {
+        // Arrange
+        ExceptionList error = ExceptionList.of("amount", "amount" + Messages.PARAMETER_BLANK);
+
+        // Act
+        CompletableFuture<Void> first = idempotencyService.runAsync("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            return CompletableFuture.failedFuture(error);
+        });
+        CompletableFuture<Void> retry = idempotencyService.runAsync("key-1", DEPOSIT, () -> {
+            postings.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        });
+        CompletionException firstFailure = assertThrows(CompletionException.class, first::join);
+        CompletionException retryFailure = assertThrows(CompletionException.class, retry::join);
+
+        // Assert
+        assertSame(error, firstFailure.getCause());
+        assertSame(error, retryFailure.getCause());
+        assertEquals(1, postings.get());
+    }
+
+    @Test
+    void testRun_ForgetsOldestKeysPastCapacity() {
+        // Arrange: 64 segments of two generations, at least 32 keys each
+        IdempotencyService small = new IdempotencyService(3600, 0);
+        int keys = 64 * 32 * 8;
+
+        // Act
+        for (int i = 0; i < keys; i++) {
+            small.run("key-" + i, DEPOSIT, postings::incrementAndGet);
+        }
+        small.run("key-0", DEPOSIT, postings::incrementAndGet);
+        small.run("key-" + (keys - 1), DEPOSIT, postings::incrementAndGet);
+
+        // Assert: the first key was forgotten, the last one is still remembered
+        assertEquals(keys + 1, postings.get());
+    }
+}
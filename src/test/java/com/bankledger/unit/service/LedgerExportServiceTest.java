@@ -0,0 +1,125 @@
+package com.bankledger.unit.service;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.model.Account;
+import com.bankledger.model.ExportFormat;
+import com.bankledger.model.TransactionType;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.service.LedgerExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class LedgerExportServiceTest {
+
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+    private LedgerExportService ledgerExportService;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = new AccountRepository();
+        transactionRepository = new TransactionRepository(1024);
+        ledgerExportService = new LedgerExportService(accountRepository, transactionRepository);
+    }
+
+    @Test
+    void testParseFormat_DefaultsToNdjsonAndIgnoresCase() throws ExceptionList {
+        // Act & Assert
+        assertEquals(ExportFormat.NDJSON, ledgerExportService.parseFormat(null));
+        assertEquals(ExportFormat.CSV, ledgerExportService.parseFormat("CSV"));
+    }
+
+    @Test
+    void testParseFormat_Failure_UnknownFormat() {
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerExportService.parseFormat("xml"));
+
+        // Assert
+        assertTrue(exception.getErrors().get("format").toString().contains(Messages.EXPORT_FORMAT_INVALID));
+    }
+
+    @Test
+    void testExportAccounts_Ndjson() throws Exception {
+        // Arrange
+        accountRepository.create(new Account("000000001", 2_550));
+        accountRepository.create(new Account("123456789", -7));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = ledgerExportService.exportAccounts(ExportFormat.NDJSON, out);
+
+        // Assert
+        assertEquals(2, count);
+        assertEquals("""
+                {"accountNumber":"000000001","balance":25.50}
+                {"accountNumber":"123456789","balance":-0.07}
+                """, out.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testExportTransactions_Csv() throws Exception {
+        // Arrange
+        long first = transactionRepository.append("000000001", TransactionType.DEPOSIT, 10_000).timestamp();
+        long second = transactionRepository.append("000000002", TransactionType.TRANSFER_IN, 5).timestamp();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = ledgerExportService.exportTransactions(ExportFormat.CSV, out);
+
+        // Assert
+        assertEquals(2, count);
+        assertEquals("sequence,accountNumber,type,amount,timestamp\n"
+                + "0,000000001,DEPOSIT,100.00," + first + "\n"
+                + "1,000000002,TRANSFER_IN,0.05," + second + "\n", out.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testExportTransactions_GapRowsForEvictedEntries() throws Exception {
+        // Arrange: the oldest segment has been evicted from a two-segment ring
+        TransactionRepository small = new TransactionRepository(1);
+        long capacity = small.retainedCapacity();
+        for (long i = 0; i < capacity + 1; i++) {
+            small.append("000000001", TransactionType.DEPOSIT, 1);
+        }
+        long evicted = capacity / 2;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = new LedgerExportService(accountRepository, small).exportTransactions(ExportFormat.NDJSON, out);
+
+        // Assert
+        String[] rows = out.toString(StandardCharsets.US_ASCII).split("\n");
+        assertEquals(capacity + 1 - evicted, count);
+        assertEquals(count + 1, rows.length);
+        assertEquals("{\"sequence\":0,\"type\":\"GAP\",\"count\":" + evicted + "}", rows[0]);
+        assertTrue(rows[1].startsWith("{\"sequence\":" + evicted + ","));
+    }
+
+    @Test
+    void testExportTransactions_CsvGapRow() throws Exception {
+        // Arrange
+        TransactionRepository small = new TransactionRepository(1);
+        long capacity = small.retainedCapacity();
+        for (long i = 0; i < capacity + 1; i++) {
+            small.append("000000001", TransactionType.DEPOSIT, 1);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        new LedgerExportService(accountRepository, small).exportTransactions(ExportFormat.CSV, out);
+
+        // Assert
+        String[] rows = out.toString(StandardCharsets.US_ASCII).split("\n");
+        assertEquals("sequence,accountNumber,type,amount,timestamp", rows[0]);
+        assertEquals("0,,GAP," + capacity / 2 + ",", rows[1]);
+    }
+}
@@ -1,11 +1,21 @@
 package com.bankledger.unit.service;
 
+import com.bankledger.dto.BatchItem;
+import com.bankledger.dto.BatchRequest;
+import com.bankledger.dto.BatchResponse;
 import com.bankledger.dto.CreateAccountRequest;
 import com.bankledger.dto.DepositRequest;
+import com.bankledger.dto.TransactionPage;
+import com.bankledger.dto.TransferRequest;
 import com.bankledger.dto.WithdrawRequest;
 import com.bankledger.exception.ExceptionList;
+import com.bankledger.metrics.LedgerMetrics;
 import com.bankledger.model.Account;
+import com.bankledger.model.PostingStatus;
+import com.bankledger.model.Transaction;
+import com.bankledger.model.TransactionType;
 import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
 import com.bankledger.service.LedgerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -32,6 +42,12 @@ class LedgerServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private LedgerMetrics metrics;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -42,12 +58,27 @@ class LedgerServiceTest {
         // Arrange
         String accountNumber = "123456789";
         CreateAccountRequest request = new CreateAccountRequest(accountNumber);
+        when(accountRepository.create(any(Account.class))).thenReturn(true);
 
         // Act
         ledgerService.createAccount(request);
 
         // Assert
-        verify(accountRepository, times(1)).save(argThat(account -> account.accountNumber().equals(accountNumber)));
+        verify(accountRepository, times(1)).create(argThat(account -> account.accountNumber().equals(accountNumber)));
+    }
+
+    @Test
+    void testCreateAccount_Failure_LostCreateRace() {
+        // Arrange
+        String accountNumber = "123456789";
+        CreateAccountRequest request = new CreateAccountRequest(accountNumber);
+        when(accountRepository.create(any(Account.class))).thenReturn(false);
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.createAccount(request));
+
+        // Assert
+        assertTrue(exception.getErrors().get("accountNumber").toString().contains(Messages.ACCOUNT_NUMBER_EXISTS));
     }
 
     @Test
@@ -56,14 +87,14 @@ class LedgerServiceTest {
         CreateAccountRequest request = new CreateAccountRequest("12345678"); // Invalid account number
         Map<String, List<String>> errors = new LinkedHashMap<>();
         errors.put("accountNumber", List.of(Messages.INVALID_ACCOUNT_NUMBER));
-        doThrow(new ExceptionList(errors)).when(accountRepository).save(any(Account.class));
+        doThrow(new ExceptionList(errors)).when(accountRepository).create(any(Account.class));
 
         // Act
         ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.createAccount(request));
 
         // Assert
         assertTrue(exception.getErrors().get("accountNumber").toString().contains(Messages.INVALID_ACCOUNT_NUMBER));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).create(any(Account.class));
     }
 
     @Test
@@ -72,14 +103,14 @@ class LedgerServiceTest {
         CreateAccountRequest request = new CreateAccountRequest("1234567891"); // Invalid account number
         Map<String, List<String>> errors = new LinkedHashMap<>();
         errors.put("accountNumber", List.of(Messages.INVALID_ACCOUNT_NUMBER));
-        doThrow(new ExceptionList(errors)).when(accountRepository).save(any(Account.class));
+        doThrow(new ExceptionList(errors)).when(accountRepository).create(any(Account.class));
 
         // Act
         ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.createAccount(request));
 
         // Assert
         assertTrue(exception.getErrors().get("accountNumber").toString().contains(Messages.INVALID_ACCOUNT_NUMBER));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).create(any(Account.class));
     }
 
     @Test
@@ -88,14 +119,14 @@ class LedgerServiceTest {
         CreateAccountRequest request = new CreateAccountRequest("a2b4c6d8e"); // Invalid account number
         Map<String, List<String>> errors = new LinkedHashMap<>();
         errors.put("accountNumber", List.of(Messages.INVALID_ACCOUNT_NUMBER));
-        doThrow(new ExceptionList(errors)).when(accountRepository).save(any(Account.class));
+        doThrow(new ExceptionList(errors)).when(accountRepository).create(any(Account.class));
 
         // Act
         ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.createAccount(request));
 
         // Assert
         assertTrue(exception.getErrors().get("accountNumber").toString().contains(Messages.INVALID_ACCOUNT_NUMBER));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).create(any(Account.class));
     }
 
     @Test
@@ -104,14 +135,14 @@ class LedgerServiceTest {
         CreateAccountRequest request = new CreateAccountRequest(""); // Blank account number
         Map<String, List<String>> errors = new LinkedHashMap<>();
         errors.put("accountNumber", List.of(Messages.PARAMETER_BLANK));
-        doThrow(new ExceptionList(errors)).when(accountRepository).save(any(Account.class));
+        doThrow(new ExceptionList(errors)).when(accountRepository).create(any(Account.class));
 
         // Act
         ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.createAccount(request));
 
         // Assert
         assertTrue(exception.getErrors().get("accountNumber").toString().contains(Messages.PARAMETER_BLANK));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).create(any(Account.class));
     }
 
     @Test
@@ -120,14 +151,14 @@ class LedgerServiceTest {
         CreateAccountRequest request = new CreateAccountRequest(null); // Null account number
         Map<String, List<String>> errors = new LinkedHashMap<>();
         errors.put("accountNumber", List.of(Messages.PARAMETER_NULL));
-        doThrow(new ExceptionList(errors)).when(accountRepository).save(any(Account.class));
+        doThrow(new ExceptionList(errors)).when(accountRepository).create(any(Account.class));
 
         // Act
         ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.createAccount(request));
 
         // Assert
         assertTrue(exception.getErrors().get("accountNumber").toString().contains(Messages.PARAMETER_NULL));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).create(any(Account.class));
     }
 
     @Test
@@ -143,7 +174,7 @@ class LedgerServiceTest {
         // Assert
         assertNotNull(actualAccount);
         assertEquals(expectedAccount, actualAccount);
-        verify(accountRepository, times(2)).findByAccountNumber(accountNumber);
+        verify(accountRepository, times(1)).findByAccountNumber(accountNumber);
     }
 
     @Test
@@ -173,22 +204,117 @@ class LedgerServiceTest {
         verify(accountRepository, never()).findByAccountNumber(anyString());
     }
 
+    @Test
+    void testGetTransactions_Success_FirstPageWithMore() throws ExceptionList {
+        // Arrange
+        String accountNumber = "123456789";
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(new Account(accountNumber));
+        List<Transaction> transactions = List.of(
+                new Transaction(3, accountNumber, TransactionType.DEPOSIT, 100, 0),
+                new Transaction(8, accountNumber, TransactionType.WITHDRAWAL, 50, 0),
+                new Transaction(9, accountNumber, TransactionType.DEPOSIT, 25, 0));
+        when(transactionRepository.findByAccount(accountNumber, -1, 3)).thenReturn(transactions);
+
+        // Act
+        TransactionPage page = ledgerService.getTransactions(accountNumber, null, "2");
+
+        // Assert
+        assertEquals(transactions.subList(0, 2), page.transactions());
+        assertEquals(8, page.after());
+        assertTrue(page.hasMore());
+    }
+
+    @Test
+    void testGetTransactions_Success_EmptyPageKeepsCursor() throws ExceptionList {
+        // Arrange
+        String accountNumber = "123456789";
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(new Account(accountNumber));
+        when(transactionRepository.findByAccount(accountNumber, 41, 101)).thenReturn(List.of());
+
+        // Act
+        TransactionPage page = ledgerService.getTransactions(accountNumber, "41", null);
+
+        // Assert
+        assertEquals(List.of(), page.transactions());
+        assertEquals(41, page.after());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    void testGetTransactions_Failure_InvalidCursorAndLimit() {
+        // Arrange
+        String accountNumber = "123456789";
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(new Account(accountNumber));
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class,
+                () -> ledgerService.getTransactions(accountNumber, "-1", "1001"));
+
+        // Assert
+        assertTrue(exception.getErrors().get("accountNumber").isEmpty());
+        assertTrue(exception.getErrors().get("after").toString().contains(Messages.TRANSACTION_CURSOR_INVALID));
+        assertTrue(exception.getErrors().get("limit").toString().contains(Messages.PAGE_LIMIT_INVALID));
+        verify(transactionRepository, never()).findByAccount(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testGetTransactions_Failure_AccountDoesNotExist() {
+        // Arrange
+        String accountNumber = "123456789";
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(null);
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class,
+                () -> ledgerService.getTransactions(accountNumber, null, "0"));
+
+        // Assert
+        assertTrue(exception.getErrors().get("accountNumber").toString().contains(Messages.ACCOUNT_NOT_FOUND));
+        assertTrue(exception.getErrors().get("limit").toString().contains(Messages.PAGE_LIMIT_INVALID));
+    }
+
     @Test
     void testDeposit_Success() throws ExceptionList {
         // Arrange
         String accountNumber = "123456789";
         String depositAmount = "100.00";
-        Account account = new Account(accountNumber, 0.0);
+        Account account = new Account(accountNumber, 0);
         when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(account);
+        when(accountRepository.deposit(123456789, 10_000L, transactionRepository)).thenReturn(PostingStatus.OK);
 
         // Act
         ledgerService.deposit(new DepositRequest(accountNumber, depositAmount));
 
         // Assert
-        verify(accountRepository, times(1)).save(argThat(updatedAccount ->
-                updatedAccount.accountNumber().equals(accountNumber) &&
-                        updatedAccount.balance() == 100.0
-        ));
+        verify(accountRepository, times(1)).deposit(123456789, 10_000L, transactionRepository);
+    }
+
+    @Test
+    void testDeposit_Failure_BalanceOverflow() {
+        // Arrange
+        String accountNumber = "123456789";
+        Account account = new Account(accountNumber, Long.MAX_VALUE);
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(account);
+        when(accountRepository.deposit(123456789, 100L, transactionRepository)).thenReturn(PostingStatus.BALANCE_LIMIT_EXCEEDED);
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.deposit(new DepositRequest(accountNumber, "1.00")));
+
+        // Assert
+        assertTrue(exception.getErrors().get("amount").toString().contains(Messages.BALANCE_LIMIT_EXCEEDED));
+    }
+
+    @Test
+    void testDeposit_Failure_SubCentAmount() {
+        // Arrange
+        String accountNumber = "123456789";
+        DepositRequest request = new DepositRequest(accountNumber, "0.001");
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.deposit(request));
+
+        // Assert
+        assertTrue(exception.getErrors().get("amount").toString().contains(Messages.AMOUNT_INVALID));
+        verify(accountRepository, never()).deposit(anyInt(), anyLong(), any());
     }
 
     @Test
@@ -204,7 +330,7 @@ class LedgerServiceTest {
         // Assert
         assertTrue(exception.getErrors().containsKey("amount"));
         assertTrue(exception.getErrors().get("amount").toString().contains(Messages.AMOUNT_INVALID));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).deposit(anyInt(), anyLong(), any());
     }
 
     @Test
@@ -219,7 +345,7 @@ class LedgerServiceTest {
 
         // Assert
         assertTrue(exception.getErrors().get("amount").toString().contains(Messages.PARAMETER_BLANK));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).deposit(anyInt(), anyLong(), any());
     }
 
     @Test
@@ -233,7 +359,7 @@ class LedgerServiceTest {
 
         // Assert
         assertTrue(exception.getErrors().get("amount").toString().contains(Messages.PARAMETER_NULL));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).deposit(anyInt(), anyLong(), any());
     }
 
     @Test
@@ -248,7 +374,7 @@ class LedgerServiceTest {
 
         // Assert
         assertTrue(exception.getErrors().get("amount").toString().contains(Messages.AMOUNT_INVALID));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).deposit(anyInt(), anyLong(), any());
     }
 
     @Test
@@ -256,17 +382,32 @@ class LedgerServiceTest {
         // Arrange
         String accountNumber = "123456789";
         String withdrawAmount = "50.00";
-        Account account = new Account(accountNumber, 100.0); // Initial balance
+        Account account = new Account(accountNumber, 10_000); // Initial balance
         when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(account);
+        when(accountRepository.withdraw(123456789, 5_000L, transactionRepository)).thenReturn(PostingStatus.OK);
 
         // Act
         ledgerService.withdraw(new WithdrawRequest(accountNumber, withdrawAmount));
 
         // Assert
-        verify(accountRepository, times(1)).save(argThat(updatedAccount ->
-                updatedAccount.accountNumber().equals(accountNumber) &&
-                        updatedAccount.balance() == 50.0 // Remaining balance
-        ));
+        verify(accountRepository, times(1)).findByAccountNumber(accountNumber);
+        verify(accountRepository, times(1)).withdraw(123456789, 5_000L, transactionRepository);
+    }
+
+    @Test
+    void testWithdraw_Failure_ConcurrentWithdrawalDrainedBalance() {
+        // Arrange
+        String accountNumber = "123456789";
+        Account account = new Account(accountNumber, 10_000);
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(account);
+        when(accountRepository.withdraw(123456789, 8_000L, transactionRepository)).thenReturn(PostingStatus.INSUFFICIENT_BALANCE);
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.withdraw(new WithdrawRequest(accountNumber, "80.00")));
+
+        // Assert
+        assertTrue(exception.getErrors().get("amount").toString().contains(Messages.INSUFFICIENT_BALANCE));
+        verifyNoInteractions(transactionRepository);
     }
 
     @Test
@@ -281,7 +422,7 @@ class LedgerServiceTest {
 
         // Assert
         assertTrue(exception.getErrors().get("amount").toString().contains(Messages.AMOUNT_INVALID));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).withdraw(anyInt(), anyLong(), any());
     }
 
     @Test
@@ -296,7 +437,7 @@ class LedgerServiceTest {
 
         // Assert
         assertTrue(exception.getErrors().get("amount").toString().contains(Messages.PARAMETER_BLANK));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).withdraw(anyInt(), anyLong(), any());
     }
 
     @Test
@@ -310,7 +451,7 @@ class LedgerServiceTest {
 
         // Assert
         assertTrue(exception.getErrors().get("amount").toString().contains(Messages.PARAMETER_NULL));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).withdraw(anyInt(), anyLong(), any());
     }
 
     @Test
@@ -319,7 +460,7 @@ class LedgerServiceTest {
         String accountNumber = "123456789";
         BigDecimal amount = BigDecimal.ZERO;
         BigDecimal amountToWithdraw = new BigDecimal("1.00");
-        Account account = new Account("123456789", amount.doubleValue());
+        Account account = new Account("123456789", amount.movePointRight(2).longValueExact());
         when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(account);
 
         // Act
@@ -329,7 +470,7 @@ class LedgerServiceTest {
 
         // Assert
         assertTrue(exception.getErrors().get("amount").toString().contains(Messages.INSUFFICIENT_BALANCE));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).withdraw(anyInt(), anyLong(), any());
     }
 
     @Test
@@ -338,7 +479,7 @@ class LedgerServiceTest {
         String accountNumber = "123456789";
         BigDecimal amount = new BigDecimal("-1.00");
         BigDecimal amountToWithdraw = new BigDecimal("1.00");
-        Account account = new Account("123456789", amount.doubleValue());
+        Account account = new Account("123456789", amount.movePointRight(2).longValueExact());
         when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(account);
 
         // Act
@@ -346,6 +487,97 @@ class LedgerServiceTest {
 
         // Assert
         assertTrue(exception.getErrors().get("amount").toString().contains(Messages.INSUFFICIENT_BALANCE));
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).withdraw(anyInt(), anyLong(), any());
+    }
+
+    @Test
+    void testTransfer_Success() throws ExceptionList {
+        // Arrange
+        when(accountRepository.findByAccountNumber("123456789")).thenReturn(new Account("123456789", 10_000));
+        when(accountRepository.findByAccountNumber("987654321")).thenReturn(new Account("987654321"));
+        when(accountRepository.transfer(123456789, 987654321, 2_500L, transactionRepository)).thenReturn(PostingStatus.OK);
+
+        // Act
+        ledgerService.transfer(new TransferRequest("123456789", "987654321", "25.00"));
+
+        // Assert
+        verify(accountRepository, times(1)).transfer(123456789, 987654321, 2_500L, transactionRepository);
+    }
+
+    @Test
+    void testTransfer_Failure_SameAccount() {
+        // Arrange
+        when(accountRepository.findByAccountNumber("123456789")).thenReturn(new Account("123456789", 10_000));
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.transfer(new TransferRequest("123456789", "123456789", "25.00")));
+
+        // Assert
+        assertTrue(exception.getErrors().get("toAccountNumber").toString().contains(Messages.SAME_ACCOUNT_TRANSFER));
+        verify(accountRepository, never()).transfer(anyInt(), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    void testTransfer_Failure_ConcurrentUpdateDrainedBalance() {
+        // Arrange
+        when(accountRepository.findByAccountNumber("123456789")).thenReturn(new Account("123456789", 10_000));
+        when(accountRepository.findByAccountNumber("987654321")).thenReturn(new Account("987654321"));
+        when(accountRepository.transfer(123456789, 987654321, 10_000L, transactionRepository)).thenReturn(PostingStatus.INSUFFICIENT_BALANCE);
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.transfer(new TransferRequest("123456789", "987654321", "100.00")));
+
+        // Assert
+        assertTrue(exception.getErrors().get("amount").toString().contains(Messages.INSUFFICIENT_BALANCE));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testApplyBatch_Success_PerItem() {
+        // Arrange
+        BatchRequest request = new BatchRequest(null, List.of(
+                new BatchItem("DEPOSIT", "123456789", "10.00"),
+                new BatchItem("TRANSFER", "123456789", "10.00"),
+                new BatchItem("WITHDRAWAL", "", "10.00"),
+                new BatchItem("WITHDRAWAL", "123456789", "-1")));
+        when(accountRepository.applyBatch(any(), any(), any(), eq(false), same(transactionRepository))).thenReturn(1);
+
+        // Act
+        BatchResponse response = ledgerService.applyBatch(request);
+
+        // Assert
+        assertTrue(response.committed());
+        assertArrayEquals(new int[]{
+                PostingStatus.OK.code(),
+                PostingStatus.INVALID_TYPE.code(),
+                PostingStatus.INVALID_ACCOUNT_NUMBER.code(),
+                PostingStatus.INVALID_AMOUNT.code()}, response.status());
+        verify(accountRepository, times(1)).applyBatch(any(), any(), any(), eq(false), same(transactionRepository));
+    }
+
+    @Test
+    void testApplyBatch_Failure_AtomicBatchWithInvalidItem() {
+        // Arrange
+        BatchRequest request = new BatchRequest(true, List.of(
+                new BatchItem("DEPOSIT", "123456789", "10.00"),
+                new BatchItem("WITHDRAWAL", "123456789", "abc")));
+
+        // Act
+        BatchResponse response = ledgerService.applyBatch(request);
+
+        // Assert
+        assertFalse(response.committed());
+        assertArrayEquals(new int[]{PostingStatus.NOT_APPLIED.code(), PostingStatus.INVALID_AMOUNT.code()}, response.status());
+        verify(accountRepository, never()).applyBatch(any(), any(), any(), anyBoolean(), any());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testApplyBatch_Failure_NullItems() {
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class, () -> ledgerService.applyBatch(new BatchRequest(true, null)));
+
+        // Assert
+        assertTrue(exception.getErrors().get("items").toString().contains(Messages.PARAMETER_NULL));
     }
-}
\ No newline at end of file
+}
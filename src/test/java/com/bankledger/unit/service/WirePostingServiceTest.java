@@ -0,0 +1,150 @@
+package com.bankledger.unit.service;
+
+import com.bankledger.constants.Messages;
+import com.bankledger.dto.CreateAccountRequest;
+import com.bankledger.exception.ExceptionList;
+import com.bankledger.model.PostingStatus;
+import com.bankledger.model.TransactionType;
+import com.bankledger.model.WireFormat;
+import com.bankledger.persistence.FsyncPolicy;
+import com.bankledger.persistence.SnapshotStore;
+import com.bankledger.persistence.WriteAheadLog;
+import com.bankledger.repository.AccountRepository;
+import com.bankledger.repository.TransactionRepository;
+import com.bankledger.service.LedgerService;
+import com.bankledger.service.WirePostingService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class WirePostingServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testApply_PostsEachCommand() {
+        // Arrange
+        AccountRepository accountRepository = new AccountRepository();
+        TransactionRepository transactionRepository = new TransactionRepository(1024);
+        WirePostingService wirePostingService = newService(accountRepository, transactionRepository,
+                WriteAheadLog.disabled());
+        ByteBuffer commands = commands(7);
+        command(commands, WireFormat.DEPOSIT, 123456789, 10_000, 0);
+        command(commands, WireFormat.WITHDRAW, 123456789, 2_500, 0);
+        command(commands, WireFormat.TRANSFER, 123456789, 1_000, 987654321);
+        command(commands, WireFormat.WITHDRAW, 987654321, 5_000, 0);
+        command(commands, WireFormat.DEPOSIT, 555, 100, 0);
+        command(commands, WireFormat.DEPOSIT, -1, 100, 0);
+        command(commands, 9, 123456789, 100, 0);
+
+        // Act
+        ByteBuffer responses = ByteBuffer.wrap(wirePostingService.apply(commands.array())).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Assert
+        assertEquals(7 * WireFormat.RESPONSE_SIZE, responses.capacity());
+        assertEquals(PostingStatus.OK.code(), status(responses, 0));
+        assertEquals(PostingStatus.OK.code(), status(responses, 1));
+        assertEquals(PostingStatus.OK.code(), status(responses, 2));
+        assertEquals(PostingStatus.INSUFFICIENT_BALANCE.code(), status(responses, 3));
+        assertEquals(PostingStatus.ACCOUNT_NOT_FOUND.code(), status(responses, 4));
+        assertEquals(PostingStatus.INVALID_ACCOUNT_NUMBER.code(), status(responses, 5));
+        assertEquals(PostingStatus.INVALID_TYPE.code(), status(responses, 6));
+        assertEquals(6_500, accountRepository.findByAccountNumber("123456789").balance());
+        assertEquals(1_000, accountRepository.findByAccountNumber("987654321").balance());
+        assertEquals(TransactionType.TRANSFER_IN,
+                transactionRepository.findByAccount("987654321", -1, 10).get(0).type());
+    }
+
+    @Test
+    void testApply_CreatesAndReadsAccounts() {
+        // Arrange
+        AccountRepository accountRepository = new AccountRepository();
+        WirePostingService wirePostingService = newService(accountRepository, new TransactionRepository(1024),
+                WriteAheadLog.disabled());
+        ByteBuffer commands = commands(5);
+        command(commands, WireFormat.CREATE, 555, 0, 0);
+        command(commands, WireFormat.CREATE, 123456789, 0, 0);
+        command(commands, WireFormat.DEPOSIT, 555, 4_200, 0);
+        command(commands, WireFormat.BALANCE, 555, 0, 0);
+        command(commands, WireFormat.BALANCE, -1, 0, 0);
+
+        // Act
+        ByteBuffer responses = ByteBuffer.wrap(wirePostingService.apply(commands.array())).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Assert
+        assertEquals(PostingStatus.OK.code(), status(responses, 0));
+        assertEquals(PostingStatus.ACCOUNT_NUMBER_EXISTS.code(), status(responses, 1));
+        assertEquals(PostingStatus.OK.code(), status(responses, 2));
+        assertEquals(PostingStatus.OK.code(), status(responses, 3));
+        assertEquals(4_200, responses.getLong(3 * WireFormat.RESPONSE_SIZE + WireFormat.VALUE_OFFSET));
+        assertEquals(PostingStatus.INVALID_ACCOUNT_NUMBER.code(), status(responses, 4));
+        assertEquals(4_200, accountRepository.findByAccountNumber("000000555").balance());
+    }
+
+    @Test
+    void testApply_WaitsForDurability() {
+        // Arrange
+        WriteAheadLog writeAheadLog = new WriteAheadLog(true, directory.resolve("ledger.wal"), FsyncPolicy.GROUP, 1,
+                WriteAheadLog.RECORD_SIZE * 64);
+        AccountRepository accountRepository = new AccountRepository(writeAheadLog, SnapshotStore.disabled());
+        accountRepository.recover();
+        WirePostingService wirePostingService = newService(accountRepository, new TransactionRepository(1024),
+                writeAheadLog);
+        ByteBuffer commands = commands(3);
+        for (int i = 0; i < 3; i++) {
+            command(commands, WireFormat.DEPOSIT, 123456789, 100, 0);
+        }
+
+        // Act
+        wirePostingService.apply(commands.array());
+        long durable = writeAheadLog.checkpoint();
+        writeAheadLog.close();
+
+        // Assert: two account creations and three deposits
+        assertEquals(5L * WriteAheadLog.RECORD_SIZE, durable);
+        assertEquals(300, accountRepository.findByAccountNumber("123456789").balance());
+    }
+
+    @Test
+    void testApply_Failure_PartialFrame() {
+        // Arrange
+        WirePostingService wirePostingService = newService(new AccountRepository(), new TransactionRepository(1024),
+                WriteAheadLog.disabled());
+
+        // Act
+        ExceptionList exception = assertThrows(ExceptionList.class,
+                () -> wirePostingService.apply(new byte[WireFormat.COMMAND_SIZE + 1]));
+
+        // Assert
+        assertTrue(exception.getErrors().get("body").toString().contains(Messages.COMMAND_FRAMES_INVALID));
+    }
+
+    private static WirePostingService newService(AccountRepository accountRepository,
+                                                 TransactionRepository transactionRepository,
+                                                 WriteAheadLog writeAheadLog) {
+        LedgerService ledgerService = new LedgerService(accountRepository, transactionRepository);
+        ledgerService.createAccount(new CreateAccountRequest("123456789"));
+        ledgerService.createAccount(new CreateAccountRequest("987654321"));
+        return new WirePostingService(ledgerService, writeAheadLog);
+    }
+
+    private static ByteBuffer commands(int count) {
+        return ByteBuffer.allocate(count * WireFormat.COMMAND_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void command(ByteBuffer commands, int opcode, int account, long amount, int toAccount) {
+        commands.putInt(opcode).putInt(account).putLong(amount).putInt(toAccount);
+    }
+
+    private static int status(ByteBuffer responses, int index) {
+        return responses.getInt(index * WireFormat.RESPONSE_SIZE + WireFormat.STATUS_OFFSET);
+    }
+}